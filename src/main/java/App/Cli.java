@@ -0,0 +1,424 @@
+package App;
+
+import App.Distributed.Coordinator;
+import App.Distributed.Worker;
+import App.PGraph.Decomposition;
+import App.PGraph.PGraph;
+import App.PGraph.Portfolio;
+import App.PGraph.SearchOptions;
+import App.PGraph.Sensitivity;
+import App.PGraph.Sweep;
+import App.PGraph.Utils.NodeStore;
+import App.PGraph.Solver.ORToolsBackend;
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Solver.SolverResult;
+import App.PGraph.Utils.ProblemFile;
+import App.PGraph.Utils.SolutionFile;
+import App.Service.SolverService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line interface, to solve problems without the graphical interface.
+ * <p>
+ * Commands:
+ * - solve problem [solution] [start]: solve the problem, print the result and save it to the solution file. The
+ * search starts from the structure of the start solution file, for example the solution of yesterday's network.
+ * A problem with independent sub-networks is solved with a search for each one, in parallel.
+ * With a MIP backend like CBC or SCIP, the complete integer model is also solved by that solver to compare both values.
+ * - sweep problem scenarios [threads] [relaxation]: solve the problem under every scenario of the scenarios file
+ * and print the results as a table.
+ * - sensitivity problem [pool]: solve the problem and print the sensitivity report of the best solution. The pool
+ * keeps 2 solutions by default, since the second best structure gives the ranges of the fixed costs.
+ * - serve [port] [solver threads] [queue size]: start the local solver service on localhost.
+ * - distribute problem [workers] [port] [relaxation]: solve the problem with a coordinator and worker processes on this
+ * host. More workers can connect to the port with the worker command.
+ * - worker host port: search the subtrees of a coordinator until it ends.
+ * - portfolio problem [threads]: race the default search configurations on the problem and print which one won.
+ * <p>
+ * The relaxation is lp, flow or lagrangian, lp by default. The option --backend=NAME, anywhere in the arguments,
+ * selects the solver of the relaxations: glop, cbc, scip or simplex, glop by default. The option --store=memory or
+ * --store=file keeps the search trees of solve and sensitivity off the heap, in direct memory or in a temporary file.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see Sweep
+ * @see Coordinator
+ */
+public class Cli {
+    // Maximum nodes of a task of a distributed search
+    private static final long DISTRIBUTED_TASK_NODES = 500;
+    private static final String BACKEND_OPTION = "--backend=";
+    private static final String STORE_OPTION = "--store=";
+    // Name of the solver backend of the command line, or null for the default one
+    private static String backend;
+    // Kind of node store of the command line, or null to keep the trees in the heap
+    private static String store;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ArrayList<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(BACKEND_OPTION)) backend = arg.substring(BACKEND_OPTION.length());
+            else if (arg.startsWith(STORE_OPTION)) store = arg.substring(STORE_OPTION.length());
+            else positional.add(arg);
+        }
+        args = positional.toArray(String[]::new);
+
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+
+        switch (args[0]) {
+            case "solve" -> solve(args);
+            case "sweep" -> sweep(args);
+            case "sensitivity" -> sensitivity(args);
+            case "serve" -> serve(args);
+            case "distribute" -> distribute(args);
+            case "worker" -> worker(args);
+            case "portfolio" -> portfolio(args);
+            default -> usage();
+        }
+    }
+
+    /**
+     * Solve a problem and save its best solution. The independent components of the problem are solved in parallel.
+     *
+     * @param args The arguments: solve, the problem file, the solution file to write and the solution file to start
+     *             from.
+     * @throws IOException          If a file can't be read or written.
+     * @throws InterruptedException If the thread is interrupted while waiting for the components.
+     * @see SolutionFile
+     * @see Decomposition
+     */
+    private static void solve(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+
+        ProblemFile problem = ProblemFile.read(Path.of(args[1]));
+        SearchOptions options = searchOptions();
+        if (args.length > 3) options.setStartStructure(SolutionFile.read(Path.of(args[3])).getUnits());
+
+        Decomposition decomposition = new Decomposition(problem.getUnits());
+        List<NodeStore> stores = Collections.synchronizedList(new ArrayList<>());
+        try {
+            decomposition.solve(options, Runtime.getRuntime().availableProcessors(), (component, componentOptions) -> {
+                try {
+                    // Each component has its own tree, with an X and a Y variable for each unit
+                    NodeStore componentStore = nodeStore(2 * component.size());
+                    if (componentStore != null) stores.add(componentStore);
+                    componentOptions.setNodeStore(componentStore);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return new PGraph(component, componentOptions);
+            });
+            print(problem, decomposition, options, args.length > 2 ? Path.of(args[2]) : null);
+        } finally {
+            for (NodeStore componentStore : stores) componentStore.close();
+        }
+    }
+
+    /**
+     * Print the solution of the components of a problem and save it.
+     *
+     * @param problem       The problem.
+     * @param decomposition The components, already solved.
+     * @param options       The options of the search.
+     * @param file          The solution file to write, or null.
+     * @throws IOException If the file can't be written.
+     */
+    private static void print(ProblemFile problem, Decomposition decomposition, SearchOptions options, Path file) throws IOException {
+        if (!decomposition.isFeasible()) {
+            System.out.println("The problem is infeasible");
+            return;
+        }
+
+        long nodes = 0;
+        long lpSolves = 0;
+        for (PGraph graph : decomposition.getGraphs()) {
+            nodes += graph.getStatistics().getNodes();
+            lpSolves += graph.getStatistics().getLpSolves();
+        }
+
+        SolutionFile solution = SolutionFile.of(problem.getUnits(), decomposition.getValue(), decomposition.getVariables());
+        System.out.println("Value: " + solution.getValue());
+        System.out.println("Units: " + String.join(", ", solution.getUnits()));
+        if (decomposition.getComponentCount() > 1) System.out.println("Components: " + decomposition.getComponentCount());
+        System.out.println("Nodes: " + nodes + ", LP solves: " + lpSolves);
+        if (options.getBackend() instanceof ORToolsBackend mip && mip.isMip()) compare(decomposition, mip);
+        if (file != null) solution.write(file);
+    }
+
+    /**
+     * Solve the complete integer model of every component with a MIP solver and print the value next to the value of
+     * the Branch and Bound algorithm.
+     *
+     * @param decomposition The components, already solved.
+     * @param mip           The MIP backend.
+     */
+    private static void compare(Decomposition decomposition, ORToolsBackend mip) {
+        long start = System.nanoTime();
+        double value = 0;
+        for (PGraph graph : decomposition.getGraphs()) {
+            SolverResult result = mip.solveInteger(graph.getModel(), graph.getModel().getLowerBounds(), graph.getModel().getUpperBounds());
+            if (result.getValues() == null) {
+                System.out.println(mip.getName() + ": " + result.getStatus());
+                return;
+            }
+            value += result.getObjective();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println(mip.getName() + ": " + value + " in " + millis + " ms, difference " + (value - decomposition.getValue()));
+    }
+
+    /**
+     * Run a parametric sweep.
+     *
+     * @param args The arguments: sweep, the problem file, the scenarios file, the number of threads and the
+     *             relaxation.
+     * @throws IOException          If a file can't be read.
+     * @throws InterruptedException If the thread is interrupted while waiting for the scenarios.
+     */
+    private static void sweep(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            usage();
+            return;
+        }
+
+        ProblemFile problem = ProblemFile.read(Path.of(args[1]));
+        Sweep sweep = new Sweep(problem);
+        sweep.addAll(Sweep.readScenarios(Path.of(args[2])));
+
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        SearchOptions options = searchOptions();
+        if (args.length > 4) options.setRelaxation(relaxation(args[4]));
+
+        List<Sweep.Result> results = sweep.solve(options, threads);
+        System.out.print(Sweep.toTable(results));
+    }
+
+    /**
+     * Print the sensitivity report of a problem.
+     *
+     * @param args The arguments: sensitivity, the problem file and the size of the solution pool.
+     * @throws IOException If the file can't be read.
+     */
+    private static void sensitivity(String[] args) throws IOException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+
+        ProblemFile problem = ProblemFile.read(Path.of(args[1]));
+        SearchOptions options = searchOptions();
+        options.setPoolSize(args.length > 2 ? Integer.parseInt(args[2]) : 2);
+
+        Sensitivity sensitivity;
+        try (NodeStore nodeStore = nodeStore(2 * problem.getUnits().size())) {
+            options.setNodeStore(nodeStore);
+            sensitivity = new PGraph(problem.getUnits(), options).getSensitivity();
+        }
+        if (sensitivity == null) {
+            System.out.println("The problem is infeasible");
+            return;
+        }
+
+        System.out.println("Value: " + sensitivity.getValue());
+        System.out.print(sensitivity.toTable());
+    }
+
+    /**
+     * Start the solver service. It runs until the process is stopped.
+     *
+     * @param args The arguments: serve, the port, the number of solver threads and the size of the queue.
+     * @throws IOException If the port can't be bound.
+     * @see SolverService
+     */
+    private static void serve(String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int queue = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        SolverService service = new SolverService(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads, queue);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> service.stop(1)));
+        service.start();
+        System.out.println("Listening on http://localhost:" + service.getPort() + "/jobs");
+    }
+
+    /**
+     * Solve a problem with a coordinator and local worker processes, and print the result.
+     *
+     * @param args The arguments: distribute, the problem file, the number of workers, the port and the relaxation.
+     * @throws IOException          If the file can't be read or the port can't be bound.
+     * @throws InterruptedException If the thread is interrupted while waiting for the workers.
+     * @see Coordinator
+     */
+    private static void distribute(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+
+        ProblemFile problem = ProblemFile.read(Path.of(args[1]));
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        SearchOptions.Relaxation relaxation = args.length > 4 ? relaxation(args[4]) : SearchOptions.Relaxation.LP;
+
+        Coordinator coordinator = new Coordinator(problem, relaxation, DISTRIBUTED_TASK_NODES);
+        coordinator.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        System.out.println("Coordinator on port " + coordinator.getPort());
+
+        // The workers run the same classes with the same Java
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                Cli.class.getName(), "worker", "localhost", String.valueOf(coordinator.getPort())));
+        if (backend != null) command.add(BACKEND_OPTION + backend);
+        ArrayList<Process> processes = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            processes.add(new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+
+        // The search can't end if every worker is lost, unless other workers connect
+        while (!coordinator.await(Duration.ofSeconds(1))) {
+            if (coordinator.getWorkers() == 0 && processes.stream().noneMatch(Process::isAlive)) {
+                System.out.println("Every worker ended before the end of the search");
+                break;
+            }
+        }
+        coordinator.stop();
+
+        for (Process process : processes) {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroy();
+        }
+
+        if (coordinator.getError() != null) {
+            System.out.println(coordinator.getError());
+            return;
+        }
+
+        if (coordinator.getValues() == null) {
+            System.out.println("The problem is infeasible");
+            return;
+        }
+
+        System.out.println("Value: " + coordinator.getValue());
+        System.out.println("Units: " + String.join(", ", coordinator.getSelectedUnits()));
+        System.out.println("Bound: " + coordinator.getBound());
+        System.out.println("Nodes: " + coordinator.getNodes() + ", LP solves: " + coordinator.getLpSolves()
+                + ", tasks: " + coordinator.getTasks() + ", pruned subtrees: " + coordinator.getPrunedSubtrees());
+    }
+
+    /**
+     * Run a worker of a distributed search until its coordinator ends.
+     *
+     * @param args The arguments: worker, the host and the port of the coordinator.
+     * @throws IOException If the connection fails.
+     * @see Worker
+     */
+    private static void worker(String[] args) throws IOException {
+        if (args.length < 3) {
+            usage();
+            return;
+        }
+
+        new Worker(args[1], Integer.parseInt(args[2]), backend).run();
+    }
+
+    /**
+     * Race the default configurations on a problem and print the result and the runs.
+     *
+     * @param args The arguments: portfolio, the problem file and the number of threads.
+     * @throws IOException          If the file can't be read.
+     * @throws InterruptedException If the thread is interrupted while waiting for the configurations.
+     * @see Portfolio
+     */
+    private static void portfolio(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+
+        ProblemFile problem = ProblemFile.read(Path.of(args[1]));
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Portfolio portfolio = new Portfolio(problem.getUnits());
+        portfolio.addDefaults(searchOptions());
+        portfolio.solve(threads);
+
+        if (portfolio.isFeasible()) {
+            System.out.println("Value: " + portfolio.getValue());
+            System.out.println("Units: " + String.join(", ", portfolio.getSelectedUnits()));
+            System.out.println("Found by: " + portfolio.getIncumbentConfiguration());
+        } else {
+            System.out.println("The problem is infeasible");
+        }
+        System.out.println("Won by: " + portfolio.getWinner());
+        System.out.print(portfolio.toTable());
+    }
+
+    /**
+     * Create the search options of a command, with the backend of the command line.
+     *
+     * @return The options.
+     * @throws IllegalStateException If the backend isn't available.
+     */
+    private static SearchOptions searchOptions() {
+        return new SearchOptions(backend == null ? null : SolverBackend.of(backend));
+    }
+
+    /**
+     * Create the node store of a search with the store option of the command line.
+     *
+     * @param variables The number of variables of the model.
+     * @return The store, or null to keep the tree in the heap.
+     * @throws IOException              If the temporary file can't be created.
+     * @throws IllegalArgumentException If the kind of store is unknown.
+     */
+    private static NodeStore nodeStore(int variables) throws IOException {
+        if (store == null) return null;
+        return switch (store.toLowerCase(Locale.ROOT)) {
+            case "memory" -> NodeStore.inMemory(variables);
+            case "file" -> NodeStore.temporary(variables);
+            default -> throw new IllegalArgumentException("Unknown node store " + store + ", it must be memory or file");
+        };
+    }
+
+    /**
+     * Get a relaxation by its name.
+     *
+     * @param name The name, in any case.
+     * @return The relaxation.
+     * @throws IllegalArgumentException If there is no relaxation with that name.
+     */
+    private static SearchOptions.Relaxation relaxation(String name) {
+        return SearchOptions.Relaxation.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    private static void usage() {
+        System.out.println("Usage: [--backend=glop|cbc|scip|simplex] [--store=memory|file] <command>");
+        System.out.println("  solve <problem file> [solution file] [start solution file]");
+        System.out.println("  sweep <problem file> <scenarios file> [threads] [lp|flow|lagrangian]");
+        System.out.println("  sensitivity <problem file> [pool size]");
+        System.out.println("  serve [port] [solver threads] [queue size]");
+        System.out.println("  distribute <problem file> [workers] [port] [lp|flow|lagrangian]");
+        System.out.println("  worker <host> <port>");
+        System.out.println("  portfolio <problem file> [threads]");
+    }
+}
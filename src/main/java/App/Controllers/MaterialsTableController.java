@@ -1,6 +1,7 @@
 package App.Controllers;
 
 import App.PGraph.Entities.Material;
+import App.Util.IntegerCell;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -13,6 +14,7 @@ import javafx.scene.text.Text;
 /**
  * Controller for the table of materials in the main window.
  * This class is responsible for displaying the list of materials in the main window.
+ * The flow lower bound of the materials can be edited in the table.
  *
  * @author Pablo Hernández
  * @author Juan Camilo Narváez
@@ -27,7 +29,8 @@ public class MaterialsTableController {
     @FXML
     public TableColumn<Material, String> typeColumn;
     @FXML
-    public TableColumn<Material, String> flowColumn;
+    public TableColumn<Material, Integer> flowColumn;
+    private Runnable onEdit;
 
     /**
      * Adds a material to the list of materials.
@@ -45,6 +48,15 @@ public class MaterialsTableController {
         materialList.clear();
     }
 
+    /**
+     * Set the action run after a value of the table is edited.
+     *
+     * @param onEdit The action, for example solving the problem again.
+     */
+    public void setOnEdit(Runnable onEdit) {
+        this.onEdit = onEdit;
+    }
+
     /**
      * Initializes the controller.
      */
@@ -54,6 +66,19 @@ public class MaterialsTableController {
         typeColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getType().toString()));
         flowColumn.setCellValueFactory(new PropertyValueFactory<>("lower_bound"));
 
+        // The flow lower bound is edited in place. An invalid or unchanged value is discarded.
+        flowColumn.setCellFactory(IntegerCell.forTableColumn());
+        flowColumn.setOnEditCommit(event -> {
+            if (event.getNewValue() == null || event.getNewValue().equals(event.getOldValue())) {
+                table.refresh();
+                return;
+            }
+
+            event.getRowValue().setLower_bound(event.getNewValue());
+            if (onEdit != null) onEdit.run();
+        });
+        table.setEditable(true);
+
         var placeholder = new Text("");
 
         table.getColumns().forEach(column -> {
@@ -1,6 +1,7 @@
 package App.Controllers;
 
 import App.PGraph.Entities.OperatingUnit;
+import App.Util.IntegerCell;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,9 +11,12 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.text.Text;
 
+import java.util.function.ObjIntConsumer;
+
 /**
  * Controller for the Operating Unit Table
  * This class is responsible for the Operating Unit Table in the GUI
+ * The capacity and the costs of the units can be edited in the table
  *
  * @author Pablo Hernández
  * @author Juan Camilo Narváez
@@ -34,6 +38,7 @@ public class OUTableController {
     public TableColumn<OperatingUnit, String> inputColumn;
     @FXML
     public TableColumn<OperatingUnit, String> outputColumn;
+    private Runnable onEdit;
 
     /**
      * Adds an operating unit to the list of operating units.
@@ -51,6 +56,15 @@ public class OUTableController {
         operatingUnitList.clear();
     }
 
+    /**
+     * Set the action run after a value of the table is edited.
+     *
+     * @param onEdit The action, for example solving the problem again.
+     */
+    public void setOnEdit(Runnable onEdit) {
+        this.onEdit = onEdit;
+    }
+
     /**
      * Initializes the controller.
      */
@@ -63,6 +77,15 @@ public class OUTableController {
         inputColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getInputMaterial().getName()));
         outputColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getOutputMaterial().getName()));
 
+        // The capacity and the costs are edited in place
+        upperBoundColumn.setCellFactory(IntegerCell.forTableColumn());
+        fCostColumn.setCellFactory(IntegerCell.forTableColumn());
+        pCostColumn.setCellFactory(IntegerCell.forTableColumn());
+        upperBoundColumn.setOnEditCommit(event -> edit(event, OperatingUnit::setCapacity_upper_bound));
+        fCostColumn.setOnEditCommit(event -> edit(event, OperatingUnit::setFixed_cost));
+        pCostColumn.setOnEditCommit(event -> edit(event, OperatingUnit::setProportional_cost));
+        table.setEditable(true);
+
         table.getColumns().forEach(column -> {
             column.setResizable(false);
             column.setReorderable(false);
@@ -76,4 +99,20 @@ public class OUTableController {
         table.setPlaceholder(placeholder);
         table.setItems(operatingUnitList);
     }
+
+    /**
+     * Set the edited value to the unit and run the edit action. An invalid or unchanged value is discarded.
+     *
+     * @param event  The edit event.
+     * @param setter The setter of the edited value.
+     */
+    private void edit(TableColumn.CellEditEvent<OperatingUnit, Integer> event, ObjIntConsumer<OperatingUnit> setter) {
+        if (event.getNewValue() == null || event.getNewValue().equals(event.getOldValue())) {
+            table.refresh();
+            return;
+        }
+
+        setter.accept(event.getRowValue(), event.getNewValue());
+        if (onEdit != null) onEdit.run();
+    }
 }
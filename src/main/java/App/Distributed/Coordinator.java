@@ -0,0 +1,472 @@
+package App.Distributed;
+
+import App.PGraph.SearchOptions;
+import App.PGraph.Subtree;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Utils.ProblemFile;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coordinator of a Branch and Bound search distributed between worker processes.
+ * <p>
+ * The search is split in subtrees, given by their fixed values. The coordinator keeps the subtrees that are not
+ * searched yet in a queue ordered by bound, and sends them to the workers that connect to its socket, one task per
+ * worker at a time. A task searches a subtree up to a limit of nodes, and the subtrees it leaves open come back to
+ * the queue, so the work is balanced between the workers. While the queue has fewer subtrees than workers, the
+ * tasks are short so the tree is split quickly.
+ * <p>
+ * The workers send their incumbents as soon as they find them, and a better incumbent is sent to every worker to
+ * prune its current task. The subtrees of the queue that can't improve the incumbent are pruned. The search ends
+ * when the queue is empty and no task is running. If a worker is lost, its task goes back to the queue.
+ * <p>
+ * Each worker is a separate process with its own memory, so the size of the search is not limited by one process.
+ * The workers can run on the same host, connected to the loopback address, or on other hosts if the coordinator is
+ * bound to an address they can reach.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see Worker
+ */
+public class Coordinator {
+    /**
+     * Maximum nodes of a task while the queue has fewer subtrees than workers.
+     */
+    public static final long RAMP_UP_NODES = 20;
+    private static final double EPSILON = 1e-6;
+    private final String problem;
+    private final List<OperatingUnit> units;
+    private final SearchOptions.Relaxation relaxation;
+    private final long taskNodes;
+    private final PriorityQueue<Subtree> queue;
+    // Subtrees of the running tasks by id
+    private final HashMap<Long, Subtree> running;
+    private final CopyOnWriteArrayList<Connection> connections;
+    private ServerSocket server;
+    private long tasks;
+    private long nodes;
+    private long lpSolves;
+    private long prunedSubtrees;
+    private double incumbent;
+    private double[] incumbentValues;
+    private boolean finished;
+    private String error;
+
+    /**
+     * Constructor. The search starts when the coordinator is started and the workers connect.
+     *
+     * @param problem    The problem.
+     * @param relaxation The relaxation solved at each node.
+     * @param taskNodes  The maximum number of nodes of a task.
+     * @throws IOException If the problem can't be written for the workers.
+     */
+    public Coordinator(ProblemFile problem, SearchOptions.Relaxation relaxation, long taskNodes) throws IOException {
+        // The units are read back from the text sent to the workers, so the variables are in the same order
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            problem.write(writer);
+        }
+        this.problem = text.toString();
+        this.units = ProblemFile.read(new BufferedReader(new StringReader(this.problem))).getUnits();
+        this.relaxation = relaxation;
+        this.taskNodes = taskNodes;
+        this.queue = new PriorityQueue<>(Comparator.comparingDouble(Subtree::getBound));
+        this.running = new HashMap<>();
+        this.connections = new CopyOnWriteArrayList<>();
+        this.incumbent = Double.POSITIVE_INFINITY;
+        this.queue.add(Subtree.root());
+    }
+
+    /**
+     * Start accepting workers. The connections are handled on virtual threads.
+     *
+     * @param address The address of the socket. The loopback address only accepts workers of the same host.
+     * @throws IOException If the address can't be bound.
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        server = new ServerSocket();
+        server.bind(address);
+
+        Thread.ofVirtual().name("Coordinator").start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread.ofVirtual().name("Worker connection").start(() -> handle(socket));
+                } catch (IOException e) {
+                    if (!server.isClosed()) Logger.getLogger("Coordinator").log(Level.WARNING, "A worker couldn't connect", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait for the end of the search.
+     *
+     * @param timeout The maximum time to wait.
+     * @return True if the search ended.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public synchronized boolean await(Duration timeout) throws InterruptedException {
+        long end = System.nanoTime() + timeout.toNanos();
+        while (!finished) {
+            long remaining = end - System.nanoTime();
+            if (remaining <= 0) return false;
+            wait(Math.max(1, remaining / 1_000_000));
+        }
+        return true;
+    }
+
+    /**
+     * Stop the search and close the connections. The workers end when their connection is closed.
+     */
+    public void stop() {
+        synchronized (this) {
+            finished = true;
+            notifyAll();
+        }
+
+        try {
+            if (server != null) server.close();
+        } catch (IOException e) {
+            Logger.getLogger("Coordinator").log(Level.WARNING, "The socket couldn't be closed", e);
+        }
+        for (Connection connection : connections) connection.close();
+    }
+
+    /**
+     * Handle the connection of a worker: send it tasks until there is no more work, and receive its incumbents
+     * and results.
+     *
+     * @param socket The socket of the worker.
+     */
+    private void handle(Socket socket) {
+        Connection connection = null;
+        Long task = null;
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            connection = new Connection(socket);
+
+            if (in.readByte() != Protocol.HELLO || in.readInt() != Protocol.MAGIC || in.readInt() != Protocol.VERSION) {
+                throw new IOException("The worker uses a different protocol");
+            }
+            connection.sendProblem(problem, relaxation);
+            connections.add(connection);
+
+            while (true) {
+                Task next = next();
+                if (next == null) {
+                    connection.sendStop();
+                    return;
+                }
+
+                task = next.id();
+                connection.sendTask(next);
+
+                // Incumbents until the result of the task
+                boolean done = false;
+                while (!done) {
+                    byte type = in.readByte();
+                    if (type == Protocol.INCUMBENT) {
+                        double value = in.readDouble();
+                        offer(Protocol.readValues(in), value, connection);
+                    } else if (type == Protocol.RESULT) {
+                        long id = in.readLong();
+                        long taskNodes = in.readLong();
+                        long taskSolves = in.readLong();
+                        int count = in.readInt();
+                        ArrayList<Subtree> open = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) open.add(Subtree.read(in));
+                        complete(id, taskNodes, taskSolves, open);
+                        task = null;
+                        done = true;
+                    } else if (type == Protocol.ERROR) {
+                        long id = in.readLong();
+                        fail(id, in.readUTF());
+                        task = null;
+                        done = true;
+                    } else {
+                        throw new IOException("Unknown message " + type);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!isFinished()) Logger.getLogger("Coordinator").log(Level.WARNING, "A worker was lost", e);
+        } finally {
+            if (task != null) requeue(task);
+            if (connection != null) {
+                connections.remove(connection);
+                connection.close();
+            } else {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the next subtree of the queue, waiting while the queue is empty and there are running tasks.
+     * The subtrees that can't improve the incumbent are pruned.
+     *
+     * @return The task, or null if the search ended.
+     * @throws InterruptedIOException If the thread is interrupted while waiting.
+     */
+    private synchronized Task next() throws InterruptedIOException {
+        while (!finished) {
+            while (!queue.isEmpty() && queue.peek().getBound() >= incumbent - EPSILON) {
+                queue.poll();
+                prunedSubtrees++;
+            }
+
+            if (!queue.isEmpty()) {
+                Subtree subtree = queue.poll();
+                long id = ++tasks;
+                running.put(id, subtree);
+                // While there are idle workers the tasks are short, so the tree is split quickly
+                long limit = queue.size() < connections.size() ? Math.min(RAMP_UP_NODES, taskNodes) : taskNodes;
+                return new Task(id, subtree, limit, incumbent);
+            }
+
+            if (running.isEmpty()) {
+                finished = true;
+                notifyAll();
+                return null;
+            }
+
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Register the result of a task. Its open subtrees go to the queue.
+     *
+     * @param id        The id of the task.
+     * @param taskNodes The nodes evaluated by the task.
+     * @param solves    The relaxations solved by the task.
+     * @param open      The subtrees left open by the task.
+     */
+    private synchronized void complete(long id, long taskNodes, long solves, List<Subtree> open) {
+        if (running.remove(id) == null) return;
+
+        nodes += taskNodes;
+        lpSolves += solves;
+        for (Subtree subtree : open) {
+            if (subtree.getBound() < incumbent - EPSILON) queue.add(subtree);
+            else prunedSubtrees++;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Put the subtree of a task of a lost worker back in the queue.
+     *
+     * @param id The id of the task.
+     */
+    private synchronized void requeue(long id) {
+        Subtree subtree = running.remove(id);
+        if (subtree != null && !finished) queue.add(subtree);
+        notifyAll();
+    }
+
+    /**
+     * End the search because a task failed. Searching the subtree again would fail again.
+     *
+     * @param id      The id of the task.
+     * @param message The error of the worker.
+     */
+    private synchronized void fail(long id, String message) {
+        running.remove(id);
+        error = "The task " + id + " failed: " + message;
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Offer a solution found by a worker, and send it to the other workers if it's the new incumbent.
+     *
+     * @param values The values of the variables.
+     * @param value  The value of the solution.
+     * @param source The connection of the worker that found it.
+     */
+    private void offer(double[] values, double value, Connection source) {
+        synchronized (this) {
+            if (value >= incumbent - EPSILON) return;
+            incumbent = value;
+            incumbentValues = values;
+        }
+
+        for (Connection connection : connections) {
+            if (connection != source) connection.sendIncumbent(value);
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Get the error that ended the search.
+     *
+     * @return The error, or null if no task failed.
+     */
+    public synchronized String getError() {
+        return error;
+    }
+
+    /**
+     * Get the value of the incumbent.
+     *
+     * @return The value, infinite if no solution was found.
+     */
+    public synchronized double getValue() {
+        return incumbent;
+    }
+
+    /**
+     * Get the values of the variables of the incumbent, X1, Y1, X2, Y2, ...
+     *
+     * @return The values, or null if no solution was found.
+     */
+    public synchronized double[] getValues() {
+        return incumbentValues == null ? null : incumbentValues.clone();
+    }
+
+    /**
+     * Get the names of the units opened by the incumbent.
+     *
+     * @return The names, empty if no solution was found.
+     */
+    public synchronized List<String> getSelectedUnits() {
+        ArrayList<String> selected = new ArrayList<>();
+        if (incumbentValues == null) return selected;
+        for (int i = 0; i < units.size(); i++) {
+            if (incumbentValues[2 * i + 1] > 0.5) selected.add(units.get(i).getName());
+        }
+        return selected;
+    }
+
+    /**
+     * Get the lower bound of the search: the lowest bound of the queued and running subtrees, or the incumbent
+     * when they can't improve it.
+     *
+     * @return The bound.
+     */
+    public synchronized double getBound() {
+        double bound = incumbent;
+        if (!queue.isEmpty()) bound = Math.min(bound, queue.peek().getBound());
+        for (Subtree subtree : running.values()) bound = Math.min(bound, subtree.getBound());
+        return bound;
+    }
+
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    public synchronized long getLpSolves() {
+        return lpSolves;
+    }
+
+    public synchronized long getTasks() {
+        return tasks;
+    }
+
+    public synchronized long getPrunedSubtrees() {
+        return prunedSubtrees;
+    }
+
+    /**
+     * Get the number of connected workers.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkers() {
+        return connections.size();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Task sent to a worker.
+     *
+     * @param id        The id of the task.
+     * @param subtree   The subtree to search.
+     * @param nodeLimit The maximum number of nodes.
+     * @param incumbent The value of the incumbent when the task was sent.
+     */
+    private record Task(long id, Subtree subtree, long nodeLimit, double incumbent) {
+    }
+
+    /**
+     * Connection with a worker. The messages can be sent from several threads.
+     */
+    private static class Connection {
+        private final Socket socket;
+        private final DataOutputStream out;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        synchronized void sendProblem(String problem, SearchOptions.Relaxation relaxation) throws IOException {
+            out.writeByte(Protocol.PROBLEM);
+            Protocol.writeText(out, problem);
+            out.writeUTF(relaxation.name());
+            out.flush();
+        }
+
+        synchronized void sendTask(Task task) throws IOException {
+            out.writeByte(Protocol.TASK);
+            out.writeLong(task.id());
+            task.subtree().write(out);
+            out.writeLong(task.nodeLimit());
+            out.writeDouble(task.incumbent());
+            out.flush();
+        }
+
+        synchronized void sendStop() throws IOException {
+            out.writeByte(Protocol.STOP);
+            out.flush();
+        }
+
+        /**
+         * Send a new incumbent. A failure is ignored, the thread of the connection finds it when it reads.
+         *
+         * @param value The value of the incumbent.
+         */
+        synchronized void sendIncumbent(double value) {
+            try {
+                out.writeByte(Protocol.INCUMBENT);
+                out.writeDouble(value);
+                out.flush();
+            } catch (IOException e) {
+                Logger.getLogger("Coordinator").log(Level.FINE, "The incumbent couldn't be sent", e);
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
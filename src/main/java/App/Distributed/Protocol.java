@@ -0,0 +1,78 @@
+package App.Distributed;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Messages between the coordinator and the workers of a distributed search. Each message starts with its type.
+ * <p>
+ * Coordinator to worker:
+ * - PROBLEM: the problem in the text format of the problem files and the relaxation.
+ * - TASK: the id of the task, the subtree, the maximum nodes and the current incumbent.
+ * - INCUMBENT: the value of a better incumbent, to prune the nodes of the current task.
+ * - STOP: there is no more work, the worker must end.
+ * <p>
+ * Worker to coordinator:
+ * - HELLO: the magic number and the version, when the worker connects.
+ * - INCUMBENT: a better solution found by the worker, with its value and the values of the variables.
+ * - RESULT: the end of a task, with the nodes and the solves of the task and the subtrees it left open.
+ * - ERROR: the task failed, with the message.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see Coordinator
+ * @see Worker
+ */
+class Protocol {
+    static final int MAGIC = 0x50474453;
+    static final int VERSION = 1;
+    static final byte HELLO = 1;
+    static final byte PROBLEM = 2;
+    static final byte TASK = 3;
+    static final byte INCUMBENT = 4;
+    static final byte RESULT = 5;
+    static final byte STOP = 6;
+    static final byte ERROR = 7;
+
+    private Protocol() {
+    }
+
+    /**
+     * Write a text that may be longer than the limit of writeUTF.
+     *
+     * @param out  The output.
+     * @param text The text.
+     * @throws IOException If it can't be written.
+     */
+    static void writeText(DataOutput out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a text written with writeText.
+     *
+     * @param in The input.
+     * @return The text.
+     * @throws IOException If it can't be read.
+     */
+    static String readText(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeValues(DataOutput out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) out.writeDouble(value);
+    }
+
+    static double[] readValues(DataInput in) throws IOException {
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) values[i] = in.readDouble();
+        return values;
+    }
+}
@@ -0,0 +1,185 @@
+package App.Distributed;
+
+import App.PGraph.PGraph;
+import App.PGraph.SearchOptions;
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Subtree;
+import App.PGraph.Utils.ProblemFile;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Worker of a distributed search. It connects to a coordinator, receives the problem and then searches the subtrees
+ * sent by the coordinator one at a time, each one with a limit of nodes.
+ * <p>
+ * The better incumbents found by the worker are sent to the coordinator right away, and the incumbents of the other
+ * workers are received while the task runs and used to prune it. When the limit of a task is reached, the subtrees
+ * left open go back to the coordinator, which shares them with the other workers.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see Coordinator
+ */
+public class Worker {
+    private final String host;
+    private final int port;
+    // The tasks run one at a time, so they share the backend
+    private final SolverBackend backend;
+    private volatile double cutoff;
+    private DataOutputStream out;
+
+    /**
+     * Constructor.
+     *
+     * @param host The host of the coordinator.
+     * @param port The port of the coordinator.
+     */
+    public Worker(String host, int port) {
+        this(host, port, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host    The host of the coordinator.
+     * @param port    The port of the coordinator.
+     * @param backend The name of the solver backend of the relaxations, or null for the default one.
+     * @throws IllegalStateException If the backend isn't available.
+     * @see SolverBackend#of
+     */
+    public Worker(String host, int port, String backend) {
+        this.host = host;
+        this.port = port;
+        this.backend = backend == null ? SolverBackend.getDefault() : SolverBackend.of(backend);
+        this.cutoff = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Connect to the coordinator and search its tasks until it has no more work or the connection is closed.
+     * The messages are read in this thread, and the tasks are searched in another one.
+     *
+     * @throws IOException If the connection fails.
+     */
+    public void run() throws IOException {
+        ExecutorService solver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Worker solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            synchronized (this) {
+                out.writeByte(Protocol.HELLO);
+                out.writeInt(Protocol.MAGIC);
+                out.writeInt(Protocol.VERSION);
+                out.flush();
+            }
+
+            if (in.readByte() != Protocol.PROBLEM) throw new IOException("The coordinator didn't send the problem");
+            ProblemFile problem = ProblemFile.read(new BufferedReader(new StringReader(Protocol.readText(in))));
+            SearchOptions.Relaxation relaxation = SearchOptions.Relaxation.valueOf(in.readUTF());
+
+            while (true) {
+                byte type = in.readByte();
+                if (type == Protocol.STOP) break;
+
+                if (type == Protocol.INCUMBENT) {
+                    double value = in.readDouble();
+                    if (value < cutoff) cutoff = value;
+                } else if (type == Protocol.TASK) {
+                    long id = in.readLong();
+                    Subtree subtree = Subtree.read(in);
+                    long nodeLimit = in.readLong();
+                    double value = in.readDouble();
+                    if (value < cutoff) cutoff = value;
+                    solver.execute(() -> solve(problem, relaxation, id, subtree, nodeLimit));
+                } else {
+                    throw new IOException("Unknown message " + type);
+                }
+            }
+        } catch (EOFException e) {
+            Logger.getLogger("Worker").fine("The coordinator closed the connection");
+        } finally {
+            solver.shutdownNow();
+        }
+    }
+
+    /**
+     * Search a subtree and send the result of the task.
+     *
+     * @param problem    The problem.
+     * @param relaxation The relaxation solved at each node.
+     * @param id         The id of the task.
+     * @param subtree    The subtree.
+     * @param nodeLimit  The maximum number of nodes.
+     */
+    private void solve(ProblemFile problem, SearchOptions.Relaxation relaxation, long id, Subtree subtree, long nodeLimit) {
+        try {
+            SearchOptions options = new SearchOptions(backend);
+            options.setRelaxation(relaxation);
+            options.setNodeLimit(nodeLimit);
+            options.setStartNodes(List.of(subtree));
+            options.setCutoff(() -> cutoff);
+            options.setIncumbentListener(this::sendIncumbent);
+
+            PGraph graph;
+            try {
+                graph = new PGraph(problem.getUnits(), options);
+            } catch (RuntimeException e) {
+                Logger.getLogger("Worker").log(Level.WARNING, "The task " + id + " failed", e);
+                synchronized (this) {
+                    out.writeByte(Protocol.ERROR);
+                    out.writeLong(id);
+                    out.writeUTF(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+                    out.flush();
+                }
+                return;
+            }
+
+            List<Subtree> open = graph.getOpenSubtrees();
+            synchronized (this) {
+                out.writeByte(Protocol.RESULT);
+                out.writeLong(id);
+                out.writeLong(graph.getStatistics().getNodes());
+                out.writeLong(graph.getStatistics().getLpSolves());
+                out.writeInt(open.size());
+                for (Subtree node : open) node.write(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            Logger.getLogger("Worker").log(Level.WARNING, "The result of the task " + id + " couldn't be sent", e);
+        }
+    }
+
+    /**
+     * Send a new incumbent to the coordinator, if it improves the best one known.
+     *
+     * @param values The values of the variables.
+     * @param value  The value of the solution.
+     */
+    private void sendIncumbent(double[] values, double value) {
+        if (value >= cutoff) return;
+        cutoff = value;
+
+        try {
+            synchronized (this) {
+                out.writeByte(Protocol.INCUMBENT);
+                out.writeDouble(value);
+                Protocol.writeValues(out, values);
+                out.flush();
+            }
+        } catch (IOException e) {
+            Logger.getLogger("Worker").log(Level.WARNING, "The incumbent couldn't be sent", e);
+        }
+    }
+}
@@ -3,15 +3,19 @@ package App.FXPGraph;
 import App.PGraph.Entities.OperatingUnit;
 import App.PGraph.Node;
 import App.PGraph.PGraph;
+import App.PGraph.SearchOptions;
+import App.PGraph.Solver.SolverBackend;
 import App.PGraph.Utils.VariableState;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Insets;
 import javafx.scene.Group;
+import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Text;
 import javafx.stage.Popup;
@@ -35,6 +39,8 @@ public class FXPGraph extends PGraph {
     private final Group treePane;
     private final Popup popup;
     protected SimpleDoubleProperty width;
+    // Node chosen by the user to start the next search from its structure
+    private Node startNode;
 
     /**
      * Constructor.
@@ -43,7 +49,29 @@ public class FXPGraph extends PGraph {
      * @see App.PGraph.Entities.OperatingUnit
      */
     public FXPGraph(ArrayList<OperatingUnit> units) {
-        super(units);
+        this(units, SolverBackend.getDefault());
+    }
+
+    /**
+     * Constructor with the backend used to solve the relaxations.
+     *
+     * @param units   List of OperatingUnits to be represented in the graph.
+     * @param backend Solver backend.
+     * @see App.PGraph.Solver.SolverBackend
+     */
+    public FXPGraph(ArrayList<OperatingUnit> units, SolverBackend backend) {
+        this(units, new SearchOptions(backend));
+    }
+
+    /**
+     * Constructor with the options of the search.
+     *
+     * @param units   List of OperatingUnits to be represented in the graph.
+     * @param options Options of the search.
+     * @see App.PGraph.SearchOptions
+     */
+    public FXPGraph(ArrayList<OperatingUnit> units, SearchOptions options) {
+        super(units, options);
 
         nodeRadius = new SimpleDoubleProperty();
         nodeRadius.set(Node.DEFAULT_RADIUS);
@@ -142,7 +170,8 @@ public class FXPGraph extends PGraph {
     }
 
     /**
-     * Method to set the table of variables in the popup.
+     * Method to set the table of variables in the popup. A feasible node also has a button to start the next search
+     * from its structure.
      *
      * @param node Node to show the variables.
      */
@@ -182,7 +211,15 @@ public class FXPGraph extends PGraph {
             table.getColumns().add(column2);
 
             table.getItems().addAll(variablesList);
-            scrollPane.setContent(table);
+
+            Button start = new Button(node == startNode ? "The next search starts from this node" : "Start the next search from this node");
+            start.setDisable(node == startNode);
+            start.setOnAction(event -> {
+                startNode = node;
+                popup.hide();
+            });
+
+            scrollPane.setContent(new VBox(8, table, start));
         }
 
         // If the solution is infeasible show a message
@@ -200,6 +237,17 @@ public class FXPGraph extends PGraph {
         popup.show(treePane.getScene().getWindow());
     }
 
+    /**
+     * Get the node chosen by the user with the button of its popup, to start the next search from its solution.
+     * A new graph has no start node, so the choice only lasts while this graph is shown.
+     *
+     * @return The node, or null if no node was chosen.
+     * @see App.PGraph.Utils.SolutionFile#of(java.util.List, Node)
+     */
+    public Node getStartNode() {
+        return startNode;
+    }
+
     /**
      * Method to get the edge line between two nodes.
      *
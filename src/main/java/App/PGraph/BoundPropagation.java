@@ -0,0 +1,126 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+
+import java.util.*;
+
+/**
+ * Propagation of the material demands and supplies over the graph to tighten the capacity of the units.
+ * The tightened capacity replaces capacity_upper_bound in the constraint x &lt;= y*capacity, which makes the
+ * relaxation of the Y variables much stronger without changing the optimum.
+ * <p>
+ * The bound of a unit is the smallest of:
+ * - Its capacity_upper_bound.
+ * - The demand it can be useful for: the lower bound of its output material plus what the consumers of that
+ * material can use. With non-negative costs there is an optimal solution that doesn't produce more than that.
+ * - The supply of its input material: what the producers of that material can produce. Materials without
+ * producers have an unlimited supply.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+class BoundPropagation {
+    private static final int MAX_ITERATIONS = 100;
+
+    private BoundPropagation() {
+    }
+
+    /**
+     * Compute the tightened capacity of every unit.
+     *
+     * @param units The list of operating units.
+     * @return The capacities, in the same order as the units.
+     */
+    static double[] propagate(List<OperatingUnit> units) {
+        int n = units.size();
+        double[] capacities = new double[n];
+        for (int i = 0; i < n; i++) capacities[i] = units.get(i).getCapacity_upper_bound();
+
+        HashMap<Material, ArrayList<Integer>> producers = new HashMap<>();
+        HashMap<Material, ArrayList<Integer>> consumers = new HashMap<>();
+        boolean nonNegativeCosts = true;
+        for (int i = 0; i < n; i++) {
+            OperatingUnit unit = units.get(i);
+            producers.computeIfAbsent(unit.getOutputMaterial(), material -> new ArrayList<>()).add(i);
+            consumers.computeIfAbsent(unit.getInputMaterial(), material -> new ArrayList<>()).add(i);
+            nonNegativeCosts &= unit.getFixed_cost() >= 0 && unit.getProportional_cost() >= 0;
+        }
+
+        HashSet<Material> materials = new HashSet<>(producers.keySet());
+        materials.addAll(consumers.keySet());
+
+        // Supply: start from the capacity of the producers and decrease until the bounds don't change.
+        HashMap<Material, Double> supply = new HashMap<>();
+        for (Material material : materials) {
+            var list = producers.get(material);
+            supply.put(material, list == null ? Double.POSITIVE_INFINITY : list.stream().mapToDouble(i -> capacities[i]).sum());
+        }
+
+        boolean changed = true;
+        for (int iteration = 0; changed && iteration < MAX_ITERATIONS; iteration++) {
+            changed = false;
+            for (Material material : materials) {
+                var list = producers.get(material);
+                if (list == null) continue;
+
+                double value = 0;
+                for (int i : list) value += Math.min(capacities[i], supply.get(units.get(i).getInputMaterial()));
+
+                if (value < supply.get(material)) {
+                    supply.put(material, value);
+                    changed = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            capacities[i] = Math.min(capacities[i], supply.get(units.get(i).getInputMaterial()));
+        }
+
+        if (!nonNegativeCosts) return capacities;
+
+        // Demand: start from the sum of the lower bounds reachable from each material, every unit of demand
+        // crosses a unit at most once in a solution without cycles, and decrease until the bounds don't change.
+        HashMap<Material, Double> demand = new HashMap<>();
+        for (Material material : materials) {
+            double reachable = 0;
+            HashSet<Material> visited = new HashSet<>();
+            ArrayDeque<Material> queue = new ArrayDeque<>();
+            queue.add(material);
+            visited.add(material);
+
+            while (!queue.isEmpty()) {
+                Material current = queue.poll();
+                reachable += current.getLower_bound();
+                for (int i : consumers.getOrDefault(current, new ArrayList<>())) {
+                    if (visited.add(units.get(i).getOutputMaterial())) queue.add(units.get(i).getOutputMaterial());
+                }
+            }
+
+            demand.put(material, reachable);
+        }
+
+        changed = true;
+        for (int iteration = 0; changed && iteration < MAX_ITERATIONS; iteration++) {
+            changed = false;
+            for (Material material : materials) {
+                double value = material.getLower_bound();
+                for (int i : consumers.getOrDefault(material, new ArrayList<>())) {
+                    value += Math.min(capacities[i], demand.get(units.get(i).getOutputMaterial()));
+                }
+
+                if (value < demand.get(material)) {
+                    demand.put(material, value);
+                    changed = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            capacities[i] = Math.min(capacities[i], demand.get(units.get(i).getOutputMaterial()));
+        }
+
+        return capacities;
+    }
+}
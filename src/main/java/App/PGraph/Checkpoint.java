@@ -0,0 +1,202 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.Model;
+import App.PGraph.Utils.VariableState;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Checkpoints of a Branch and Bound search, used to resume a long search after the process is stopped.
+ * <p>
+ * A checkpoint has the open nodes with their fixed values, the solution pool, the statistics and the cuts added to the
+ * model. The tree of the evaluated nodes is not written: the resumed search hangs the open nodes from a chain of
+ * placeholder nodes. The file is written to a temporary file and moved over the previous checkpoint, so a crash
+ * while writing never leaves a broken checkpoint.
+ * <p>
+ * The search is depth first, so the open nodes are only the siblings of the current path and a checkpoint is small.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SearchOptions#setCheckpoint(Path, java.time.Duration, long)
+ */
+class Checkpoint {
+    private static final int MAGIC = 0x50474350;
+    // Version 2 added the reused, nogood and fathomed counters to the statistics
+    private static final int VERSION = 2;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * Write a checkpoint atomically.
+     *
+     * @param file  The checkpoint file.
+     * @param graph The graph being searched.
+     * @param open  The open nodes, in the order they are evaluated.
+     * @throws IOException If the file can't be written.
+     */
+    static void write(Path file, PGraph graph, Collection<OpenNode> open) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint(graph.units));
+
+            graph.statistics.save(out);
+
+            // Solution pool, from the best solution, which is the incumbent
+            List<SolutionPool.Solution> solutions = graph.pool.getSolutions();
+            out.writeInt(solutions.size());
+            for (SolutionPool.Solution solution : solutions) {
+                out.writeDouble(solution.getValue());
+                for (double value : solution.getValues()) out.writeDouble(value);
+            }
+
+            // Cuts added after the model was built
+            out.writeInt(graph.model.getConstraintCount() - graph.baseConstraints);
+            for (int i = graph.baseConstraints; i < graph.model.getConstraintCount(); i++) {
+                Model.Constraint cut = graph.model.getConstraint(i);
+                out.writeUTF(cut.getName());
+                out.writeInt(cut.getIndexes().length);
+                for (int k = 0; k < cut.getIndexes().length; k++) {
+                    out.writeInt(cut.getIndexes()[k]);
+                    out.writeDouble(cut.getCoefficients()[k]);
+                }
+                out.writeDouble(cut.getLower());
+                out.writeDouble(cut.getUpper());
+            }
+
+            // Open nodes: bound, changed variable and the fixed values as index-value pairs
+            out.writeInt(open.size());
+            for (OpenNode node : open) {
+                out.writeDouble(node.bound);
+
+                VariableState changed = node.changed;
+                out.writeInt(changed == null ? -1 : graph.model.getVariableIndex(changed.getName()));
+                if (changed != null) {
+                    out.writeDouble(changed.getValue());
+                    out.writeDouble(changed.getPreviousValue());
+                }
+
+                int[] fixedValues = node.fixedValues;
+                int count = 0;
+                if (fixedValues != null) for (int value : fixedValues) if (value != Integer.MIN_VALUE) count++;
+                out.writeInt(count);
+                if (fixedValues != null) {
+                    for (int i = 0; i < fixedValues.length; i++) {
+                        if (fixedValues[i] == Integer.MIN_VALUE) continue;
+                        out.writeInt(i);
+                        out.writeInt(fixedValues[i]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a checkpoint. The statistics, the solution pool and the cuts are restored in the graph.
+     *
+     * @param file  The checkpoint file.
+     * @param graph The graph that resumes the search, already started.
+     * @return The open nodes, in the order they are evaluated, without parent.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If the file is not a checkpoint of the same problem.
+     */
+    static List<OpenNode> read(Path file, PGraph graph) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalArgumentException(file + " is not a checkpoint");
+            }
+            if (in.readLong() != fingerprint(graph.units)) {
+                throw new IllegalArgumentException(file + " is a checkpoint of a different problem");
+            }
+
+            graph.statistics.restore(in);
+
+            int solutions = in.readInt();
+            for (int s = 0; s < solutions; s++) {
+                Node node = new Node();
+                node.getSolutionStatus().setValue(in.readDouble());
+                double[] values = new double[graph.model.getVariableCount()];
+                for (int i = 0; i < values.length; i++) values[i] = in.readDouble();
+                node.getSolutionStatus().setVariables(graph.getVariableStates(values));
+                graph.pool.offer(node, values);
+
+                if (s == 0) {
+                    node.setBest(true);
+                    graph.bestNode = node;
+                }
+            }
+
+            int cuts = in.readInt();
+            for (int c = 0; c < cuts; c++) {
+                String name = in.readUTF();
+                int[] indexes = new int[in.readInt()];
+                double[] coefficients = new double[indexes.length];
+                for (int k = 0; k < indexes.length; k++) {
+                    indexes[k] = in.readInt();
+                    coefficients[k] = in.readDouble();
+                }
+                graph.cuts.restore(new Model.Constraint(name, indexes, coefficients, in.readDouble(), in.readDouble()));
+            }
+
+            int count = in.readInt();
+            ArrayList<OpenNode> open = new ArrayList<>(count);
+            for (int n = 0; n < count; n++) {
+                double bound = in.readDouble();
+
+                int index = in.readInt();
+                VariableState changed = null;
+                if (index >= 0) {
+                    changed = new VariableState(graph.model.getVariableName(index), in.readDouble(), in.readDouble());
+                }
+
+                int fixed = in.readInt();
+                int[] fixedValues = null;
+                if (fixed > 0) {
+                    fixedValues = PrimalHeuristics.emptyFixedValues(graph.model.getVariableCount());
+                    for (int k = 0; k < fixed; k++) fixedValues[in.readInt()] = in.readInt();
+                }
+
+                open.add(new OpenNode(fixedValues, null, true, bound, changed, null));
+            }
+
+            return open;
+        }
+    }
+
+    /**
+     * Hash of the data of the problem, used to check that a checkpoint belongs to it.
+     *
+     * @param units The list of operating units.
+     * @return The hash.
+     */
+    static long fingerprint(List<OperatingUnit> units) {
+        long hash = 17;
+        for (OperatingUnit unit : units) {
+            hash = 31 * hash + unit.getName().hashCode();
+            hash = 31 * hash + unit.getCapacity_upper_bound();
+            hash = 31 * hash + unit.getFixed_cost();
+            hash = 31 * hash + unit.getProportional_cost();
+            hash = 31 * hash + unit.getInputMaterial().getName().hashCode();
+            hash = 31 * hash + unit.getInputMaterial().getLower_bound();
+            hash = 31 * hash + unit.getOutputMaterial().getName().hashCode();
+            hash = 31 * hash + unit.getOutputMaterial().getLower_bound();
+        }
+        return hash;
+    }
+}
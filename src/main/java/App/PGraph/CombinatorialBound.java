@@ -0,0 +1,162 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+
+import java.util.*;
+
+/**
+ * Lower bound of a node computed on the material graph, much cheaper than its relaxation.
+ * <p>
+ * Every unit of a demand must reach its material by a path of units from a raw material. With the capacities
+ * ignored, the cheapest way is the shortest path, where a unit costs proportional_cost plus fixed_cost/capacity per
+ * unit of flow, like in the relaxation. A unit fixed to 1 costs only proportional_cost, and its fixed cost is paid
+ * once. A unit fixed to 0 is removed. The bound is the fixed costs of the open units plus the demand of each
+ * material times its distance, which is never above the value of the relaxation of the node.
+ * <p>
+ * The distances are computed with Dijkstra from all the raw materials at once, so the costs must be non-negative.
+ * A demand that can't be reached makes the node infeasible.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+class CombinatorialBound {
+    private final int materialCount;
+    private final double[] capacities;
+    private final double[] fixedCosts;
+    private final double[] proportionalCosts;
+    private final int[] inputs;
+    private final int[] outputs;
+    private final boolean[] raw;
+    // Materials with a demand and their demands
+    private final int[] demanded;
+    private final double[] demands;
+    // Units by input material
+    private final int[][] consumers;
+    private final boolean supported;
+
+    /**
+     * Constructor. The graph is indexed once for all the nodes.
+     *
+     * @param units      The list of operating units.
+     * @param capacities The capacities of the units used by the model.
+     */
+    CombinatorialBound(List<OperatingUnit> units, double[] capacities) {
+        int n = units.size();
+        this.capacities = capacities;
+        this.fixedCosts = new double[n];
+        this.proportionalCosts = new double[n];
+        this.inputs = new int[n];
+        this.outputs = new int[n];
+
+        HashMap<Material, Integer> materials = new HashMap<>();
+        boolean nonNegative = true;
+        for (int i = 0; i < n; i++) {
+            OperatingUnit unit = units.get(i);
+            materials.putIfAbsent(unit.getInputMaterial(), materials.size());
+            materials.putIfAbsent(unit.getOutputMaterial(), materials.size());
+            inputs[i] = materials.get(unit.getInputMaterial());
+            outputs[i] = materials.get(unit.getOutputMaterial());
+            fixedCosts[i] = unit.getFixed_cost();
+            proportionalCosts[i] = unit.getProportional_cost();
+            nonNegative &= fixedCosts[i] >= 0 && proportionalCosts[i] >= 0;
+        }
+        this.supported = nonNegative;
+        this.materialCount = materials.size();
+
+        // The materials without producers are raw, and the produced ones with a lower bound are demanded
+        this.raw = new boolean[materialCount];
+        Arrays.fill(raw, true);
+        for (int output : outputs) raw[output] = false;
+
+        ArrayList<Integer> demandedList = new ArrayList<>();
+        ArrayList<Double> demandList = new ArrayList<>();
+        for (Map.Entry<Material, Integer> entry : materials.entrySet()) {
+            if (!raw[entry.getValue()] && entry.getKey().getLower_bound() > 0) {
+                demandedList.add(entry.getValue());
+                demandList.add((double) entry.getKey().getLower_bound());
+            }
+        }
+        this.demanded = demandedList.stream().mapToInt(Integer::intValue).toArray();
+        this.demands = demandList.stream().mapToDouble(Double::doubleValue).toArray();
+
+        int[] counts = new int[materialCount];
+        for (int input : inputs) counts[input]++;
+        this.consumers = new int[materialCount][];
+        for (int m = 0; m < materialCount; m++) consumers[m] = new int[counts[m]];
+        for (int i = n - 1; i >= 0; i--) consumers[inputs[i]][--counts[inputs[i]]] = i;
+    }
+
+    /**
+     * Check if the bound can be used. It needs non-negative costs.
+     *
+     * @return True if the costs are non-negative.
+     */
+    boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Compute the bound of a node.
+     *
+     * @param fixedValues The fixed values of the node, null for the root.
+     * @return The bound, infinite if a demand can't be reached.
+     */
+    double bound(int[] fixedValues) {
+        double fixed = 0;
+        double[] unitCosts = new double[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            int y = fixedValues == null ? Integer.MIN_VALUE : fixedValues[PGraph.yIndex(i)];
+            if (y == 0 || capacities[i] <= 0) {
+                unitCosts[i] = Double.POSITIVE_INFINITY;
+            } else if (y == 1) {
+                unitCosts[i] = proportionalCosts[i];
+                fixed += fixedCosts[i];
+            } else {
+                unitCosts[i] = proportionalCosts[i] + fixedCosts[i] / capacities[i];
+            }
+        }
+
+        double[] distance = distances(unitCosts);
+        double bound = fixed;
+        for (int k = 0; k < demanded.length; k++) bound += demands[k] * distance[demanded[k]];
+        return bound;
+    }
+
+    /**
+     * Shortest distance from the raw materials to every material.
+     *
+     * @param unitCosts The cost of each unit per unit of flow, infinite for the closed units.
+     * @return The distance of each material, infinite if it can't be reached.
+     */
+    private double[] distances(double[] unitCosts) {
+        double[] distance = new double[materialCount];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        boolean[] done = new boolean[materialCount];
+
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        for (int m = 0; m < materialCount; m++) {
+            if (!raw[m]) continue;
+            distance[m] = 0;
+            queue.add(new double[]{0, m});
+        }
+
+        while (!queue.isEmpty()) {
+            int material = (int) queue.poll()[1];
+            if (done[material]) continue;
+            done[material] = true;
+
+            for (int unit : consumers[material]) {
+                if (unitCosts[unit] == Double.POSITIVE_INFINITY) continue;
+                double candidate = distance[material] + unitCosts[unit];
+                if (candidate < distance[outputs[unit]]) {
+                    distance[outputs[unit]] = candidate;
+                    queue.add(new double[]{candidate, outputs[unit]});
+                }
+            }
+        }
+
+        return distance;
+    }
+}
@@ -0,0 +1,146 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Solver.Model;
+import App.PGraph.Solver.SolverResult;
+
+import java.util.*;
+
+/**
+ * Cutting plane generator used to strengthen the relaxation of the root and the shallow nodes.
+ * The cuts are valid for every node, so they are added to the model shared by all the nodes.
+ * The variable upper bounds x &lt;= U*y are already in the model, with U tightened by the bound propagation.
+ * It separates two families of cuts over the producers of every required material:
+ * - Cover cuts: at least one of the producers of a required material must be open when the rest can't meet the demand.
+ * - Flow cuts: sum(min(U, demand)*y) &gt;= demand.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see Model.Constraint
+ */
+class CutGenerator {
+    /**
+     * Deepest level where the cuts are separated. The root is the level 1.
+     */
+    static final int MAX_LEVEL = 3;
+    private static final int MAX_ROUNDS = 5;
+    private static final double EPSILON = 1e-6;
+    private final PGraph graph;
+    private final HashSet<String> names;
+    private final HashMap<Material, ArrayList<Integer>> producers;
+
+    /**
+     * Constructor.
+     *
+     * @param graph The graph whose models are strengthened.
+     */
+    CutGenerator(PGraph graph) {
+        this.graph = graph;
+        this.names = new HashSet<>();
+        this.producers = new HashMap<>();
+
+        for (int i = 0; i < graph.units.size(); i++) {
+            producers.computeIfAbsent(graph.units.get(i).getOutputMaterial(), material -> new ArrayList<>()).add(i);
+        }
+    }
+
+    /**
+     * Cut loop: add the cuts violated by the solution and solve again, until no cut is violated.
+     *
+     * @param result      The optimal result of the node.
+     * @param fixedValues The fixed values of the node.
+     * @return The last result. It's not optimal if the cuts made the node infeasible.
+     */
+    SolverResult strengthen(SolverResult result, int[] fixedValues) {
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            if (separate(result.getValues()) == 0) break;
+
+            SolverResult next = graph.solve(fixedValues);
+            if (next.getStatus() == SolverResult.Status.INFEASIBLE) return next;
+            if (!next.isOptimal()) break;
+            result = next;
+        }
+
+        return result;
+    }
+
+    /**
+     * Separate the cuts violated by a solution and add them to the model.
+     *
+     * @param values The values of the variables.
+     * @return The number of cuts added.
+     */
+    int separate(double[] values) {
+        int added = 0;
+
+        for (var entry : producers.entrySet()) {
+            Material material = entry.getKey();
+            double demand = material.getLower_bound();
+            if (demand <= 0) continue;
+
+            // Flow cut
+            var indexes = entry.getValue();
+            int[] variables = new int[indexes.size()];
+            double[] coefficients = new double[indexes.size()];
+            for (int k = 0; k < indexes.size(); k++) {
+                variables[k] = PGraph.yIndex(indexes.get(k));
+                coefficients[k] = Math.min(graph.capacities[indexes.get(k)], demand);
+            }
+            if (add(new Model.Constraint("Flow for " + material.getName(), variables, coefficients, demand, Double.POSITIVE_INFINITY), values)) {
+                added++;
+            }
+
+            // Cover cut: the open producers of the complement can't meet the demand by themselves.
+            ArrayList<Integer> sorted = new ArrayList<>(indexes);
+            sorted.sort(Comparator.comparingDouble(i -> -values[PGraph.yIndex(i)]));
+
+            double complementCapacity = 0;
+            ArrayList<Integer> cover = new ArrayList<>();
+            for (int i : sorted) {
+                if (complementCapacity + graph.capacities[i] < demand) complementCapacity += graph.capacities[i];
+                else cover.add(i);
+            }
+
+            if (cover.isEmpty()) continue;
+
+            StringBuilder name = new StringBuilder("Cover for " + material.getName() + ":");
+            int[] coverVariables = new int[cover.size()];
+            double[] ones = new double[cover.size()];
+            for (int k = 0; k < cover.size(); k++) {
+                coverVariables[k] = PGraph.yIndex(cover.get(k));
+                ones[k] = 1;
+                name.append(" Y").append(cover.get(k) + 1);
+            }
+            if (add(new Model.Constraint(name.toString(), coverVariables, ones, 1, Double.POSITIVE_INFINITY), values)) {
+                added++;
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Add a cut of a checkpoint to the model, without counting it again in the statistics.
+     *
+     * @param cut The cut.
+     */
+    void restore(Model.Constraint cut) {
+        if (names.add(cut.getName())) graph.model.addConstraint(cut);
+    }
+
+    /**
+     * Add a cut to the model if it's violated and it wasn't added before.
+     *
+     * @param cut    The cut.
+     * @param values The values of the variables.
+     * @return True if the cut was added.
+     */
+    private boolean add(Model.Constraint cut, double[] values) {
+        if (cut.violation(values) <= EPSILON || names.contains(cut.getName())) return false;
+
+        names.add(cut.getName());
+        graph.model.addConstraint(cut);
+        graph.statistics.cutAdded();
+        return true;
+    }
+}
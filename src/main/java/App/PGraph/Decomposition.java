@@ -0,0 +1,233 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Utils.VariableState;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Decomposition of a problem into independent sub-networks.
+ * <p>
+ * Two units are in the same component when they share a material, directly or through other units.
+ * The components share no constraint, so each one is solved with its own Branch and Bound, in parallel,
+ * and the optimal value of the problem is the sum of the values of the components.
+ * <p>
+ * The time limit of the options is for the whole problem. When the search of a component starts, it gets its share
+ * of the time left among the components that haven't started, so the time a component doesn't use goes to the next
+ * ones. The node limit is for each component.
+ * <p>
+ * The variables of the merged solution keep the names of the complete model: X1, Y1, X2, Y2, ...
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+public class Decomposition {
+    private final ArrayList<ArrayList<OperatingUnit>> components;
+    // Index in the complete list of each unit of each component
+    private final ArrayList<int[]> indexes;
+    private final ArrayList<PGraph> graphs;
+
+    /**
+     * Constructor. Splits the units into connected components with a union-find over the materials.
+     *
+     * @param units The list of operating units.
+     */
+    public Decomposition(List<OperatingUnit> units) {
+        HashMap<Material, Integer> materials = new HashMap<>();
+        for (OperatingUnit unit : units) {
+            materials.putIfAbsent(unit.getInputMaterial(), materials.size());
+            materials.putIfAbsent(unit.getOutputMaterial(), materials.size());
+        }
+
+        int[] parents = new int[materials.size()];
+        for (int i = 0; i < parents.length; i++) parents[i] = i;
+        for (OperatingUnit unit : units) {
+            int a = find(parents, materials.get(unit.getInputMaterial()));
+            int b = find(parents, materials.get(unit.getOutputMaterial()));
+            if (a != b) parents[a] = b;
+        }
+
+        // Group the units by the root of their materials, keeping the order of the list
+        LinkedHashMap<Integer, ArrayList<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < units.size(); i++) {
+            int root = find(parents, materials.get(units.get(i).getInputMaterial()));
+            groups.computeIfAbsent(root, key -> new ArrayList<>()).add(i);
+        }
+
+        components = new ArrayList<>();
+        indexes = new ArrayList<>();
+        graphs = new ArrayList<>();
+        for (ArrayList<Integer> group : groups.values()) {
+            ArrayList<OperatingUnit> component = new ArrayList<>();
+            for (int index : group) component.add(units.get(index));
+            components.add(component);
+            indexes.add(group.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    /**
+     * Solve every component with its own PGraph. Each thread gets a copy of the backend.
+     * With a single thread, the components are solved one after the other in the current thread.
+     *
+     * @param options The options of the search.
+     * @param threads The maximum number of components solved at the same time.
+     * @throws InterruptedException If the thread is interrupted while waiting for the components.
+     */
+    public void solve(SearchOptions options, int threads) throws InterruptedException {
+        solve(options, threads, PGraph::new);
+    }
+
+    /**
+     * Solve every component with a graph created by the given factory, for example a graph that can be drawn.
+     * A single component gets the options themselves. Otherwise each component gets a copy, which the factory may
+     * change, and the settings that belong to a single search are lost.
+     *
+     * @param options The options of the search.
+     * @param threads The maximum number of components solved at the same time.
+     * @param factory Creates and solves the graph of a component with its options.
+     * @throws InterruptedException If the thread is interrupted while waiting for the components.
+     * @see #solve(SearchOptions, int)
+     * @see SearchOptions#copy()
+     */
+    public void solve(SearchOptions options, int threads, BiFunction<ArrayList<OperatingUnit>, SearchOptions, PGraph> factory)
+            throws InterruptedException {
+        graphs.clear();
+        long deadline = options.getTimeLimit() == null ? Long.MAX_VALUE : System.nanoTime() + options.getTimeLimit().toNanos();
+        AtomicInteger started = new AtomicInteger();
+        int parallel = Math.max(1, Math.min(threads, components.size()));
+
+        if (components.size() == 1) {
+            graphs.add(factory.apply(components.get(0), options));
+            return;
+        }
+
+        if (threads <= 1) {
+            for (ArrayList<OperatingUnit> component : components) {
+                // The components are solved in this thread, so they share the backend
+                SearchOptions copy = options.copy();
+                copy.setBackend(options.getBackend());
+                graphs.add(factory.apply(component, withDeadline(copy, deadline, started, 1)));
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallel);
+        try {
+            ArrayList<Future<PGraph>> futures = new ArrayList<>();
+            for (ArrayList<OperatingUnit> component : components) {
+                SearchOptions copy = options.copy();
+                futures.add(executor.submit(() -> factory.apply(component, withDeadline(copy, deadline, started, parallel))));
+            }
+
+            for (Future<PGraph> future : futures) graphs.add(future.get());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A component couldn't be solved", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Limit the time of the search of a component to its share of the time left until the deadline of the problem.
+     *
+     * @param options  The options of the component.
+     * @param deadline The deadline, in the time of System.nanoTime(), or Long.MAX_VALUE for no limit.
+     * @param started  The number of components whose search started, this one is counted.
+     * @param parallel The number of components solved at the same time.
+     * @return The options.
+     */
+    private SearchOptions withDeadline(SearchOptions options, long deadline, AtomicInteger started, int parallel) {
+        int waiting = components.size() - started.getAndIncrement();
+        if (deadline == Long.MAX_VALUE) return options;
+
+        // The waiting components run in rounds of the parallel ones
+        long rounds = (waiting + parallel - 1) / parallel;
+        options.setTimeLimit(Duration.ofNanos(Math.max(0, deadline - System.nanoTime()) / rounds));
+        return options;
+    }
+
+    /**
+     * Check if every component has a solution.
+     *
+     * @return True if the problem is feasible.
+     */
+    public boolean isFeasible() {
+        return !graphs.isEmpty() && graphs.stream().allMatch(graph -> graph.getBestNode() != null);
+    }
+
+    /**
+     * Get the optimal value of the problem.
+     *
+     * @return The sum of the values of the components, NaN if some component is infeasible.
+     */
+    public double getValue() {
+        if (!isFeasible()) return Double.NaN;
+        return graphs.stream().mapToDouble(graph -> graph.getBestNode().getSolutionStatus().getValue()).sum();
+    }
+
+    /**
+     * Get the merged solution, with the variables named as in the complete model.
+     *
+     * @return The set of variables with their values, empty if some component is infeasible.
+     */
+    public HashSet<VariableState> getVariables() {
+        HashSet<VariableState> variables = new HashSet<>();
+        if (!isFeasible()) return variables;
+
+        for (int c = 0; c < graphs.size(); c++) {
+            int[] index = indexes.get(c);
+            for (VariableState variable : graphs.get(c).getBestNode().getSolutionStatus().getVariables()) {
+                // The names are X or Y followed by the 1-based index of the unit in the component
+                int local = Integer.parseInt(variable.getName().substring(1)) - 1;
+                String name = variable.getName().charAt(0) + String.valueOf(index[local] + 1);
+                variables.add(new VariableState(name, variable.getValue()));
+            }
+        }
+
+        return variables;
+    }
+
+    /**
+     * Check if the search of some component stopped before the end, by a limit or the stop condition of the options.
+     *
+     * @return True if the value may not be optimal.
+     * @see PGraph#isStopped()
+     */
+    public boolean isStopped() {
+        return graphs.stream().anyMatch(PGraph::isStopped);
+    }
+
+    public int getComponentCount() {
+        return components.size();
+    }
+
+    public ArrayList<ArrayList<OperatingUnit>> getComponents() {
+        return components;
+    }
+
+    /**
+     * Get the graphs of the components, available after solving.
+     *
+     * @return The graph of each component, in the order of the components.
+     */
+    public ArrayList<PGraph> getGraphs() {
+        return graphs;
+    }
+}
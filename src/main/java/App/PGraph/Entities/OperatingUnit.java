@@ -48,14 +48,26 @@ public class OperatingUnit {
         return capacity_upper_bound;
     }
 
+    public void setCapacity_upper_bound(int capacity_upper_bound) {
+        this.capacity_upper_bound = capacity_upper_bound;
+    }
+
     public int getFixed_cost() {
         return fixed_cost;
     }
 
+    public void setFixed_cost(int fixed_cost) {
+        this.fixed_cost = fixed_cost;
+    }
+
     public int getProportional_cost() {
         return proportional_cost;
     }
 
+    public void setProportional_cost(int proportional_cost) {
+        this.proportional_cost = proportional_cost;
+    }
+
     public Material getInputMaterial() {
         return inputMaterial;
     }
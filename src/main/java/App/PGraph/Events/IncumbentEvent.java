@@ -0,0 +1,25 @@
+package App.PGraph.Events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event emitted every time the Branch and Bound algorithm finds a better solution.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+@Name("App.PGraph.Incumbent")
+@Label("Incumbent Found")
+@Category({"PGraph", "Branch and Bound"})
+@Description("A new best solution was found")
+@StackTrace(false)
+public class IncumbentEvent extends Event {
+    @Label("Value")
+    public double value;
+
+    @Label("Bound")
+    public double bound;
+
+    @Label("Nodes")
+    public long nodes;
+}
@@ -0,0 +1,34 @@
+package App.PGraph.Events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event emitted for every node evaluated by the Branch and Bound algorithm.
+ * The duration of the event covers the model building and the solve of the node.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+@Name("App.PGraph.Node")
+@Label("Node Evaluated")
+@Category({"PGraph", "Branch and Bound"})
+@Description("Evaluation of the relaxation of a node of the search tree")
+@StackTrace(false)
+public class NodeEvent extends Event {
+    @Label("Level")
+    public int level;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Value")
+    public double value;
+
+    @Label("Build Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long buildTime;
+
+    @Label("Solve Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long solveTime;
+}
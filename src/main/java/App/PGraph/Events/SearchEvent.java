@@ -0,0 +1,54 @@
+package App.PGraph.Events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event that spans a whole Branch and Bound search.
+ * It carries the final statistics of the search.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see App.PGraph.Utils.SolverStatistics
+ */
+@Name("App.PGraph.Search")
+@Label("Branch and Bound Search")
+@Category({"PGraph", "Branch and Bound"})
+@Description("A complete Branch and Bound search")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    @Label("Operating Units")
+    public int units;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("LP Solves")
+    public long lpSolves;
+
+    @Label("Infeasible Nodes")
+    public long infeasibleNodes;
+
+    @Label("Pruned Nodes")
+    public long prunedNodes;
+
+    @Label("Cuts")
+    public long cuts;
+
+    @Label("Max Open Nodes")
+    public int maxOpenNodes;
+
+    @Label("Build Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long buildTime;
+
+    @Label("Solve Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long solveTime;
+
+    @Label("Time To First Incumbent")
+    @Timespan(Timespan.NANOSECONDS)
+    public long firstIncumbentTime;
+
+    @Label("Value")
+    public double value;
+}
@@ -0,0 +1,243 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Utils.VariableState;
+
+import java.util.*;
+
+/**
+ * Incremental search after a change in the data of a problem that was already solved.
+ * <p>
+ * When the units and their materials are the same and only the costs, the capacities or the demands changed,
+ * the tree of the previous search is replayed instead of starting from the root:
+ * - The structures of the previous solution pool are evaluated first, so the search starts with an incumbent.
+ * - The branching decisions of the previous tree still split the problem into the same regions, so the internal
+ * nodes are reused without solving their relaxations, and only the leaves are opened again. This needs the same
+ * interchangeable units, since the previous tree doesn't branch on the variables fixed by the orbital fixing, and
+ * a search that wasn't resumed, since the placeholders of a resumed search don't keep the fixed values.
+ * - If no solution was added by the change (the capacities didn't grow and the demands didn't decrease), an
+ * infeasible leaf is still infeasible.
+ * - If also no cost decreased, the value of every previous node is still a lower bound, so a leaf or a whole
+ * subtree that can't improve the incumbent is pruned without solving its relaxation.
+ * <p>
+ * When the search ends, the value of every reused node is the smallest value of its children.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SearchOptions#setPrevious(PGraph)
+ */
+class Incremental {
+    private static final double EPSILON = 1e-6;
+    private final PGraph previous;
+    private final PGraph graph;
+    private final boolean sameFeasibleSet;
+    private final boolean validBounds;
+    // Reused internal nodes, each one before its children
+    private final ArrayList<Node> reused;
+
+    /**
+     * Constructor. Compares the data of both problems.
+     *
+     * @param previous The graph of the previous search.
+     * @param graph    The graph of the new search.
+     */
+    Incremental(PGraph previous, PGraph graph) {
+        this.previous = previous;
+        this.graph = graph;
+        this.reused = new ArrayList<>();
+
+        Snapshot before = previous.snapshot;
+        Snapshot after = graph.snapshot;
+        boolean feasible = true;
+        boolean costs = true;
+        for (int i = 0; i < after.names.length; i++) {
+            feasible &= graph.capacities[i] <= previous.capacities[i] + EPSILON && after.demands[i] >= before.demands[i];
+            costs &= after.fixedCosts[i] >= before.fixedCosts[i] && after.proportionalCosts[i] >= before.proportionalCosts[i];
+        }
+
+        this.sameFeasibleSet = feasible;
+        this.validBounds = feasible && costs;
+    }
+
+    /**
+     * Check if a previous search can be used by the search of a graph.
+     *
+     * @param previous The graph of the previous search.
+     * @param graph    The graph of the new search.
+     * @return True if both problems have the same units and materials.
+     */
+    static boolean isCompatible(PGraph previous, PGraph graph) {
+        return previous.snapshot.hasSameStructure(graph.snapshot);
+    }
+
+    /**
+     * Seed the incumbent with the previous solutions and add the leaves of the previous tree to the open nodes.
+     *
+     * @param open The open nodes, where the leaves are added in the order of a depth first search.
+     */
+    void start(ArrayDeque<OpenNode> open) {
+        for (SolutionPool.Solution solution : previous.pool.getSolutions()) {
+            HashSet<String> names = new HashSet<>();
+            for (OperatingUnit unit : solution.getSelectedUnits()) names.add(unit.getName());
+            graph.heuristics.structure(names);
+        }
+
+        Node first = previous.root;
+        if (first == null || previous.resumed || (first.getLeft() == null && first.getRight() == null)
+                || !previous.symmetry.hasSameOrbits(graph.symmetry)) {
+            graph.statistics.nodeOpened(Double.NEGATIVE_INFINITY);
+            open.add(new OpenNode(null, null, true, Double.NEGATIVE_INFINITY, null, null));
+            return;
+        }
+
+        // The left child is visited first
+        ArrayDeque<Step> stack = new ArrayDeque<>();
+        stack.push(new Step(first, null, true, PrimalHeuristics.emptyFixedValues(graph.model.getVariableCount())));
+
+        while (!stack.isEmpty()) {
+            Step step = stack.pop();
+            Node old = step.old();
+            VariableState changed = old.getSolutionStatus().getChanged();
+            double value = old.getSolutionStatus().getValue();
+            boolean leaf = old.getLeft() == null && old.getRight() == null;
+
+            // An infeasible leaf is kept as it is
+            if (leaf && !old.getSolutionStatus().isFeasible() && sameFeasibleSet) {
+                graph.reuse(attach(step, changed), old, changed);
+                graph.statistics.nodeReused();
+                continue;
+            }
+
+            // A leaf, or a subtree whose bound can't improve the incumbent, is evaluated by the search
+            if (leaf || (validBounds && value >= graph.getCutoff() - EPSILON)) {
+                double bound = validBounds ? value : Double.NEGATIVE_INFINITY;
+                graph.statistics.nodeOpened(bound);
+                open.add(new OpenNode(step.fixedValues(), step.parent(), step.left(), bound, changed, null, old));
+                continue;
+            }
+
+            Node node = attach(step, changed);
+            graph.reuse(node, old, changed);
+            graph.statistics.nodeReused();
+            reused.add(node);
+
+            if (old.getRight() != null) stack.push(new Step(old.getRight(), node, false, fix(step.fixedValues(), old.getRight())));
+            if (old.getLeft() != null) stack.push(new Step(old.getLeft(), node, true, fix(step.fixedValues(), old.getLeft())));
+        }
+    }
+
+    /**
+     * Set the value of the reused nodes once their subtrees are complete: the smallest value of their children,
+     * or infeasible if no child has a solution.
+     */
+    void complete() {
+        for (int i = reused.size() - 1; i >= 0; i--) {
+            Node node = reused.get(i);
+            double value = Double.POSITIVE_INFINITY;
+            for (Node child : new Node[]{node.getLeft(), node.getRight()}) {
+                if (child != null && child.getSolutionStatus().isFeasible()) {
+                    value = Math.min(value, child.getSolutionStatus().getValue());
+                }
+            }
+
+            node.setFeasible(value < Double.POSITIVE_INFINITY);
+            graph.setValue(node, value);
+        }
+    }
+
+    /**
+     * Create the new node of a step and link it to its parent.
+     *
+     * @param step    The step.
+     * @param changed The variable changed to reach the node.
+     * @return The node.
+     */
+    private Node attach(Step step, VariableState changed) {
+        Node node = graph.createNode(step.parent());
+        node.getSolutionStatus().setChanged(changed);
+        if (step.parent() == null) graph.root = node;
+        else if (step.left()) step.parent().setLeft(node);
+        else step.parent().setRight(node);
+        return node;
+    }
+
+    /**
+     * Get the fixed values of a child of the previous tree, with the orbital fixing.
+     *
+     * @param fixedValues The fixed values of the parent.
+     * @param child       The child in the previous tree.
+     * @return The fixed values of the child.
+     */
+    private int[] fix(int[] fixedValues, Node child) {
+        int[] values = Arrays.copyOf(fixedValues, fixedValues.length);
+        VariableState changed = child.getSolutionStatus().getChanged();
+        int index = graph.model.getVariableIndex(changed.getName());
+        values[index] = (int) changed.getValue();
+        graph.symmetry.fix(values, index);
+        return values;
+    }
+
+    /**
+     * A node of the previous tree with its new parent and its fixed values.
+     */
+    private record Step(Node old, Node parent, boolean left, int[] fixedValues) {
+    }
+
+    /**
+     * Copy of the data of a problem that the incremental search compares. The units of the previous graph may be
+     * edited in place after its search, so the data is copied when the graph is created.
+     */
+    static class Snapshot {
+        private final String[] names;
+        private final String[] inputs;
+        private final String[] outputs;
+        private final int[] fixedCosts;
+        private final int[] proportionalCosts;
+        private final int[] demands;
+
+        /**
+         * Constructor.
+         *
+         * @param units The list of operating units.
+         */
+        Snapshot(List<OperatingUnit> units) {
+            int n = units.size();
+            names = new String[n];
+            inputs = new String[n];
+            outputs = new String[n];
+            fixedCosts = new int[n];
+            proportionalCosts = new int[n];
+            demands = new int[n];
+
+            for (int i = 0; i < n; i++) {
+                OperatingUnit unit = units.get(i);
+                names[i] = unit.getName();
+                inputs[i] = unit.getInputMaterial().getName();
+                outputs[i] = unit.getOutputMaterial().getName();
+                fixedCosts[i] = unit.getFixed_cost();
+                proportionalCosts[i] = unit.getProportional_cost();
+                demands[i] = unit.getOutputMaterial().getLower_bound();
+            }
+        }
+
+        /**
+         * Check if another problem has the same units, in the same order and with the same materials.
+         *
+         * @param other The other problem.
+         * @return True if the structure is the same.
+         */
+        boolean hasSameStructure(Snapshot other) {
+            return Arrays.equals(names, other.names) && Arrays.equals(inputs, other.inputs) && Arrays.equals(outputs, other.outputs);
+        }
+
+        /**
+         * Check if another problem has the same structure and the same demands, so the same material balances.
+         *
+         * @param other The other problem.
+         * @return True if the balances are the same.
+         */
+        boolean hasSameConstraints(Snapshot other) {
+            return hasSameStructure(other) && Arrays.equals(demands, other.demands);
+        }
+    }
+}
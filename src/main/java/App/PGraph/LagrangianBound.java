@@ -0,0 +1,161 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+
+import java.util.*;
+
+/**
+ * Lagrangian relaxation of the material balances, used to bound the nodes without solving their relaxation.
+ * <p>
+ * The balance of every produced material, sum(x of producers) - sum(x of consumers) &gt;= lower_bound, gets a
+ * multiplier u &gt;= 0 and moves to the objective. Then the units are independent: with the reduced cost
+ * r = proportional_cost - u(output) + u(input), a unit is opened at full capacity when
+ * fixed_cost + r*capacity &lt; 0, and closed otherwise. The Y variables fixed by the node are respected. For any
+ * multipliers the value is a lower bound of the node, and it's solved in O(units).
+ * <p>
+ * The multipliers are improved with subgradient steps, with the Polyak step towards the cutoff, until the bound
+ * reaches the cutoff or stops improving. The relaxation of each unit has the integrality property, so the best
+ * bound is the one of the linear relaxation without cuts. The multipliers of a node start from the ones of the
+ * previous node, which in a depth first search is usually its parent or a sibling.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SearchOptions.Relaxation#LAGRANGIAN
+ */
+class LagrangianBound {
+    /**
+     * Maximum subgradient steps for a node.
+     */
+    static final int MAX_ITERATIONS = 60;
+    private static final int PATIENCE = 5;
+    private static final double EPSILON = 1e-6;
+    private final int unitCount;
+    private final double[] capacities;
+    private final double[] fixedCosts;
+    private final double[] proportionalCosts;
+    // Index of the balance of the input and output material of each unit, -1 if the material has no balance
+    private final int[] inputs;
+    private final int[] outputs;
+    private final double[] demands;
+    private final double[] multipliers;
+
+    /**
+     * Constructor.
+     *
+     * @param units      The list of operating units.
+     * @param capacities The capacities of the units used by the model.
+     */
+    LagrangianBound(List<OperatingUnit> units, double[] capacities) {
+        this.unitCount = units.size();
+        this.capacities = capacities;
+        this.fixedCosts = new double[unitCount];
+        this.proportionalCosts = new double[unitCount];
+        this.inputs = new int[unitCount];
+        this.outputs = new int[unitCount];
+
+        // Only the produced materials have a balance in the model
+        HashMap<Material, Integer> balances = new HashMap<>();
+        for (OperatingUnit unit : units) balances.putIfAbsent(unit.getOutputMaterial(), balances.size());
+
+        this.demands = new double[balances.size()];
+        for (Map.Entry<Material, Integer> entry : balances.entrySet()) demands[entry.getValue()] = entry.getKey().getLower_bound();
+
+        for (int i = 0; i < unitCount; i++) {
+            OperatingUnit unit = units.get(i);
+            fixedCosts[i] = unit.getFixed_cost();
+            proportionalCosts[i] = unit.getProportional_cost();
+            inputs[i] = balances.getOrDefault(unit.getInputMaterial(), -1);
+            outputs[i] = balances.get(unit.getOutputMaterial());
+        }
+
+        this.multipliers = new double[balances.size()];
+    }
+
+    /**
+     * Compute a lower bound of a node.
+     *
+     * @param fixedValues The fixed values of the node, null for the root.
+     * @param cutoff      The value the bound must reach to prune the node.
+     * @return The best bound found, which may be below the cutoff.
+     */
+    double bound(int[] fixedValues, double cutoff) {
+        // Without an incumbent there is no target for the steps, and the bound can't prune anything
+        if (cutoff == Double.POSITIVE_INFINITY) return Double.NEGATIVE_INFINITY;
+
+        double[] u = multipliers.clone();
+        double[] best = u.clone();
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double[] x = new double[unitCount];
+        double[] subgradient = new double[demands.length];
+        double step = 2;
+        int stalled = 0;
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double value = evaluate(fixedValues, u, x);
+
+            if (value > bestValue + EPSILON) {
+                bestValue = value;
+                System.arraycopy(u, 0, best, 0, u.length);
+                stalled = 0;
+            } else if (++stalled >= PATIENCE) {
+                step /= 2;
+                stalled = 0;
+            }
+            if (bestValue >= cutoff - EPSILON) break;
+
+            // Subgradient of the relaxed balances: lower_bound - (production - consumption)
+            System.arraycopy(demands, 0, subgradient, 0, demands.length);
+            for (int i = 0; i < unitCount; i++) {
+                if (x[i] == 0) continue;
+                subgradient[outputs[i]] -= x[i];
+                if (inputs[i] >= 0) subgradient[inputs[i]] += x[i];
+            }
+
+            double norm = 0;
+            for (int m = 0; m < subgradient.length; m++) {
+                // A multiplier at 0 can't decrease
+                if (u[m] <= 0 && subgradient[m] < 0) subgradient[m] = 0;
+                norm += subgradient[m] * subgradient[m];
+            }
+            // The solution of the relaxation meets every balance, so the bound can't improve
+            if (norm < EPSILON) break;
+
+            double length = step * (cutoff - value) / norm;
+            for (int m = 0; m < u.length; m++) u[m] = Math.max(0, u[m] + length * subgradient[m]);
+        }
+
+        System.arraycopy(best, 0, multipliers, 0, best.length);
+        return bestValue;
+    }
+
+    /**
+     * Solve the relaxation for the given multipliers.
+     *
+     * @param fixedValues The fixed values of the node, null for the root.
+     * @param u           The multipliers of the balances.
+     * @param x           The flow of each unit in the solution, written by this method.
+     * @return The value of the relaxation.
+     */
+    private double evaluate(int[] fixedValues, double[] u, double[] x) {
+        double value = 0;
+        for (int m = 0; m < demands.length; m++) value += u[m] * demands[m];
+
+        for (int i = 0; i < unitCount; i++) {
+            int y = fixedValues == null ? Integer.MIN_VALUE : fixedValues[PGraph.yIndex(i)];
+            x[i] = 0;
+            if (y == 0) continue;
+
+            double reduced = proportionalCosts[i] - u[outputs[i]] + (inputs[i] >= 0 ? u[inputs[i]] : 0);
+            double flow = reduced < 0 ? capacities[i] : 0;
+            double open = fixedCosts[i] + reduced * flow;
+
+            if (y == 1 || open < 0) {
+                x[i] = flow;
+                value += open;
+            }
+        }
+
+        return value;
+    }
+}
@@ -66,6 +66,8 @@ public class Node {
      * - leaf: If the node is a leaf.
      * - feasible: If the solution is feasible.
      * - infeasible: If the solution is infeasible.
+     * - pruned: If the node was pruned by its bound.
+     * - pooled: If the solution of the node is in the solution pool.
      * - best: If the solution is the best.
      * - selected-node: If the node is selected.
      *
@@ -126,6 +128,18 @@ public class Node {
                 this.text.set("X");
             }
 
+            if (solutionStatus.isPruned()) {
+                draw.getStyleClass().add("pruned");
+            } else {
+                draw.getStyleClass().remove("pruned");
+            }
+
+            if (solutionStatus.isPooled()) {
+                draw.getStyleClass().add("pooled");
+            } else {
+                draw.getStyleClass().remove("pooled");
+            }
+
             if (solutionStatus.isBest()) {
                 draw.getStyleClass().remove("infeasible");
                 draw.getStyleClass().add("best");
@@ -179,6 +193,14 @@ public class Node {
         solutionStatus.setBest(best);
     }
 
+    public void setPruned(boolean pruned) {
+        solutionStatus.setPruned(pruned);
+    }
+
+    public void setPooled(boolean pooled) {
+        solutionStatus.setPooled(pooled);
+    }
+
     public double getRadius() {
         return r.get();
     }
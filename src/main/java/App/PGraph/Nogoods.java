@@ -0,0 +1,238 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+
+import java.util.*;
+
+/**
+ * Database of nogoods learned from the infeasible nodes of the search.
+ * <p>
+ * A nogood is a set of units that can't be closed at the same time: with their Y variables fixed to 0, the
+ * remaining units can't meet the demands of the materials. When the relaxation of a node is infeasible, the units
+ * closed by the node are checked with a maximum flow over the material graph, from the raw materials to the demands,
+ * with the capacities of the open units. If the flow can't meet the demands, the units are reduced one by one while
+ * the flow still fails, which leaves a minimal nogood. For example, every producer of a required material.
+ * <p>
+ * Each nogood is indexed by one of its units, so a node only checks the nogoods of the units it closes.
+ * A node that closes every unit of a nogood is infeasible without solving its relaxation.
+ * The nogoods only depend on the material graph, so they are valid in every subtree.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+class Nogoods {
+    /**
+     * Maximum number of nogoods kept. When it's reached, no more nogoods are learned.
+     */
+    static final int MAX_NOGOODS = 10000;
+    private static final double EPSILON = 1e-6;
+    private final int unitCount;
+    private final double[] capacities;
+    // Material graph: the source is 0, the sink is 1 and the materials go after them
+    private final int[] from;
+    private final int[] to;
+    private final int nodeCount;
+    private final int unitEdges;
+    private final double[] fixedCapacities;
+    private final double demand;
+    // Nogoods indexed by the unit that watches them
+    private final ArrayList<ArrayList<int[]>> watches;
+    private int size;
+
+    /**
+     * Constructor. The flow network is built once, only the capacities of the units change between checks.
+     *
+     * @param units      The list of operating units.
+     * @param capacities The capacities of the units used by the model.
+     */
+    Nogoods(List<OperatingUnit> units, double[] capacities) {
+        this.unitCount = units.size();
+        this.capacities = capacities;
+
+        HashMap<Material, Integer> materials = new HashMap<>();
+        HashSet<Material> produced = new HashSet<>();
+        for (OperatingUnit unit : units) {
+            materials.putIfAbsent(unit.getInputMaterial(), materials.size() + 2);
+            materials.putIfAbsent(unit.getOutputMaterial(), materials.size() + 2);
+            produced.add(unit.getOutputMaterial());
+        }
+        this.nodeCount = materials.size() + 2;
+
+        // An edge for each unit, from its input to its output. The raw materials come from the source, and the
+        // produced materials with a lower bound go to the sink with that bound as capacity.
+        ArrayList<int[]> edges = new ArrayList<>();
+        ArrayList<Double> edgeCapacities = new ArrayList<>();
+        for (OperatingUnit unit : units) {
+            edges.add(new int[]{materials.get(unit.getInputMaterial()), materials.get(unit.getOutputMaterial())});
+        }
+
+        double total = 0;
+        for (Map.Entry<Material, Integer> entry : materials.entrySet()) {
+            Material material = entry.getKey();
+            if (!produced.contains(material)) {
+                edges.add(new int[]{0, entry.getValue()});
+                edgeCapacities.add(Double.POSITIVE_INFINITY);
+            } else if (material.getLower_bound() > 0) {
+                edges.add(new int[]{entry.getValue(), 1});
+                edgeCapacities.add((double) material.getLower_bound());
+                total += material.getLower_bound();
+            }
+        }
+
+        this.unitEdges = units.size();
+        this.from = edges.stream().mapToInt(edge -> edge[0]).toArray();
+        this.to = edges.stream().mapToInt(edge -> edge[1]).toArray();
+        this.fixedCapacities = edgeCapacities.stream().mapToDouble(Double::doubleValue).toArray();
+        this.demand = total;
+
+        this.watches = new ArrayList<>(unitCount);
+        for (int i = 0; i < unitCount; i++) watches.add(new ArrayList<>());
+    }
+
+    /**
+     * Check if the units closed by a node contain a nogood.
+     *
+     * @param fixedValues The fixed values of the node, null for the root.
+     * @return True if the node is infeasible.
+     */
+    boolean matches(int[] fixedValues) {
+        if (fixedValues == null || size == 0) return false;
+
+        for (int unit = 0; unit < unitCount; unit++) {
+            if (fixedValues[PGraph.yIndex(unit)] != 0) continue;
+
+            for (int[] nogood : watches.get(unit)) {
+                boolean closed = true;
+                for (int member : nogood) {
+                    if (fixedValues[PGraph.yIndex(member)] != 0) {
+                        closed = false;
+                        break;
+                    }
+                }
+                if (closed) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Learn a nogood from an infeasible node, if the units it closes explain the infeasibility.
+     * A node can also be infeasible because of the cuts or the symmetry constraints, then nothing is learned.
+     *
+     * @param fixedValues The fixed values of the infeasible node.
+     * @return True if a nogood was learned.
+     */
+    boolean learn(int[] fixedValues) {
+        if (fixedValues == null || size >= MAX_NOGOODS) return false;
+
+        boolean[] closed = new boolean[unitCount];
+        ArrayList<Integer> members = new ArrayList<>();
+        for (int unit = 0; unit < unitCount; unit++) {
+            if (fixedValues[PGraph.yIndex(unit)] == 0 && capacities[unit] > 0) {
+                closed[unit] = true;
+                members.add(unit);
+            }
+        }
+
+        if (members.isEmpty() || isFeasible(closed)) return false;
+
+        // Open the units that aren't needed for the infeasibility, so the nogood is minimal
+        for (Iterator<Integer> iterator = members.iterator(); iterator.hasNext(); ) {
+            int unit = iterator.next();
+            closed[unit] = false;
+            if (isFeasible(closed)) closed[unit] = true;
+            else iterator.remove();
+        }
+
+        int[] nogood = members.stream().mapToInt(Integer::intValue).toArray();
+
+        // The unit with the fewest nogoods watches the new one
+        int watch = nogood[0];
+        for (int unit : nogood) if (watches.get(unit).size() < watches.get(watch).size()) watch = unit;
+        watches.get(watch).add(nogood);
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check if the demands can be met with the given units closed, with a maximum flow.
+     *
+     * @param closed If each unit is closed.
+     * @return True if the maximum flow meets every demand.
+     */
+    private boolean isFeasible(boolean[] closed) {
+        double[] capacity = new double[from.length];
+        for (int e = 0; e < from.length; e++) {
+            capacity[e] = e < unitEdges ? (closed[e] ? 0 : capacities[e]) : fixedCapacities[e - unitEdges];
+        }
+        return maxFlow(capacity) >= demand - EPSILON;
+    }
+
+    /**
+     * Maximum flow from the source to the sink with augmenting paths found by breadth first search.
+     *
+     * @param capacity The capacity of each edge.
+     * @return The value of the flow.
+     */
+    private double maxFlow(double[] capacity) {
+        // Residual graph: the edge 2e goes forward and 2e+1 backward
+        int edgeCount = 2 * from.length;
+        double[] residual = new double[edgeCount];
+        int[] head = new int[nodeCount];
+        int[] next = new int[edgeCount];
+        Arrays.fill(head, -1);
+        for (int e = 0; e < from.length; e++) {
+            residual[2 * e] = capacity[e];
+            next[2 * e] = head[from[e]];
+            head[from[e]] = 2 * e;
+            next[2 * e + 1] = head[to[e]];
+            head[to[e]] = 2 * e + 1;
+        }
+
+        double flow = 0;
+        int[] parentEdge = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        while (flow < demand - EPSILON) {
+            Arrays.fill(parentEdge, -1);
+            parentEdge[0] = edgeCount;
+            int first = 0;
+            int last = 0;
+            queue[last++] = 0;
+            while (first < last && parentEdge[1] < 0) {
+                int node = queue[first++];
+                for (int e = head[node]; e >= 0; e = next[e]) {
+                    int target = (e & 1) == 0 ? to[e / 2] : from[e / 2];
+                    if (parentEdge[target] < 0 && residual[e] > EPSILON) {
+                        parentEdge[target] = e;
+                        queue[last++] = target;
+                    }
+                }
+            }
+
+            if (parentEdge[1] < 0) break;
+
+            double path = Double.POSITIVE_INFINITY;
+            for (int node = 1; node != 0; ) {
+                int e = parentEdge[node];
+                path = Math.min(path, residual[e]);
+                node = (e & 1) == 0 ? from[e / 2] : to[e / 2];
+            }
+            for (int node = 1; node != 0; ) {
+                int e = parentEdge[node];
+                residual[e] -= path;
+                residual[e ^ 1] += path;
+                node = (e & 1) == 0 ? from[e / 2] : to[e / 2];
+            }
+            flow += path;
+        }
+
+        return flow;
+    }
+}
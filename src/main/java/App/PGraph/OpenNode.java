@@ -0,0 +1,58 @@
+package App.PGraph;
+
+import App.PGraph.Solver.SolverResult;
+import App.PGraph.Utils.VariableState;
+
+/**
+ * Node that has been created by branching but not evaluated yet.
+ * It keeps what is needed to evaluate it and to link it to its parent in the tree.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+class OpenNode {
+    final int[] fixedValues;
+    final Node parent;
+    final boolean left;
+    final double bound;
+    final VariableState changed;
+    final SolverResult parentResult;
+    final Node previous;
+
+    /**
+     * Constructor.
+     *
+     * @param fixedValues  The fixed values for the variables, null for the root.
+     * @param parent       The parent node, null for the root.
+     * @param left         If the node is the left child of its parent.
+     * @param bound        The lower bound of the node, the value of its parent.
+     * @param changed      The variable changed to reach the node, null for the root.
+     * @param parentResult The relaxation of the parent, used to warm start the flow relaxation. It may be null.
+     */
+    OpenNode(int[] fixedValues, Node parent, boolean left, double bound, VariableState changed, SolverResult parentResult) {
+        this(fixedValues, parent, left, bound, changed, parentResult, null);
+    }
+
+    /**
+     * Constructor for a leaf of the tree of a previous search, replayed by an incremental search.
+     *
+     * @param fixedValues  The fixed values for the variables, null for the root.
+     * @param parent       The parent node, null for the root.
+     * @param left         If the node is the left child of its parent.
+     * @param bound        The lower bound of the node.
+     * @param changed      The variable changed to reach the node, null for the root.
+     * @param parentResult The relaxation of the parent. It may be null.
+     * @param previous     The same node in the previous search, or null.
+     * @see Incremental
+     */
+    OpenNode(int[] fixedValues, Node parent, boolean left, double bound, VariableState changed, SolverResult parentResult, Node previous) {
+        this.fixedValues = fixedValues;
+        this.parent = parent;
+        this.left = left;
+        this.bound = bound;
+        this.changed = changed;
+        this.parentResult = parentResult;
+        this.previous = previous;
+    }
+}
@@ -2,14 +2,25 @@ package App.PGraph;
 
 import App.PGraph.Entities.Material;
 import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Events.IncumbentEvent;
+import App.PGraph.Events.NodeEvent;
+import App.PGraph.Events.SearchEvent;
+import App.PGraph.Solver.FlowRelaxation;
+import App.PGraph.Solver.Model;
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Solver.SolverResult;
+import App.PGraph.Utils.NodeStore;
+import App.PGraph.Utils.SolutionStatus;
+import App.PGraph.Utils.SolverStatistics;
 import App.PGraph.Utils.VariableState;
-import com.google.ortools.Loader;
-import com.google.ortools.linearsolver.MPConstraint;
-import com.google.ortools.linearsolver.MPObjective;
-import com.google.ortools.linearsolver.MPSolver;
-import com.google.ortools.linearsolver.MPVariable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class represents the graph of the process network synthesis optimization problem.
@@ -18,27 +29,131 @@ import java.util.*;
  * @author Juan Camilo Narváez
  */
 public class PGraph {
+    private static final double EPSILON = 1e-6;
+    private static final double INTEGRALITY_TOLERANCE = 1e-6;
     protected Node root;
     protected Node bestNode;
     protected int depth;
     protected ArrayList<OperatingUnit> units;
+    protected double[] capacities;
+    protected Model model;
+    protected SolverBackend backend;
+    protected SearchOptions options;
+    protected FlowRelaxation flow;
+    protected SolverStatistics statistics;
+    protected PrimalHeuristics heuristics;
+    protected CutGenerator cuts;
+    protected Symmetry symmetry;
+    protected SolutionPool pool;
+    protected Nogoods nogoods;
+    protected CombinatorialBound combinatorialBound;
+    protected LagrangianBound lagrangian;
+    protected NodeStore store;
+    // Data of the problem when the graph was created, compared by the incremental searches
+    protected Incremental.Snapshot snapshot;
+    // If the search was resumed from a checkpoint or started from subtrees, so the tree is a chain of placeholders
+    protected boolean resumed;
+    // If the search ended by a limit or a stop condition, before evaluating every open node
+    protected boolean stopped;
+    // Subtrees left open by a stopped search
+    protected List<Subtree> openSubtrees;
+    // Constraints of the model before the symmetry constraints, they only depend on the capacities and the demands
+    protected int structureConstraints;
+    // Constraints of the model before the cuts, the rest are written to the checkpoints
+    protected int baseConstraints;
 
     /**
      * Default constructor.
      */
     public PGraph() {
         depth = 0;
+        statistics = new SolverStatistics();
     }
 
     /**
-     * Constructor with units.
+     * Constructor with units. The relaxations are solved with the default backend.
      *
      * @param units The list of operating units.
+     * @see SolverBackend#getDefault()
      */
     public PGraph(ArrayList<OperatingUnit> units) {
+        this(units, SolverBackend.getDefault());
+    }
+
+    /**
+     * Constructor with units and the backend used to solve the relaxations.
+     *
+     * @param units   The list of operating units.
+     * @param backend The solver backend.
+     */
+    public PGraph(ArrayList<OperatingUnit> units, SolverBackend backend) {
+        this(units, new SearchOptions(backend));
+    }
+
+    /**
+     * Constructor with units and the options of the search.
+     *
+     * @param units   The list of operating units.
+     * @param options The options of the search.
+     */
+    public PGraph(ArrayList<OperatingUnit> units, SearchOptions options) {
+        this(units, options, null);
+    }
+
+    /**
+     * Constructor that reuses the model of another graph of the same network, for example in a sweep over the costs.
+     * If the template has the same units, materials, demands and capacities, its constraints, its cuts and its
+     * nogoods are reused, and only the costs and the symmetry constraints, which depend on them, are set again.
+     * Otherwise, the model is built like in the other constructors.
+     * The template is read and its nogoods are extended, so it must not be used by another thread meanwhile.
+     *
+     * @param units    The list of operating units.
+     * @param options  The options of the search.
+     * @param template The graph whose model is reused, or null to build it.
+     */
+    // The search runs in the constructor, and its helpers get the graph once its model is built. Subclasses
+    // can't be initialized by then, so they only draw the tree after the search.
+    @SuppressWarnings("this-escape")
+    PGraph(ArrayList<OperatingUnit> units, SearchOptions options, PGraph template) {
         this();
         this.units = units;
+        this.options = options;
+        this.backend = options.getBackend();
+        this.store = options.getNodeStore();
         depth = units.size() + 1;
+        snapshot = new Incremental.Snapshot(units);
+        capacities = BoundPropagation.propagate(units);
+
+        boolean reuse = template != null && template.snapshot.hasSameConstraints(snapshot)
+                && Arrays.equals(template.capacities, capacities);
+        model = reuse ? copyModel(template) : buildModel();
+        if (store != null && store.getVariableCount() != model.getVariableCount()) {
+            throw new IllegalArgumentException("The node store must have " + model.getVariableCount() + " values per node");
+        }
+        structureConstraints = model.getConstraintCount();
+        symmetry = new Symmetry(units, capacities);
+        symmetry.addConstraints(model);
+        baseConstraints = model.getConstraintCount();
+        // The cuts and the nogoods of the template only depend on the capacities and the demands
+        if (reuse) {
+            for (int c = template.baseConstraints; c < template.model.getConstraintCount(); c++) {
+                model.addConstraint(template.model.getConstraint(c));
+            }
+        }
+        nogoods = reuse ? template.nogoods : new Nogoods(units, capacities);
+        combinatorialBound = new CombinatorialBound(units, capacities);
+        pool = new SolutionPool(options.getPoolSize(), units);
+
+        if (options.getRelaxation() == SearchOptions.Relaxation.LAGRANGIAN) {
+            lagrangian = new LagrangianBound(units, capacities);
+        } else if (options.getRelaxation() == SearchOptions.Relaxation.FLOW) {
+            flow = new FlowRelaxation(units, capacities);
+            if (!flow.isSupported()) {
+                Logger.getLogger("PGraph").warning("The flow relaxation needs non-negative costs, using the linear relaxation");
+                flow = null;
+            }
+        }
+
         this.build();
     }
 
@@ -46,156 +161,590 @@ public class PGraph {
      * Build the graph using branch and bound.
      */
     private void build() {
-        root = branchAndBound(null, null, null);
+        // Created when the search starts, once the model and the rest of the graph are built
+        heuristics = new PrimalHeuristics(this);
+        cuts = new CutGenerator(this);
+
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        statistics.start();
+
+        ArrayDeque<OpenNode> open = new ArrayDeque<>();
+        Path checkpoint = options.getCheckpointFile();
+        PGraph previous = options.getPrevious();
+        Incremental incremental = null;
+        if (options.isResume() && checkpoint != null && Files.exists(checkpoint)) {
+            resume(checkpoint, open);
+        } else {
+            if (options.getStartStructure() != null) heuristics.structure(options.getStartStructure());
+            if (options.getStartNodes() != null) {
+                ArrayList<OpenNode> start = new ArrayList<>();
+                for (Subtree subtree : options.getStartNodes()) {
+                    start.add(new OpenNode(subtree.getFixedValues(), null, true, subtree.getBound(), subtree.getChanged(), null));
+                }
+                hang(start, open);
+            } else if (previous != null && Incremental.isCompatible(previous, this)) {
+                incremental = new Incremental(previous, this);
+                incremental.start(open);
+            } else {
+                statistics.nodeOpened(Double.NEGATIVE_INFINITY);
+                open.push(new OpenNode(null, null, true, Double.NEGATIVE_INFINITY, null, null));
+            }
+        }
+
+        search(open);
+        if (incremental != null) incremental.complete();
+
+        statistics.stop();
+        event.end();
+        if (event.shouldCommit()) {
+            event.units = units.size();
+            event.nodes = statistics.getNodes();
+            event.lpSolves = statistics.getLpSolves();
+            event.infeasibleNodes = statistics.getInfeasibleNodes();
+            event.prunedNodes = statistics.getPrunedNodes();
+            event.cuts = statistics.getCuts();
+            event.maxOpenNodes = statistics.getMaxOpenNodes();
+            event.buildTime = statistics.getBuildTime();
+            event.solveTime = statistics.getSolveTime();
+            event.firstIncumbentTime = statistics.getFirstIncumbentTime();
+            event.value = statistics.getIncumbent();
+            event.commit();
+        }
     }
 
     /**
-     * Branch and bound recursive method.
+     * Depth first search over the open nodes. The left child is evaluated first, as in a recursive search,
+     * unless the options go up first.
+     * A checkpoint is written when the configured interval has passed, and once more when the search ends.
+     * The search stops early when a limit of the options is reached, and the last checkpoint keeps the open nodes.
      *
-     * @param fixedValues         The fixed values for the variables.
-     * @param parent              The parent node.
-     * @param lastChangedVariable The last changed variable.
-     * @return The node.
+     * @param open The open nodes. The next node to evaluate is the first one.
      */
-    private Node branchAndBound(int[] fixedValues, Node parent, VariableState lastChangedVariable) {
-        Node node = new Node();
+    private void search(ArrayDeque<OpenNode> open) {
+        Path checkpoint = options.getCheckpointFile();
+        long interval = options.getCheckpointInterval() == null ? Long.MAX_VALUE : options.getCheckpointInterval().toNanos();
+        long lastTime = System.nanoTime();
+        long lastNodes = statistics.getNodes();
+
+        while (!open.isEmpty()) {
+            if (shouldStop()) {
+                stopped = true;
+                openSubtrees = new ArrayList<>(open.size());
+                for (OpenNode node : open) openSubtrees.add(new Subtree(node.fixedValues, node.bound, node.changed));
+                break;
+            }
 
-        if (parent == null) node.setLevel(1);
-        else node.setLevel(parent.getLevel() + 1);
+            if (checkpoint != null && (System.nanoTime() - lastTime >= interval
+                    || (options.getCheckpointNodes() > 0 && statistics.getNodes() - lastNodes >= options.getCheckpointNodes()))) {
+                writeCheckpoint(checkpoint, open);
+                lastTime = System.nanoTime();
+                lastNodes = statistics.getNodes();
+            }
 
-        // Get the solver and solve the model
-        var sol = getSolver(fixedValues);
-        try {
-            var result = sol.solve();
+            OpenNode next = open.pop();
+            Node node = branchAndBound(next, open);
+
+            if (next.parent == null) root = node;
+            else if (next.left) next.parent.setLeft(node);
+            else next.parent.setRight(node);
+        }
+
+        if (checkpoint != null) writeCheckpoint(checkpoint, open);
+    }
 
-            // Set the solution status of the node
-            if (result == MPSolver.ResultStatus.INFEASIBLE) {
+    /**
+     * Check the limits and the stop condition of the options.
+     *
+     * @return True if the search must stop.
+     */
+    private boolean shouldStop() {
+        if (options.getTimeLimit() != null && statistics.getElapsedTime() >= options.getTimeLimit().toNanos()) return true;
+        if (options.getNodeLimit() > 0 && statistics.getNodes() >= options.getNodeLimit()) return true;
+        return options.getStopCondition() != null && options.getStopCondition().getAsBoolean();
+    }
+
+    /**
+     * Evaluate an open node and add its children to the open nodes if it must be branched.
+     *
+     * @param open  The open node.
+     * @param queue The open nodes, where the children are added.
+     * @return The node.
+     */
+    private Node branchAndBound(OpenNode open, ArrayDeque<OpenNode> queue) {
+        Node parent = open.parent;
+        int[] fixedValues = open.fixedValues;
+        VariableState lastChangedVariable = open.changed;
+
+        Node node = createNode(parent);
+
+        statistics.nodeClosed(open.bound);
+
+        // A node of a previous search whose bound can't improve the incumbent is pruned without solving it
+        if (open.previous != null && open.bound >= getCutoff() - EPSILON) {
+            reuse(node, open.previous, lastChangedVariable);
+            statistics.nodeReused();
+            statistics.nodePruned();
+            node.setPruned(true);
+            return node;
+        }
+
+        // A node that closes every unit of a learned nogood is infeasible, there is no need to solve it
+        if (nogoods.matches(fixedValues)) {
+            statistics.nogoodMatched();
+            statistics.nodeInfeasible();
+            node.getSolutionStatus().setChanged(lastChangedVariable);
+            node.setFeasible(false);
+            recordChanged(node, lastChangedVariable);
+            return node;
+        }
+
+        // The bound of the parent, the bound on the material graph or the Lagrangian bound may already be above
+        // the incumbent. Then the node is fathomed without solving its relaxation.
+        double lowerBound = open.bound;
+        if (combinatorialBound.isSupported()) lowerBound = Math.max(lowerBound, combinatorialBound.bound(fixedValues));
+        if (lagrangian != null && lowerBound < getCutoff() - EPSILON) {
+            lowerBound = Math.max(lowerBound, lagrangian.bound(fixedValues, getCutoff()));
+        }
+        if (lowerBound >= getCutoff() - EPSILON) {
+            statistics.nodeFathomed();
+            node.getSolutionStatus().setChanged(lastChangedVariable);
+            recordChanged(node, lastChangedVariable);
+            if (lowerBound == Double.POSITIVE_INFINITY) {
+                statistics.nodeInfeasible();
+                if (nogoods.learn(fixedValues)) statistics.nogoodLearned();
                 node.setFeasible(false);
-                node.getSolutionStatus().setChanged(lastChangedVariable);
-                return node;
             } else {
-                node.getSolutionStatus().setValue(sol.objective().value());
+                statistics.nodePruned();
+                setValue(node, lowerBound);
+                node.setPruned(true);
+            }
+            return node;
+        }
 
-                HashSet<VariableState> currentVariables = new HashSet<>();
-                Arrays.stream(sol.variables()).iterator().forEachRemaining(
-                    variable -> currentVariables.add(
-                      new VariableState(variable.name(), variable.solutionValue()))
-                    );
+        NodeEvent event = new NodeEvent();
+        event.begin();
+
+        // Solve the relaxation of the node
+        var sol = solve(fixedValues, open.parentResult);
+        event.end();
+        if (event.shouldCommit()) {
+            event.level = node.getLevel();
+            event.status = sol.getStatus().name();
+            event.value = sol.getObjective();
+            event.buildTime = sol.getBuildTime();
+            event.solveTime = sol.getSolveTime();
+            event.commit();
+        }
 
-                node.getSolutionStatus().setVariables(currentVariables);
-            }
-        } catch (Exception e) {
-            System.out.println("Error in solving the model with SCIP.");
+        // Strengthen the relaxation of the shallow nodes with cutting planes. The flow relaxation doesn't use them.
+        if (flow == null && sol.isOptimal() && node.getLevel() <= CutGenerator.MAX_LEVEL) {
+            sol = cuts.strengthen(sol, fixedValues);
+        }
+
+        // Set the solution status of the node
+        node.getSolutionStatus().setChanged(lastChangedVariable);
+        if (!sol.isOptimal()) {
+            statistics.nodeInfeasible();
+            if (sol.getStatus() == SolverResult.Status.INFEASIBLE && nogoods.learn(fixedValues)) statistics.nogoodLearned();
+            node.setFeasible(false);
+            record(node, sol, lastChangedVariable);
+            return node;
+        }
+
+        node.getSolutionStatus().setValue(sol.getObjective());
+        node.getSolutionStatus().setVariables(getVariableStates(sol));
+        record(node, sol, lastChangedVariable);
+
+        // Seed the incumbent with the heuristics at the root, and periodically during the search.
+        double[] values = sol.getValues();
+        if (parent == null) {
+            heuristics.runAtRoot(values);
+        } else if (statistics.getNodes() % PrimalHeuristics.FREQUENCY == 0) {
+            heuristics.runAtNode(fixedValues, values);
+        }
+
+        // The node can't improve the incumbent, or the worst solution of a full pool, there is no need to branch.
+        if (node.getSolutionStatus().getValue() >= getCutoff() - EPSILON) {
+            statistics.nodePruned();
+            node.setPruned(true);
+            return node;
         }
 
         // Search for the next variable to change if the solution is not integer.
-        var variables = sol.variables();
-        int toChange = getNonInteger(variables);
+        int toChange = getNonInteger(values);
+        boolean integer = toChange < 0;
+
+        // An integer solution goes to the pool. When the pool keeps several solutions, the search goes on
+        // with a free Y variable, since the other structures of the node may also be in the pool.
+        if (integer) {
+            updateIncumbent(node, values);
+            if (pool.getCapacity() > 1) toChange = getFree(fixedValues, values);
+        }
 
         // If there is a variable to change, branch and bound
         if (toChange >= 0) {
-            int leftValue = Math.abs((int) Math.floor(variables[toChange].solutionValue()));
+            int leftValue = integer ? 0 : Math.abs((int) Math.floor(values[toChange]));
             int rightValue = leftValue + 1;
 
             if (fixedValues == null) {
-                fixedValues = new int[variables.length];
+                fixedValues = new int[values.length];
                 Arrays.fill(fixedValues, Integer.MIN_VALUE);
             }
 
             int[] leftFixedValues = Arrays.copyOf(fixedValues, fixedValues.length);
             leftFixedValues[toChange] = leftValue;
+            symmetry.fix(leftFixedValues, toChange);
 
             int[] rightFixedValues = Arrays.copyOf(fixedValues, fixedValues.length);
             rightFixedValues[toChange] = rightValue;
+            symmetry.fix(rightFixedValues, toChange);
 
-            var variable = variables[toChange];
+            String name = model.getVariableName(toChange);
 
-            node.setLeft(branchAndBound(leftFixedValues, node, new VariableState(variable.name(), leftValue, variable.solutionValue())));
-            node.setRight(branchAndBound(rightFixedValues, node, new VariableState(variables[toChange].name(), rightValue, variable.solutionValue())));
-        }
+            // Both children are open until the search reaches them. Their bound is the value of this node.
+            // The right child is added first, so the left one is evaluated next, unless the options go up first.
+            double bound = node.getSolutionStatus().getValue();
+            statistics.nodeOpened(bound);
+            statistics.nodeOpened(bound);
 
-        // If the solution is an integer, return the node. There is no need to branch and bound.
-        else {
-            if (bestNode == null) {
-                bestNode = node;
-                node.setBest(true);
-            } else if (sol.objective().value() < bestNode.getSolutionStatus().getValue()) {
-                bestNode.setBest(false);
-                node.setBest(true);
-                bestNode = node;
-            }
+            OpenNode left = new OpenNode(leftFixedValues, node, true, bound, new VariableState(name, leftValue, values[toChange]), sol);
+            OpenNode right = new OpenNode(rightFixedValues, node, false, bound, new VariableState(name, rightValue, values[toChange]), sol);
+            queue.push(options.isUpFirst() ? left : right);
+            queue.push(options.isUpFirst() ? right : left);
         }
 
         return node;
     }
 
     /**
-     * Get the index of the first non-integer variable.
+     * Create a node of the tree, in the heap or in the node store.
      *
-     * @param variables The array of variables.
-     * @return The index of the first non-integer variable.
+     * @param parent The parent node, null for the root.
+     * @return The node.
      */
-    private int getNonInteger(MPVariable[] variables) {
-        int index = 0;
-        for (var variable : variables) {
-            if (variable.solutionValue() % 1 != 0) {
-                return index;
+    Node createNode(Node parent) {
+        int level = parent == null ? 1 : parent.getLevel() + 1;
+        Node node = store == null ? new Node()
+                : new StoredNode(store, model, parent == null ? NodeStore.NONE : ((StoredNode) parent).getId(), level);
+        node.setLevel(level);
+        return node;
+    }
+
+    /**
+     * Write a checkpoint of the search. A failure is logged and the search continues.
+     *
+     * @param file The checkpoint file.
+     * @param open The open nodes.
+     */
+    private void writeCheckpoint(Path file, ArrayDeque<OpenNode> open) {
+        long start = System.nanoTime();
+        try {
+            Checkpoint.write(file, this, open);
+            statistics.checkpointWritten(System.nanoTime() - start);
+        } catch (IOException e) {
+            Logger.getLogger("PGraph").log(Level.WARNING, "The checkpoint couldn't be written", e);
+        }
+    }
+
+    /**
+     * Resume the search from a checkpoint. The evaluated part of the tree is not in the checkpoint,
+     * so the root is a chain of placeholder nodes: each one has an open node on the left and the next one on the right.
+     *
+     * @param file The checkpoint file.
+     * @param open The open nodes, where the nodes of the checkpoint are added.
+     * @throws UncheckedIOException If the checkpoint can't be read.
+     */
+    private void resume(Path file, ArrayDeque<OpenNode> open) {
+        List<OpenNode> restored;
+        try {
+            restored = Checkpoint.read(file, this);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The checkpoint " + file + " couldn't be read", e);
+        }
+
+        hang(restored, open);
+    }
+
+    /**
+     * Hang open nodes without parent from a chain of placeholder nodes: each placeholder has an open node on the left
+     * and the next placeholder on the right. The tree of a resumed search, or of a search of some subtrees, starts
+     * like this.
+     *
+     * @param nodes The open nodes, in the order they are evaluated.
+     * @param open  The open nodes of the search, where the nodes are added.
+     */
+    private void hang(List<OpenNode> nodes, ArrayDeque<OpenNode> open) {
+        resumed = true;
+        root = createNode(null);
+        root.getSolutionStatus().setValue(statistics.getIncumbent());
+
+        Node placeholder = root;
+        for (int i = 0; i < nodes.size(); i++) {
+            OpenNode node = nodes.get(i);
+            if (i > 0) {
+                Node next = createNode(placeholder);
+                next.getSolutionStatus().setValue(node.bound);
+                placeholder.setRight(next);
+                placeholder = next;
+            } else {
+                root.getSolutionStatus().setValue(node.bound);
             }
-            index++;
+
+            statistics.nodeOpened(node.bound);
+            open.add(new OpenNode(node.fixedValues, placeholder, true, node.bound, node.changed, null));
+        }
+    }
+
+    /**
+     * Write the value, the variables and the changed variable of a node to the store, if the tree is stored.
+     * The flags are written by the node itself.
+     *
+     * @param node    The node.
+     * @param result  The result of its relaxation.
+     * @param changed The variable changed to reach the node, null for the root.
+     */
+    private void record(Node node, SolverResult result, VariableState changed) {
+        if (!(node instanceof StoredNode stored)) return;
+
+        int id = stored.getId();
+        if (result.isOptimal()) {
+            store.setValue(id, result.getObjective());
+            store.setValues(id, result.getValues());
         }
+        recordChanged(node, changed);
+    }
 
-        return -1;
+    /**
+     * Write the changed variable of a node to the store, if the tree is stored.
+     *
+     * @param node    The node.
+     * @param changed The variable changed to reach the node, null for the root.
+     */
+    private void recordChanged(Node node, VariableState changed) {
+        if (!(node instanceof StoredNode stored) || changed == null) return;
+        store.setChanged(stored.getId(), model.getVariableIndex(changed.getName()), (int) changed.getValue(), changed.getPreviousValue());
     }
 
     /**
-     * Get the solver for the model.
+     * Copy the solution status of a node of a previous search to a new node, also in the store if the tree is stored.
      *
-     * @param fixedValues The fixed values for the variables. If a value is Integer.MIN_VALUE, the variable is not fixed.
-     * @return The solver.
+     * @param node     The new node.
+     * @param previous The node of the previous search.
+     * @param changed  The variable changed to reach the new node, null for the root.
+     * @see Incremental
+     */
+    void reuse(Node node, Node previous, VariableState changed) {
+        SolutionStatus status = previous.getSolutionStatus();
+        node.setFeasible(status.isFeasible());
+        node.getSolutionStatus().setVariables(status.getVariables());
+        node.getSolutionStatus().setChanged(changed);
+        setValue(node, status.getValue());
+
+        if (!(node instanceof StoredNode stored)) return;
+
+        int id = stored.getId();
+        if (status.getVariables() != null) {
+            double[] values = new double[model.getVariableCount()];
+            for (VariableState variable : status.getVariables()) values[model.getVariableIndex(variable.getName())] = variable.getValue();
+            store.setValues(id, values);
+        }
+        recordChanged(node, changed);
+    }
+
+    /**
+     * Set the value of a node, also in the store if the tree is stored.
+     *
+     * @param node  The node.
+     * @param value The value.
+     */
+    void setValue(Node node, double value) {
+        node.getSolutionStatus().setValue(value);
+        if (node instanceof StoredNode stored) store.setValue(stored.getId(), value);
+    }
+
+    /**
+     * Offer the solution of the node to the pool, and replace the best node if the given node has a better solution.
+     * The node may not be part of the tree when the solution comes from a heuristic.
+     *
+     * @param node   The node with an integer solution.
+     * @param values The values of the variables of the solution.
+     * @return True if the node is the new best node.
+     */
+    boolean updateIncumbent(Node node, double[] values) {
+        pool.offer(node, values);
+
+        if (bestNode != null && node.getSolutionStatus().getValue() >= bestNode.getSolutionStatus().getValue() - EPSILON) {
+            return false;
+        }
+
+        if (bestNode != null) bestNode.setBest(false);
+        node.setBest(true);
+        bestNode = node;
+
+        statistics.incumbentFound(node.getSolutionStatus().getValue());
+        if (options.getIncumbentListener() != null) {
+            options.getIncumbentListener().accept(values, node.getSolutionStatus().getValue());
+        }
+
+        IncumbentEvent event = new IncumbentEvent();
+        if (event.shouldCommit()) {
+            event.value = statistics.getIncumbent();
+            event.bound = statistics.getBound();
+            event.nodes = statistics.getNodes();
+            event.commit();
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the value that a node must improve to be branched: the worst solution of a full pool,
+     * or the cutoff of the options if it's lower.
+     *
+     * @return The cutoff.
+     */
+    double getCutoff() {
+        double cutoff = pool.getCutoff();
+        if (options.getCutoff() != null) cutoff = Math.min(cutoff, options.getCutoff().getAsDouble());
+        return cutoff;
+    }
+
+    /**
+     * Get the solved values of the variables of the model.
+     *
+     * @param result The result of a solve.
+     * @return The set of variables with their values.
+     */
+    HashSet<VariableState> getVariableStates(SolverResult result) {
+        return getVariableStates(result.getValues());
+    }
+
+    /**
+     * Get the variables of the model with the given values.
+     *
+     * @param values The value of each variable.
+     * @return The set of variables with their values.
      */
-    private MPSolver getSolver(int[] fixedValues) {
-        Loader.loadNativeLibraries();
-        //Change to SCIP if there is a need to confirm that the solver is working.
-        MPSolver solver = MPSolver.createSolver("GLOP");
+    HashSet<VariableState> getVariableStates(double[] values) {
+        HashSet<VariableState> variables = new HashSet<>();
+        for (int i = 0; i < model.getVariableCount(); i++) {
+            variables.add(new VariableState(model.getVariableName(i), values[i]));
+        }
+        return variables;
+    }
 
-        // Array to store the variables x
-        MPVariable[] xArray = new MPVariable[units.size()];
+    /**
+     * Get the index of the X variable of a unit in the model.
+     *
+     * @param unit The index of the unit.
+     * @return The index of the variable.
+     */
+    static int xIndex(int unit) {
+        return 2 * unit;
+    }
 
-        // Set the objective function
-        MPObjective objective = solver.objective();
-        objective.setMinimization();
+    /**
+     * Get the index of the Y variable of a unit in the model.
+     *
+     * @param unit The index of the unit.
+     * @return The index of the variable.
+     */
+    static int yIndex(int unit) {
+        return 2 * unit + 1;
+    }
 
-        // Set the variables and constraints
+    /**
+     * Get the index of the first Y variable that is not fixed, from the units that carry flow in the solution.
+     * Closing them first finds the other structures before the ones that only add idle units to this one, which
+     * the pool doesn't count as different, so the cutoff of the pool prunes those sooner.
+     *
+     * @param fixedValues The fixed values for the variables, null if none is fixed.
+     * @param values      The values of the variables in the solution of the node.
+     * @return The index of the variable, or -1 if all the Y variables are fixed.
+     */
+    private int getFree(int[] fixedValues, double[] values) {
+        int idle = -1;
         for (int i = 0; i < units.size(); i++) {
-            ///Variables x and y
-            var x = solver.makeNumVar(0, Double.POSITIVE_INFINITY, "X" + (i + 1));
-            var y = solver.makeIntVar(0, 1, "Y" + (i + 1));
+            if (fixedValues != null && fixedValues[yIndex(i)] != Integer.MIN_VALUE) continue;
+            if (values[xIndex(i)] > EPSILON) return yIndex(i);
+            if (idle < 0) idle = yIndex(i);
+        }
 
-            xArray[i] = x;
+        return idle;
+    }
 
-            //x and y are non-negative
-            var xPositive = solver.makeConstraint(0, Double.POSITIVE_INFINITY, "Non-negative for " + x.name());
-            xPositive.setCoefficient(x, 1);
+    /**
+     * Get the integer variable of the model to branch on, with the branching rule of the options: the first one with
+     * a fractional value, or the one whose value is the farthest from an integer.
+     * The continuous X variables are never branched on, and values within the tolerance are considered integer.
+     *
+     * @param values The values of the variables.
+     * @return The index of the variable, or -1 if all the integer variables are integer.
+     */
+    private int getNonInteger(double[] values) {
+        boolean first = options.getBranching() == SearchOptions.Branching.FIRST;
+        int selected = -1;
+        double fraction = INTEGRALITY_TOLERANCE;
+        for (int index = 0; index < values.length; index++) {
+            double distance = Math.abs(values[index] - Math.rint(values[index]));
+            if (model.isInteger(index) && distance > fraction) {
+                if (first) return index;
+                selected = index;
+                fraction = distance;
+            }
+        }
 
-            var yPositive = solver.makeConstraint(0, 1, "Non-negative for " + y.name());
-            yPositive.setCoefficient(y, 1);
+        return selected;
+    }
 
-            //Set the coefficients for the objective function
-            objective.setCoefficient(x, units.get(i).getProportional_cost());
-            objective.setCoefficient(y, units.get(i).getFixed_cost());
+    /**
+     * Copy the variables and the constraints of a template with the same constraints, with the costs of this graph.
+     * The symmetry constraints and the cuts of the template are not copied.
+     *
+     * @param template The graph.
+     * @return The model.
+     */
+    private Model copyModel(PGraph template) {
+        Model model = new Model();
+        for (int v = 0; v < template.model.getVariableCount(); v++) {
+            model.addVariable(template.model.getVariableName(v), template.model.getLower(v), template.model.getUpper(v),
+                    0, template.model.isInteger(v));
+        }
+        for (int i = 0; i < units.size(); i++) {
+            model.setCost(xIndex(i), units.get(i).getProportional_cost());
+            model.setCost(yIndex(i), units.get(i).getFixed_cost());
+        }
+        for (int c = 0; c < template.structureConstraints; c++) {
+            model.addConstraint(template.model.getConstraint(c));
+        }
+        return model;
+    }
 
-            //Set the constraints for the capacity
-            //x <= y*capacity_upper_bound
-            //x - y*capacity_upper_bound <= 0
-            MPConstraint constraint = solver.makeConstraint(Double.NEGATIVE_INFINITY, 0, "Upperbound for " + xArray[i].name());
-            constraint.setCoefficient(x, 1);
-            constraint.setCoefficient(y, -units.get(i).getCapacity_upper_bound());
+    /**
+     * Build the model of the problem. It's built once, and each node only changes the bounds of its variables.
+     *
+     * @return The model.
+     */
+    private Model buildModel() {
+        Model model = new Model();
+
+        // Set the variables, the objective function and the constraints for the capacity
+        for (int i = 0; i < units.size(); i++) {
+            // Variables x and y. The bounds keep them non-negative.
+            int x = model.addVariable("X" + (i + 1), 0, Double.POSITIVE_INFINITY, units.get(i).getProportional_cost(), false);
+            int y = model.addVariable("Y" + (i + 1), 0, 1, units.get(i).getFixed_cost(), true);
+
+            //Set the constraints for the capacity, using the capacity tightened by the bound propagation
+            //x <= y*capacity
+            //x - y*capacity <= 0
+            model.addConstraint("Upperbound for " + model.getVariableName(x), new int[]{x, y}, new double[]{1, -capacities[i]}, Double.NEGATIVE_INFINITY, 0);
         }
 
         // Class to store the origins and destinations of the materials. It is needed to create the constraints.
         class Pair {
-            final LinkedHashSet<MPVariable> origins;
-            final LinkedHashSet<MPVariable> destinations;
+            final LinkedHashSet<Integer> origins;
+            final LinkedHashSet<Integer> destinations;
 
             public Pair() {
                 origins = new LinkedHashSet<>();
@@ -214,40 +763,139 @@ public class PGraph {
                 materialMap.put(unit.getOutputMaterial(), new Pair());
             }
 
-            materialMap.get(unit.getInputMaterial()).destinations.add(xArray[index]);
-            materialMap.get(unit.getOutputMaterial()).origins.add(xArray[index]);
+            materialMap.get(unit.getInputMaterial()).destinations.add(xIndex(index));
+            materialMap.get(unit.getOutputMaterial()).origins.add(xIndex(index));
 
             index++;
         }
 
-
         // Set the constraints for the origin-destination of the materials
         materialMap.forEach((material, pair) -> {
             if (pair.origins.isEmpty()) return;
-            MPConstraint constraint = solver.makeConstraint(material.getLower_bound(), Double.POSITIVE_INFINITY, String.format("Origin-Destination for %s", material.getName()));
-
-            pair.origins.forEach(variable -> constraint.setCoefficient(variable, 1));
 
-            pair.destinations.forEach(variable -> constraint.setCoefficient(variable, -1));
+            LinkedHashMap<Integer, Double> coefficients = new LinkedHashMap<>();
+            pair.origins.forEach(variable -> coefficients.put(variable, 1.0));
+            pair.destinations.forEach(variable -> coefficients.put(variable, -1.0));
 
+            model.addConstraint(String.format("Origin-Destination for %s", material.getName()),
+                    coefficients.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                    coefficients.values().stream().mapToDouble(Double::doubleValue).toArray(),
+                    material.getLower_bound(), Double.POSITIVE_INFINITY);
         });
 
+        return model;
+    }
+
+    /**
+     * Solve the relaxation of the model with the backend and register it in the statistics.
+     *
+     * @param fixedValues The fixed values for the variables. If a value is Integer.MIN_VALUE, the variable is not fixed.
+     * @return The result.
+     */
+    SolverResult solve(int[] fixedValues) {
+        return solve(fixedValues, null);
+    }
+
+    /**
+     * Solve the relaxation of the model and register it in the statistics.
+     * The flow relaxation is used when it's enabled and can represent the bounds, otherwise the backend.
+     *
+     * @param fixedValues The fixed values for the variables. If a value is Integer.MIN_VALUE, the variable is not fixed.
+     * @param warmStart   The result of the parent node, or null.
+     * @return The result.
+     */
+    SolverResult solve(int[] fixedValues, SolverResult warmStart) {
+        long buildStart = System.nanoTime();
+        double[] lower = model.getLowerBounds();
+        double[] upper = model.getUpperBounds();
+
         // Set the fixed values for the variables
-        if (fixedValues != null) {
-            MPVariable[] variables = solver.variables();
-            if (fixedValues.length == variables.length) {
-                for (int i = 0; i < fixedValues.length; i++) {
-                    if (fixedValues[i] != Integer.MIN_VALUE) {
-                        variables[i].setBounds(fixedValues[i], fixedValues[i]);
-                    }
+        if (fixedValues != null && fixedValues.length == lower.length) {
+            for (int i = 0; i < fixedValues.length; i++) {
+                if (fixedValues[i] != Integer.MIN_VALUE) {
+                    lower[i] = fixedValues[i];
+                    upper[i] = fixedValues[i];
                 }
             }
         }
+        long boundsTime = System.nanoTime() - buildStart;
 
-        return solver;
+        SolverResult result = null;
+        if (flow != null) {
+            result = flow.solve(lower, upper, warmStart instanceof FlowRelaxation.Solution solution ? solution : null);
+        }
+        if (result == null) {
+            result = backend.solve(model, lower, upper);
+        }
+        statistics.lpSolved(boundsTime + result.getBuildTime(), result.getSolveTime());
+        return result;
     }
 
     public Node getBestNode() {
         return bestNode;
     }
+
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public SolverBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Get the pool with the best solutions found by the search, ranked by their value.
+     *
+     * @return The solution pool.
+     * @see SearchOptions#setPoolSize(int)
+     */
+    public SolutionPool getSolutionPool() {
+        return pool;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Check if the search stopped before the end, by a limit or the stop condition of the options.
+     * In that case the best node is the best solution found, but it may not be optimal.
+     *
+     * @return True if the search stopped early.
+     * @see SolverStatistics#getBound()
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Get the subtrees left open by a stopped search, in the order they would be searched.
+     * Searching them, for example with the start nodes of the options, finishes the search.
+     *
+     * @return The subtrees, empty if the search wasn't stopped.
+     */
+    public List<Subtree> getOpenSubtrees() {
+        return openSubtrees == null ? List.of() : openSubtrees;
+    }
+
+    /**
+     * Get the sensitivity report of the best solution: the prices of the materials, the reduced costs of the units
+     * and the ranges of their costs. It's computed from the flows of the best structure of the pool, without solving
+     * again. The ranges of the fixed costs need a second structure in the pool, otherwise they are unknown.
+     *
+     * @return The report, or null if there is no solution.
+     * @see Sensitivity
+     */
+    public Sensitivity getSensitivity() {
+        List<SolutionPool.Solution> solutions = pool.getSolutions();
+        if (solutions.isEmpty()) return null;
+
+        double value = solutions.get(0).getValue();
+        double gap = solutions.size() > 1 ? solutions.get(1).getValue() - value : Double.NaN;
+        return new Sensitivity(units, capacities, solutions.get(0).getValues(), value, gap);
+    }
 }
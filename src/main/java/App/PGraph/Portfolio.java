@@ -0,0 +1,296 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Utils.TextTable;
+import App.PGraph.Utils.VariableState;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Portfolio of search configurations raced on the same problem.
+ * <p>
+ * Each configuration is a complete Branch and Bound search in its own thread, for example with another relaxation
+ * or branching rule. The searches share the incumbent: a solution found by one prunes the nodes of all the others.
+ * The first search that ends proves that the incumbent is optimal, so it wins and the others are stopped.
+ * The incumbent may have been found by another configuration, both are reported.
+ * <p>
+ * The searches keep a single solution, the shared cutoff is not valid with a pool of several solutions.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SearchOptions#setCutoff(java.util.function.DoubleSupplier)
+ */
+public class Portfolio {
+    private final List<OperatingUnit> units;
+    private final ArrayList<Run> runs;
+    private final AtomicBoolean done;
+    private volatile double cutoff;
+    private double[] values;
+    private String incumbentConfiguration;
+    private Run winner;
+
+    /**
+     * Constructor.
+     *
+     * @param units The list of operating units.
+     */
+    public Portfolio(List<OperatingUnit> units) {
+        this.units = units;
+        this.runs = new ArrayList<>();
+        this.done = new AtomicBoolean();
+        this.cutoff = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Add a configuration. Its options are copied when the portfolio is solved.
+     *
+     * @param name    The name of the configuration.
+     * @param options The options of its search.
+     * @throws IllegalArgumentException If the options keep several solutions.
+     */
+    public void add(String name, SearchOptions options) {
+        if (options.getPoolSize() != 1) throw new IllegalArgumentException("The configurations of a portfolio keep a single solution");
+        runs.add(new Run(name, options));
+    }
+
+    /**
+     * Add the default configurations: the relaxations with the branching rules in both directions.
+     * The flow relaxation is only added if the costs are non-negative.
+     *
+     * @param base The options shared by the configurations, like the limits.
+     */
+    public void addDefaults(SearchOptions base) {
+        boolean nonNegative = units.stream().allMatch(unit -> unit.getFixed_cost() >= 0 && unit.getProportional_cost() >= 0);
+
+        for (SearchOptions.Relaxation relaxation : SearchOptions.Relaxation.values()) {
+            if (relaxation == SearchOptions.Relaxation.FLOW && !nonNegative) continue;
+
+            for (SearchOptions.Branching branching : SearchOptions.Branching.values()) {
+                for (boolean upFirst : new boolean[]{false, true}) {
+                    SearchOptions options = base.copy();
+                    options.setRelaxation(relaxation);
+                    options.setBranching(branching);
+                    options.setUpFirst(upFirst);
+                    add(name(options), options);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the name of a configuration from its options, for example "lp/first/down".
+     *
+     * @param options The options.
+     * @return The name.
+     */
+    public static String name(SearchOptions options) {
+        return (options.getRelaxation() + "/" + options.getBranching() + "/" + (options.isUpFirst() ? "up" : "down"))
+                .toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Race the configurations until one of them ends. Each configuration gets a copy of the backend.
+     * With fewer threads than configurations, the ones that start after the end are not run.
+     *
+     * @param threads The maximum number of configurations solved at the same time.
+     * @throws InterruptedException If the thread is interrupted while waiting for the configurations.
+     */
+    public void solve(int threads) throws InterruptedException {
+        if (runs.isEmpty()) throw new IllegalStateException("The portfolio has no configurations");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, runs.size())));
+        try {
+            ArrayList<Future<?>> futures = new ArrayList<>();
+            for (Run run : runs) futures.add(executor.submit(() -> race(run)));
+            for (Future<?> future : futures) future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A configuration couldn't be solved", e.getCause());
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the search of a configuration, sharing the incumbent, until it ends or another one wins.
+     *
+     * @param run The configuration.
+     */
+    private void race(Run run) {
+        if (done.get()) return;
+
+        SearchOptions options = run.options.copy();
+        var stopCondition = run.options.getStopCondition();
+        options.setStopCondition(() -> done.get() || (stopCondition != null && stopCondition.getAsBoolean()));
+        options.setCutoff(() -> cutoff);
+        options.setIncumbentListener((solution, value) -> offer(run.name, solution, value));
+
+        long start = System.nanoTime();
+        PGraph graph = new PGraph(new ArrayList<>(units), options);
+        run.time = System.nanoTime() - start;
+        run.graph = graph;
+
+        // A search that isn't stopped has proved that no solution improves the incumbent
+        if (!graph.isStopped() && done.compareAndSet(false, true)) {
+            synchronized (this) {
+                winner = run;
+            }
+        }
+    }
+
+    /**
+     * Offer a solution of a configuration. It's the new incumbent if it improves the current one.
+     *
+     * @param name     The name of the configuration.
+     * @param solution The values of the variables.
+     * @param value    The value of the solution.
+     */
+    private synchronized void offer(String name, double[] solution, double value) {
+        if (value >= cutoff) return;
+        cutoff = value;
+        values = solution.clone();
+        incumbentConfiguration = name;
+    }
+
+    /**
+     * Get the configuration that proved the optimality of the incumbent.
+     *
+     * @return The name, or null if every configuration was stopped by its limits.
+     */
+    public synchronized String getWinner() {
+        return winner == null ? null : winner.name;
+    }
+
+    /**
+     * Get the configuration that found the incumbent.
+     *
+     * @return The name, or null if no solution was found.
+     */
+    public synchronized String getIncumbentConfiguration() {
+        return incumbentConfiguration;
+    }
+
+    /**
+     * Check if a solution was found.
+     *
+     * @return True if there is an incumbent.
+     */
+    public synchronized boolean isFeasible() {
+        return values != null;
+    }
+
+    /**
+     * Get the value of the incumbent.
+     *
+     * @return The value, NaN if no solution was found.
+     */
+    public synchronized double getValue() {
+        return values == null ? Double.NaN : cutoff;
+    }
+
+    /**
+     * Get the variables of the incumbent, with the names of the model.
+     *
+     * @return The variables, empty if no solution was found.
+     */
+    public synchronized HashSet<VariableState> getVariables() {
+        if (values == null) return new HashSet<>();
+        for (Run run : runs) {
+            if (run.graph != null) return run.graph.getVariableStates(values);
+        }
+        return new HashSet<>();
+    }
+
+    /**
+     * Get the names of the units opened by the incumbent.
+     *
+     * @return The names, empty if no solution was found.
+     */
+    public synchronized List<String> getSelectedUnits() {
+        ArrayList<String> selected = new ArrayList<>();
+        if (values == null) return selected;
+        for (int i = 0; i < units.size(); i++) {
+            if (values[PGraph.yIndex(i)] > 0.5) selected.add(units.get(i).getName());
+        }
+        return selected;
+    }
+
+    /**
+     * Get the configurations in the order they were added.
+     *
+     * @return The configurations.
+     */
+    public List<Run> getRuns() {
+        return Collections.unmodifiableList(runs);
+    }
+
+    /**
+     * Format the runs as a table, one row per configuration.
+     *
+     * @return The table.
+     */
+    public String toTable() {
+        String[] header = {"Configuration", "Status", "Nodes", "LPs", "Time (ms)"};
+        ArrayList<String[]> rows = new ArrayList<>();
+        rows.add(header);
+        for (Run run : runs) {
+            PGraph graph = run.graph;
+            rows.add(new String[]{
+                    run.name,
+                    graph == null ? "not run" : run == winner ? "won" : graph.isStopped() ? "stopped" : "ended",
+                    graph == null ? "-" : String.valueOf(graph.getStatistics().getNodes()),
+                    graph == null ? "-" : String.valueOf(graph.getStatistics().getLpSolves()),
+                    graph == null ? "-" : String.format(Locale.ROOT, "%.1f", run.time / 1e6)
+            });
+        }
+
+        // The configuration and the status are text, the other columns are numbers
+        return TextTable.format(rows, 0, 1);
+    }
+
+    /**
+     * A configuration of the portfolio and its search.
+     */
+    public static class Run {
+        private final String name;
+        private final SearchOptions options;
+        private volatile PGraph graph;
+        private volatile long time;
+
+        Run(String name, SearchOptions options) {
+            this.name = name;
+            this.options = options;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public SearchOptions getOptions() {
+            return options;
+        }
+
+        /**
+         * Get the search of the configuration.
+         *
+         * @return The graph, or null if the configuration didn't run.
+         */
+        public PGraph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Get the time of the search.
+         *
+         * @return Nanoseconds.
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+}
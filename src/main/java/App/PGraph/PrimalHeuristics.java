@@ -0,0 +1,264 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.SolverResult;
+
+import java.util.*;
+
+/**
+ * Primal heuristics used to find an incumbent before the Branch and Bound algorithm finds an integer node.
+ * Every solution found is an assignment of the Y variables that is evaluated with an LP where those
+ * variables are fixed, and it is offered to the graph as a new incumbent.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+class PrimalHeuristics {
+    /**
+     * Number of evaluated nodes between two executions of the heuristics during the search.
+     */
+    static final int FREQUENCY = 10;
+    private static final double EPSILON = 1e-6;
+    private final PGraph graph;
+
+    /**
+     * Constructor.
+     *
+     * @param graph The graph that receives the solutions.
+     */
+    PrimalHeuristics(PGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Run all the heuristics. Used at the root node, before branching.
+     *
+     * @param values The solved values of the root relaxation.
+     */
+    void runAtRoot(double[] values) {
+        greedy();
+        rounding(values);
+        diving(null, values);
+    }
+
+    /**
+     * Run the heuristics that start from the relaxation of a node. Used periodically during the search.
+     *
+     * @param fixedValues The fixed values of the node.
+     * @param values      The solved values of the node.
+     */
+    void runAtNode(int[] fixedValues, double[] values) {
+        rounding(values);
+        diving(fixedValues, values);
+    }
+
+    /**
+     * LP rounding: every unit with flow in the relaxation is opened and every other unit is closed.
+     * Rounding the Y variables up never breaks the capacity constraints, so the result is feasible
+     * whenever the relaxation was.
+     *
+     * @param values The solved values of a relaxation.
+     * @return True if a new incumbent was found.
+     */
+    boolean rounding(double[] values) {
+        int[] fixedValues = emptyFixedValues();
+
+        for (int i = 0; i < graph.units.size(); i++) {
+            fixedValues[PGraph.yIndex(i)] = values[PGraph.yIndex(i)] > EPSILON ? 1 : 0;
+        }
+
+        return evaluate(fixedValues);
+    }
+
+    /**
+     * Diving: the fractional Y variable with the largest value is fixed to 1 and the relaxation is solved again,
+     * until all the Y variables are integer or the relaxation becomes infeasible.
+     *
+     * @param fixedValues The fixed values where the dive starts, null for the root.
+     * @param values      The solved values of the relaxation where the dive starts.
+     * @return True if a new incumbent was found.
+     */
+    boolean diving(int[] fixedValues, double[] values) {
+        int[] diveValues = fixedValues == null ? emptyFixedValues() : Arrays.copyOf(fixedValues, fixedValues.length);
+        // Each step warm starts from the previous one when the flow relaxation is used
+        SolverResult last = null;
+
+        for (int step = 0; step < graph.units.size(); step++) {
+            int candidate = -1;
+            for (int i = 0; i < graph.units.size(); i++) {
+                int index = PGraph.yIndex(i);
+                double value = values[index];
+                if (diveValues[index] != Integer.MIN_VALUE || Math.abs(value - Math.rint(value)) <= EPSILON) continue;
+                if (candidate < 0 || value > values[candidate]) candidate = index;
+            }
+
+            // All the Y variables are integer, the relaxation is a solution.
+            if (candidate < 0) {
+                for (int i = 0; i < graph.units.size(); i++) {
+                    int index = PGraph.yIndex(i);
+                    if (diveValues[index] == Integer.MIN_VALUE) diveValues[index] = (int) Math.rint(values[index]);
+                }
+                return evaluate(diveValues);
+            }
+
+            diveValues[candidate] = 1;
+            SolverResult result = graph.solve(diveValues, last);
+            if (!result.isOptimal()) return false;
+
+            last = result;
+
+            values = result.getValues();
+
+            // Stop diving when the bound can't improve the incumbent.
+            if (result.getObjective() >= graph.getCutoff() - EPSILON) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Greedy construction: starting from the products, every required material is produced by its cheapest
+     * producer for the required amount, and the input of that producer becomes a new requirement.
+     *
+     * @return True if a new incumbent was found.
+     */
+    boolean greedy() {
+        // Producers of each material
+        HashMap<Material, ArrayList<Integer>> materialMap = new HashMap<>();
+        for (int i = 0; i < graph.units.size(); i++) {
+            materialMap.computeIfAbsent(graph.units.get(i).getOutputMaterial(), material -> new ArrayList<>()).add(i);
+        }
+
+        int[] fixedValues = emptyFixedValues();
+        double[] flows = new double[graph.units.size()];
+
+        ArrayDeque<Material> pending = new ArrayDeque<>();
+        HashMap<Material, Double> required = new HashMap<>();
+        for (Material material : materialMap.keySet()) {
+            if (material.getLower_bound() > 0) {
+                required.put(material, (double) material.getLower_bound());
+                pending.add(material);
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            Material material = pending.poll();
+            double amount = required.remove(material);
+            var producers = materialMap.get(material);
+
+            // Raw materials don't need a producer
+            if (producers == null) continue;
+
+            while (amount > EPSILON) {
+                int cheapest = -1;
+                double cheapestCost = Double.POSITIVE_INFINITY;
+
+                for (int i : producers) {
+                    OperatingUnit unit = graph.units.get(i);
+                    double available = graph.capacities[i] - flows[i];
+                    if (available <= EPSILON) continue;
+
+                    double flow = Math.min(available, amount);
+                    double cost = unit.getProportional_cost() * flow + (flows[i] > 0 ? 0 : unit.getFixed_cost());
+                    if (cost / flow < cheapestCost) {
+                        cheapestCost = cost / flow;
+                        cheapest = i;
+                    }
+                }
+
+                // There is no capacity left to produce the material.
+                if (cheapest < 0) return false;
+
+                OperatingUnit unit = graph.units.get(cheapest);
+                double flow = Math.min(graph.capacities[cheapest] - flows[cheapest], amount);
+                flows[cheapest] += flow;
+                fixedValues[PGraph.yIndex(cheapest)] = 1;
+                amount -= flow;
+
+                if (required.merge(unit.getInputMaterial(), flow, Double::sum) == flow) {
+                    pending.add(unit.getInputMaterial());
+                }
+            }
+        }
+
+        for (int i = 0; i < graph.units.size(); i++) {
+            if (fixedValues[PGraph.yIndex(i)] == Integer.MIN_VALUE) fixedValues[PGraph.yIndex(i)] = 0;
+        }
+
+        return evaluate(fixedValues);
+    }
+
+    /**
+     * Start structure: the given units are opened and every other unit is closed.
+     * <p>
+     * If the structure is infeasible for this problem, for example because a demand grew or a unit was removed, it's
+     * repaired: the given units stay open, the other ones are freed, and the relaxation is solved and dived from
+     * there until every Y variable is integer.
+     *
+     * @param names The names of the open units.
+     * @return True if a new incumbent was found.
+     * @see SearchOptions#setStartStructure(Collection)
+     */
+    boolean structure(Set<String> names) {
+        int[] fixedValues = emptyFixedValues();
+
+        for (int i = 0; i < graph.units.size(); i++) {
+            fixedValues[PGraph.yIndex(i)] = names.contains(graph.units.get(i).getName()) ? 1 : 0;
+        }
+
+        if (evaluate(fixedValues)) return true;
+
+        int[] repairValues = emptyFixedValues();
+        for (int i = 0; i < graph.units.size(); i++) {
+            if (fixedValues[PGraph.yIndex(i)] == 1) repairValues[PGraph.yIndex(i)] = 1;
+        }
+
+        SolverResult result = graph.solve(repairValues);
+        return result.isOptimal() && diving(repairValues, result.getValues());
+    }
+
+    /**
+     * Solve the relaxation with the given fixed values and offer it as an incumbent if it's feasible.
+     *
+     * @param fixedValues The fixed values, all the Y variables must be fixed.
+     * @return True if a new incumbent was found.
+     */
+    private boolean evaluate(int[] fixedValues) {
+        // Interchangeable units are opened in the order required by the symmetry constraints
+        graph.symmetry.canonicalize(fixedValues);
+
+        SolverResult result = graph.solve(fixedValues);
+        if (!result.isOptimal()) return false;
+
+        Node node = new Node();
+        node.getSolutionStatus().setValue(result.getObjective());
+        node.getSolutionStatus().setVariables(graph.getVariableStates(result));
+
+        return graph.updateIncumbent(node, result.getValues());
+    }
+
+    /**
+     * Get fixed values with no fixed variable.
+     *
+     * @return Array filled with Integer.MIN_VALUE.
+     */
+    private int[] emptyFixedValues() {
+        return emptyFixedValues(graph.units.size() * 2);
+    }
+
+    /**
+     * Get fixed values with no fixed variable.
+     *
+     * @param variables The number of variables.
+     * @return Array filled with Integer.MIN_VALUE.
+     */
+    static int[] emptyFixedValues(int variables) {
+        int[] fixedValues = new int[variables];
+        Arrays.fill(fixedValues, Integer.MIN_VALUE);
+        return fixedValues;
+    }
+}
@@ -0,0 +1,349 @@
+package App.PGraph;
+
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Utils.NodeStore;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Options of the Branch and Bound search of a PGraph.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+public class SearchOptions {
+    private SolverBackend backend;
+    private Relaxation relaxation;
+    private NodeStore nodeStore;
+    private Path checkpointFile;
+    private Duration checkpointInterval;
+    private long checkpointNodes;
+    private boolean resume;
+    private int poolSize;
+    private Set<String> startStructure;
+    private PGraph previous;
+    private Duration timeLimit;
+    private long nodeLimit;
+    private BooleanSupplier stopCondition;
+    private List<Subtree> startNodes;
+    private DoubleSupplier cutoff;
+    private ObjDoubleConsumer<double[]> incumbentListener;
+    private Branching branching;
+    private boolean upFirst;
+
+    /**
+     * Default constructor. The relaxations are linear programs solved with the default backend.
+     */
+    public SearchOptions() {
+        this(null);
+    }
+
+    /**
+     * Constructor with the backend used to solve the relaxations.
+     *
+     * @param backend The solver backend, or null to use the default one.
+     */
+    public SearchOptions(SolverBackend backend) {
+        this.backend = backend;
+        this.relaxation = Relaxation.LP;
+        this.poolSize = 1;
+        this.branching = Branching.FIRST;
+    }
+
+    /**
+     * Copy the options for a search in another thread. The backend is copied because it can't be shared,
+     * and the node store, the checkpoint file and the previous graph are not kept for the same reason.
+     * The start nodes, the cutoff and the incumbent listener belong to a single search, so they are not kept either.
+     *
+     * @return The new options.
+     */
+    public SearchOptions copy() {
+        SearchOptions copy = new SearchOptions(getBackend().copy());
+        copy.relaxation = relaxation;
+        copy.checkpointInterval = checkpointInterval;
+        copy.checkpointNodes = checkpointNodes;
+        copy.poolSize = poolSize;
+        copy.startStructure = startStructure;
+        copy.timeLimit = timeLimit;
+        copy.nodeLimit = nodeLimit;
+        copy.stopCondition = stopCondition;
+        copy.branching = branching;
+        copy.upFirst = upFirst;
+        return copy;
+    }
+
+    /**
+     * Get the solver backend. The default one is created the first time if none was given.
+     *
+     * @return The solver backend.
+     * @see SolverBackend#getDefault()
+     */
+    public SolverBackend getBackend() {
+        if (backend == null) backend = SolverBackend.getDefault();
+        return backend;
+    }
+
+    public void setBackend(SolverBackend backend) {
+        this.backend = backend;
+    }
+
+    public Relaxation getRelaxation() {
+        return relaxation;
+    }
+
+    public void setRelaxation(Relaxation relaxation) {
+        this.relaxation = relaxation;
+    }
+
+    public NodeStore getNodeStore() {
+        return nodeStore;
+    }
+
+    /**
+     * Keep the search tree in an off-heap store instead of the heap. Only the current path of the search
+     * and the best node stay in the heap, and the other nodes are read from the store when they are requested.
+     *
+     * @param nodeStore The store, with one value for each variable of the model, or null to keep the tree in the heap.
+     * @see StoredNode
+     */
+    public void setNodeStore(NodeStore nodeStore) {
+        this.nodeStore = nodeStore;
+    }
+
+    /**
+     * Write periodic checkpoints of the search. A checkpoint is written when any of the intervals has passed.
+     *
+     * @param file     The checkpoint file, replaced by every checkpoint. Null to disable the checkpoints.
+     * @param interval The time between checkpoints, or null to use only the number of nodes.
+     * @param nodes    The number of evaluated nodes between checkpoints, or 0 to use only the time.
+     */
+    public void setCheckpoint(Path file, Duration interval, long nodes) {
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+        this.checkpointNodes = nodes;
+    }
+
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public Duration getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public long getCheckpointNodes() {
+        return checkpointNodes;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    /**
+     * Continue the search from the checkpoint file if it exists, instead of starting from the root.
+     *
+     * @param resume True to resume the search.
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Keep the given number of best solutions. With more than one, the search doesn't stop at the integer nodes
+     * and only prunes the nodes that can't improve the worst solution of the pool, so it evaluates more nodes.
+     *
+     * @param poolSize The number of solutions, 1 to keep only the best one.
+     * @see SolutionPool
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public Set<String> getStartStructure() {
+        return startStructure;
+    }
+
+    /**
+     * Start the search with the structure that opens the given units as incumbent, for example the optimum of a
+     * similar problem. Its flows are solved before the root, and the search only explores the nodes that improve it.
+     * If it's infeasible for the problem, it's repaired keeping the given units open. The names of units that aren't
+     * in the problem are ignored.
+     *
+     * @param units The names of the open units, the other units are closed. Null to start without incumbent.
+     * @see App.PGraph.Utils.SolutionFile
+     */
+    public void setStartStructure(Collection<String> units) {
+        this.startStructure = units == null ? null : Set.copyOf(units);
+    }
+
+    public PGraph getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Solve the problem incrementally from the search of a previous version of the same problem, for example after
+     * editing some costs. The previous solutions are the first incumbents and the previous tree is replayed, reusing
+     * its nodes where they are still valid. The previous graph is ignored if its units or materials are different.
+     *
+     * @param previous The graph of the previous search, or null to search from the root.
+     * @see Incremental
+     */
+    public void setPrevious(PGraph previous) {
+        this.previous = previous;
+    }
+
+    public Duration getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Stop the search when the time has passed. The best node found so far is kept, but it may not be optimal.
+     *
+     * @param timeLimit The maximum time of the search, or null for no limit.
+     * @see PGraph#isStopped()
+     */
+    public void setTimeLimit(Duration timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    /**
+     * Stop the search after evaluating the given number of nodes.
+     *
+     * @param nodeLimit The maximum number of evaluated nodes, or 0 for no limit.
+     * @see PGraph#isStopped()
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public BooleanSupplier getStopCondition() {
+        return stopCondition;
+    }
+
+    /**
+     * Stop the search when the condition is true, for example when it's cancelled from another thread.
+     * The condition is checked before each node, and it's shared by the copies of the options.
+     *
+     * @param stopCondition The condition, or null to never stop before the end.
+     * @see PGraph#isStopped()
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    public List<Subtree> getStartNodes() {
+        return startNodes;
+    }
+
+    /**
+     * Search only the given subtrees instead of the whole tree, for example the subtrees sent by a coordinator.
+     * The subtrees hang from a chain of placeholder nodes, like in a resumed search.
+     *
+     * @param startNodes The subtrees, in the order they are searched, or null to search the whole tree.
+     * @see PGraph#getOpenSubtrees()
+     */
+    public void setStartNodes(List<Subtree> startNodes) {
+        this.startNodes = startNodes;
+    }
+
+    public DoubleSupplier getCutoff() {
+        return cutoff;
+    }
+
+    /**
+     * Prune the nodes that can't improve a value found outside the search, for example the incumbent of
+     * another process. The supplier is read at every node, so the value can improve during the search.
+     * It must be a value of a solution of the problem, and it's only valid with a pool of one solution.
+     *
+     * @param cutoff The supplier of the value, or null to use only the solutions of the search.
+     */
+    public void setCutoff(DoubleSupplier cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    public ObjDoubleConsumer<double[]> getIncumbentListener() {
+        return incumbentListener;
+    }
+
+    /**
+     * Receive each new incumbent of the search with the values of the variables of the model and its value.
+     * It's called from the thread of the search.
+     *
+     * @param incumbentListener The listener, or null.
+     */
+    public void setIncumbentListener(ObjDoubleConsumer<double[]> incumbentListener) {
+        this.incumbentListener = incumbentListener;
+    }
+
+    public Branching getBranching() {
+        return branching;
+    }
+
+    public void setBranching(Branching branching) {
+        this.branching = branching;
+    }
+
+    public boolean isUpFirst() {
+        return upFirst;
+    }
+
+    /**
+     * Evaluate the child that rounds the branched variable up before the one that rounds it down.
+     * Opening units first usually finds an incumbent sooner, closing them first keeps the structures small.
+     *
+     * @param upFirst True to go up first.
+     */
+    public void setUpFirst(boolean upFirst) {
+        this.upFirst = upFirst;
+    }
+
+    /**
+     * Rule to choose the variable to branch on.
+     */
+    public enum Branching {
+        /**
+         * The first Y variable with a fractional value, in the order of the units.
+         */
+        FIRST,
+        /**
+         * The Y variable whose value is the farthest from an integer.
+         */
+        MOST_FRACTIONAL
+    }
+
+    /**
+     * Relaxation solved at each node.
+     */
+    public enum Relaxation {
+        /**
+         * Linear program solved with the backend, including the cutting planes.
+         */
+        LP,
+        /**
+         * Min-cost flow over the material graph, reoptimized from the parent node.
+         * The search falls back to the linear program if the problem has negative costs.
+         */
+        FLOW,
+        /**
+         * Lagrangian relaxation of the material balances, with subgradient multipliers. It bounds each node first,
+         * and the linear program is only solved for the nodes it can't prune.
+         */
+        LAGRANGIAN
+    }
+}
@@ -0,0 +1,469 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Utils.TextTable;
+
+import java.util.*;
+
+/**
+ * Sensitivity report of the optimal solution, computed from its flows without solving again.
+ * <p>
+ * With the Y variables fixed to the optimal structure, the linear program is a min-cost flow over the material graph,
+ * where the outside world supplies the raw materials and takes the produced materials. The optimal flow has no
+ * negative cycle in its residual graph, so the shortest paths of that graph give:
+ * - The price of each material: the dual value of its Origin-Destination constraint, the cost of producing one more
+ * unit of it. A material that the structure can't produce more of is priced with the closed units, with their fixed
+ * cost spread over their capacity as in the linear relaxation.
+ * - The reduced cost of each unit: its proportional cost minus the difference between the prices of its output and
+ * its input. It's zero for the units with flow below their capacity, and negative for the units that would save cost
+ * with more capacity, or if they were opened. The cost of a closed unit includes its fixed cost spread over its
+ * capacity, the same cost used for the prices.
+ * - The range of the proportional cost of each open unit where the flows stay optimal, from the shortest path that
+ * goes around the unit. Within the range the value of the structure changes by the flow of the unit times the change.
+ * <p>
+ * Whether the structure itself stays optimal depends on the other structures, which are only known through the
+ * solution pool: a change is safe while it's smaller than the gap to the second best structure, and always when an
+ * open unit gets cheaper or a closed unit more expensive. Without a second structure in the pool the gap is unknown,
+ * and only the second case is known.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph#getSensitivity()
+ */
+public class Sensitivity {
+    private static final double EPSILON = 1e-9;
+    private final double value;
+    private final double gap;
+    private final List<MaterialPrice> prices;
+    private final List<UnitSensitivity> units;
+    // Residual graph: the outside world is the last node
+    private final int nodes;
+    private final int[] from;
+    private final int[] to;
+    private final double[] costs;
+    private final int[] arcUnits;
+    private final int[] first;
+    private final int[] next;
+    private final double[] potential;
+
+    /**
+     * Constructor.
+     *
+     * @param units      The list of operating units.
+     * @param capacities The capacities of the units tightened by the bound propagation.
+     * @param values     The values of the optimal solution, X1, Y1, X2, Y2, ...
+     * @param value      The optimal value.
+     * @param gap        The difference between the second best structure and the optimal one, NaN if it's unknown.
+     */
+    Sensitivity(List<OperatingUnit> units, double[] capacities, double[] values, double value, double gap) {
+        this.value = value;
+        this.gap = gap;
+
+        LinkedHashMap<Material, Integer> materials = new LinkedHashMap<>();
+        HashSet<Material> produced = new HashSet<>();
+        for (OperatingUnit unit : units) {
+            materials.putIfAbsent(unit.getInputMaterial(), materials.size());
+            materials.putIfAbsent(unit.getOutputMaterial(), materials.size());
+            produced.add(unit.getOutputMaterial());
+        }
+
+        nodes = materials.size() + 1;
+        int world = materials.size();
+
+        // Net production of each material
+        double[] balance = new double[materials.size()];
+        for (int i = 0; i < units.size(); i++) {
+            double x = values[PGraph.xIndex(i)];
+            balance[materials.get(units.get(i).getOutputMaterial())] += x;
+            balance[materials.get(units.get(i).getInputMaterial())] -= x;
+        }
+
+        // Arcs of the residual graph, with the unit that owns each one or -1
+        ArrayList<double[]> arcs = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            int u = materials.get(units.get(i).getInputMaterial());
+            int v = materials.get(units.get(i).getOutputMaterial());
+            double x = values[PGraph.xIndex(i)];
+            // The capacities tightened by the bound propagation depend on the demands, the prices need the real ones
+            double capacity = values[PGraph.yIndex(i)] > 0.5 ? units.get(i).getCapacity_upper_bound() : 0;
+            double cost = units.get(i).getProportional_cost();
+
+            if (capacity - x > EPSILON) arcs.add(new double[]{u, v, cost, i});
+            if (x > EPSILON) arcs.add(new double[]{v, u, -cost, i});
+        }
+        for (var entry : materials.entrySet()) {
+            int m = entry.getValue();
+            if (!produced.contains(entry.getKey())) {
+                // Raw material: the world supplies what is consumed
+                arcs.add(new double[]{world, m, 0, -1});
+                if (-balance[m] > EPSILON) arcs.add(new double[]{m, world, 0, -1});
+            } else {
+                // Produced material: the world takes the production, at least the lower bound
+                arcs.add(new double[]{m, world, 0, -1});
+                if (balance[m] - entry.getKey().getLower_bound() > EPSILON) arcs.add(new double[]{world, m, 0, -1});
+            }
+        }
+
+        from = new int[arcs.size()];
+        to = new int[arcs.size()];
+        costs = new double[arcs.size()];
+        arcUnits = new int[arcs.size()];
+        first = new int[nodes];
+        next = new int[arcs.size()];
+        Arrays.fill(first, -1);
+        for (int a = 0; a < arcs.size(); a++) {
+            from[a] = (int) arcs.get(a)[0];
+            to[a] = (int) arcs.get(a)[1];
+            costs[a] = arcs.get(a)[2];
+            arcUnits[a] = (int) arcs.get(a)[3];
+            next[a] = first[from[a]];
+            first[from[a]] = a;
+        }
+
+        // Potentials from a virtual node joined to every node, they make the reduced costs of the arcs non-negative
+        potential = new double[nodes];
+        for (int k = 0; k < nodes; k++) {
+            boolean changed = false;
+            for (int a = 0; a < from.length; a++) {
+                if (potential[from[a]] + costs[a] < potential[to[a]] - EPSILON) {
+                    potential[to[a]] = potential[from[a]] + costs[a];
+                    changed = true;
+                }
+            }
+            if (!changed) break;
+        }
+
+        double[] price = shortestPaths(world, -1);
+
+        // The materials without a path in the structure are priced with the closed units, with the cost they have in
+        // the linear relaxation
+        boolean[] unpriced = new boolean[nodes];
+        for (int m = 0; m < nodes; m++) unpriced[m] = price[m] == Double.POSITIVE_INFINITY;
+        for (int k = 0; k < nodes; k++) {
+            boolean changed = false;
+            for (int i = 0; i < units.size(); i++) {
+                OperatingUnit unit = units.get(i);
+                int v = materials.get(unit.getOutputMaterial());
+                if (values[PGraph.yIndex(i)] > 0.5 || !unpriced[v] || unit.getCapacity_upper_bound() <= 0) continue;
+
+                double candidate = price[materials.get(unit.getInputMaterial())] + unit.getProportional_cost()
+                        + (double) unit.getFixed_cost() / unit.getCapacity_upper_bound();
+                if (candidate < price[v] - EPSILON) {
+                    price[v] = candidate;
+                    changed = true;
+                }
+            }
+            if (!changed) break;
+        }
+        prices = new ArrayList<>();
+        for (var entry : materials.entrySet()) {
+            if (produced.contains(entry.getKey())) {
+                prices.add(new MaterialPrice(entry.getKey(), price[entry.getValue()], balance[entry.getValue()]));
+            }
+        }
+
+        this.units = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            OperatingUnit unit = units.get(i);
+            int u = materials.get(unit.getInputMaterial());
+            int v = materials.get(unit.getOutputMaterial());
+            double x = values[PGraph.xIndex(i)];
+            boolean open = values[PGraph.yIndex(i)] > 0.5;
+            double cost = unit.getProportional_cost();
+
+            double unitCost = open || unit.getCapacity_upper_bound() <= 0 ? cost
+                    : cost + (double) unit.getFixed_cost() / unit.getCapacity_upper_bound();
+            double reducedCost = Double.isFinite(price[u]) && Double.isFinite(price[v]) ? unitCost + price[u] - price[v] : Double.NaN;
+            if (Math.abs(reducedCost) < 1e-7) reducedCost = 0;
+
+            // A negative cycle appears when the unit gets more expensive than the path around it,
+            // or cheaper than the way back from its output to its input
+            double increase = Double.POSITIVE_INFINITY;
+            double decrease = Double.POSITIVE_INFINITY;
+            if (open && x > EPSILON) increase = Math.max(0, shortestPaths(u, i)[v] - cost);
+            if (open && unit.getCapacity_upper_bound() - x > EPSILON) decrease = Math.max(0, cost + shortestPaths(v, i)[u]);
+
+            this.units.add(new UnitSensitivity(unit, open, x, capacities[i], reducedCost, decrease, increase,
+                    open ? Double.POSITIVE_INFINITY : gap, open ? gap : Double.POSITIVE_INFINITY));
+        }
+    }
+
+    /**
+     * Dijkstra over the residual graph with the reduced costs of the potentials.
+     *
+     * @param start   The first node.
+     * @param exclude The unit whose arcs are not used, -1 to use all the arcs.
+     * @return The length of the shortest path to each node with the original costs, infinity if there is none.
+     */
+    private double[] shortestPaths(int start, int exclude) {
+        double[] distance = new double[nodes];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[start] = 0;
+
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[1]));
+        queue.add(new double[]{start, 0});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int u = (int) entry[0];
+            if (entry[1] > distance[u]) continue;
+
+            for (int a = first[u]; a >= 0; a = next[a]) {
+                if (exclude >= 0 && arcUnits[a] == exclude) continue;
+                double candidate = distance[u] + Math.max(0, costs[a] + potential[u] - potential[to[a]]);
+                if (candidate < distance[to[a]] - EPSILON) {
+                    distance[to[a]] = candidate;
+                    queue.add(new double[]{to[a], candidate});
+                }
+            }
+        }
+
+        for (int v = 0; v < nodes; v++) {
+            if (distance[v] < Double.POSITIVE_INFINITY) distance[v] += potential[v] - potential[start];
+        }
+        return distance;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Get the prices of the produced materials.
+     *
+     * @return The list of prices, in the order the materials appear in the units.
+     */
+    public List<MaterialPrice> getPrices() {
+        return prices;
+    }
+
+    /**
+     * Get the sensitivity of each unit.
+     *
+     * @return The list, in the order of the units.
+     */
+    public List<UnitSensitivity> getUnits() {
+        return units;
+    }
+
+    /**
+     * Get the value of the optimal structure after changing the costs of a unit. The flows are optimal again while the
+     * change of the proportional cost is within its range, and the fixed cost only adds its change if the unit is open.
+     *
+     * @param unit                   The index of the unit.
+     * @param fixedCostChange        The change of its fixed cost.
+     * @param proportionalCostChange The change of its proportional cost.
+     * @return The value of the structure, or NaN if the proportional cost is out of its range and the flows change.
+     * @see #isStillOptimal(int, double, double)
+     */
+    public double estimate(int unit, double fixedCostChange, double proportionalCostChange) {
+        UnitSensitivity sensitivity = units.get(unit);
+        if (!sensitivity.isInProportionalCostRange(proportionalCostChange)) return Double.NaN;
+
+        return value + (sensitivity.isOpen() ? fixedCostChange : 0) + sensitivity.getFlow() * proportionalCostChange;
+    }
+
+    /**
+     * Check if the optimal structure is still optimal after changing the costs of a unit, so the estimate is the
+     * new optimal value. Any other structure changes at least by the decrease of the fixed cost plus the decrease of
+     * the proportional cost times the capacity, and the structure is still optimal if its own change is not larger
+     * than that plus the gap to the second best structure, or than that alone when the gap is unknown.
+     *
+     * @param unit                   The index of the unit.
+     * @param fixedCostChange        The change of its fixed cost.
+     * @param proportionalCostChange The change of its proportional cost.
+     * @return True if the structure is known to be optimal, false if a new search is needed to know.
+     */
+    public boolean isStillOptimal(int unit, double fixedCostChange, double proportionalCostChange) {
+        double estimate = estimate(unit, fixedCostChange, proportionalCostChange);
+        if (Double.isNaN(estimate)) return false;
+
+        UnitSensitivity sensitivity = units.get(unit);
+        double others = Math.min(0, fixedCostChange) + Math.min(0, proportionalCostChange) * sensitivity.getCapacity();
+        return estimate - value <= others + (Double.isNaN(gap) ? 0 : gap) + 1e-7;
+    }
+
+    /**
+     * Get the rows of the table of the materials, with a header row first.
+     *
+     * @return The rows: material, price and net production.
+     */
+    public List<String[]> getMaterialRows() {
+        ArrayList<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Material", "Price", "Production"});
+        for (MaterialPrice price : prices) {
+            rows.add(new String[]{price.getMaterial().getName(), format(price.getPrice()), format(price.getProduction())});
+        }
+        return rows;
+    }
+
+    /**
+     * Get the rows of the table of the units, with a header row first.
+     *
+     * @return The rows: unit, open, flow, reduced cost and the ranges of the proportional and fixed costs.
+     */
+    public List<String[]> getUnitRows() {
+        ArrayList<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Unit", "Open", "Flow", "Reduced cost", "Proportional cost range", "Fixed cost range"});
+        for (UnitSensitivity unit : units) {
+            OperatingUnit operatingUnit = unit.getUnit();
+            rows.add(new String[]{operatingUnit.getName(), unit.isOpen() ? "yes" : "no", format(unit.getFlow()), format(unit.getReducedCost()),
+                    range(operatingUnit.getProportional_cost(), unit.getProportionalCostDecrease(), unit.getProportionalCostIncrease()),
+                    range(operatingUnit.getFixed_cost(), unit.getFixedCostDecrease(), unit.getFixedCostIncrease())});
+        }
+        return rows;
+    }
+
+    /**
+     * Format the report as two tables, one for the materials and one for the units.
+     *
+     * @return The tables.
+     */
+    public String toTable() {
+        return TextTable.format(getMaterialRows(), 0) + "\n" + TextTable.format(getUnitRows(), 0);
+    }
+
+    private static String range(double cost, double decrease, double increase) {
+        return "[" + (Double.isNaN(decrease) ? "?" : format(cost - decrease)) + ", "
+                + (Double.isNaN(increase) ? "?" : format(cost + increase)) + "]";
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "-";
+        if (Double.isInfinite(value)) return value > 0 ? "inf" : "-inf";
+        return String.format(Locale.ROOT, "%.4f", value).replaceAll("\\.?0+$", "");
+    }
+
+    /**
+     * Price of a produced material.
+     */
+    public static class MaterialPrice {
+        private final Material material;
+        private final double price;
+        private final double production;
+
+        MaterialPrice(Material material, double price, double production) {
+            this.material = material;
+            this.price = price;
+            this.production = production;
+        }
+
+        public Material getMaterial() {
+            return material;
+        }
+
+        /**
+         * Get the dual value of the Origin-Destination constraint of the material.
+         *
+         * @return The cost of one more unit of the material, with the closed units if no more can be produced with the
+         * structure. Infinity if no unit can produce more.
+         */
+        public double getPrice() {
+            return price;
+        }
+
+        /**
+         * Get the net production of the material: what is produced minus what is consumed.
+         *
+         * @return The net production.
+         */
+        public double getProduction() {
+            return production;
+        }
+    }
+
+    /**
+     * Sensitivity of an operating unit.
+     */
+    public static class UnitSensitivity {
+        private final OperatingUnit unit;
+        private final boolean open;
+        private final double flow;
+        private final double capacity;
+        private final double reducedCost;
+        private final double proportionalCostDecrease;
+        private final double proportionalCostIncrease;
+        private final double fixedCostDecrease;
+        private final double fixedCostIncrease;
+
+        UnitSensitivity(OperatingUnit unit, boolean open, double flow, double capacity, double reducedCost,
+                        double proportionalCostDecrease, double proportionalCostIncrease,
+                        double fixedCostDecrease, double fixedCostIncrease) {
+            this.unit = unit;
+            this.open = open;
+            this.flow = flow;
+            this.capacity = capacity;
+            this.reducedCost = reducedCost;
+            this.proportionalCostDecrease = proportionalCostDecrease;
+            this.proportionalCostIncrease = proportionalCostIncrease;
+            this.fixedCostDecrease = fixedCostDecrease;
+            this.fixedCostIncrease = fixedCostIncrease;
+        }
+
+        public OperatingUnit getUnit() {
+            return unit;
+        }
+
+        public boolean isOpen() {
+            return open;
+        }
+
+        public double getFlow() {
+            return flow;
+        }
+
+        public double getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Get the reduced cost of the flow of the unit.
+         *
+         * @return The reduced cost, NaN if a price of its materials is infinite because no unit can produce more.
+         */
+        public double getReducedCost() {
+            return reducedCost;
+        }
+
+        /**
+         * Get how much the proportional cost can decrease with the same optimal flows.
+         *
+         * @return The decrease, infinity if it's unbounded.
+         */
+        public double getProportionalCostDecrease() {
+            return proportionalCostDecrease;
+        }
+
+        /**
+         * Get how much the proportional cost can increase with the same optimal flows.
+         *
+         * @return The increase, infinity if it's unbounded.
+         */
+        public double getProportionalCostIncrease() {
+            return proportionalCostIncrease;
+        }
+
+        /**
+         * Get how much the fixed cost can decrease while the structure is known to be optimal.
+         *
+         * @return The decrease, infinity if it's unbounded, NaN if it's unknown because the pool has no second structure.
+         */
+        public double getFixedCostDecrease() {
+            return fixedCostDecrease;
+        }
+
+        /**
+         * Get how much the fixed cost can increase while the structure is known to be optimal.
+         *
+         * @return The increase, infinity if it's unbounded, NaN if it's unknown because the pool has no second structure.
+         */
+        public double getFixedCostIncrease() {
+            return fixedCostIncrease;
+        }
+
+        public boolean isInProportionalCostRange(double change) {
+            return change >= -proportionalCostDecrease - EPSILON && change <= proportionalCostIncrease + EPSILON;
+        }
+
+    }
+}
@@ -0,0 +1,183 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+
+import java.util.*;
+
+/**
+ * Pool with the K best solutions found by the Branch and Bound algorithm.
+ * <p>
+ * Two solutions are different when different units carry flow, so every solution of the pool is a different
+ * process structure. An open unit without flow only adds its fixed cost, so it's closed before the solution is
+ * offered: a structure with idle units is the same as the one without them. The pool is a heap with the worst solution on top: when it's full, a new solution replaces
+ * the worst one, and the search prunes the nodes that can't improve the worst one.
+ * With a capacity of 1 the pool only has the incumbent.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph#getSolutionPool()
+ */
+public class SolutionPool {
+    private static final double EPSILON = 1e-6;
+    private final int capacity;
+    private final List<OperatingUnit> units;
+    private final PriorityQueue<Solution> heap;
+    // Solutions by their units with flow
+    private final HashMap<String, Solution> structures;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of solutions.
+     * @param units    The list of operating units of the problem.
+     */
+    public SolutionPool(int capacity, List<OperatingUnit> units) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity of the pool must be at least 1");
+
+        this.capacity = capacity;
+        this.units = units;
+        this.heap = new PriorityQueue<>(Comparator.comparingDouble(Solution::getValue).reversed());
+        this.structures = new HashMap<>();
+    }
+
+    /**
+     * Offer a solution to the pool. The open units without flow are closed first, and their fixed cost is taken
+     * out of the value.
+     *
+     * @param node   The node with the solution. It's marked as pooled while it stays in the pool.
+     * @param values The values of the variables of the model, X1, Y1, X2, Y2, ...
+     * @return True if the solution was added to the pool.
+     */
+    boolean offer(Node node, double[] values) {
+        double value = node.getSolutionStatus().getValue();
+        double[] closed = Arrays.copyOf(values, values.length);
+        StringBuilder key = new StringBuilder(units.size());
+        ArrayList<OperatingUnit> selected = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            boolean open = values[PGraph.yIndex(i)] > 0.5;
+            if (open && values[PGraph.xIndex(i)] <= EPSILON) {
+                closed[PGraph.yIndex(i)] = 0;
+                value -= units.get(i).getFixed_cost();
+                open = false;
+            }
+            key.append(open ? '1' : '0');
+            if (open) selected.add(units.get(i));
+        }
+
+        if (isFull() && value >= heap.peek().getValue()) return false;
+
+        // The same structure is kept only once, with its best value
+        Solution previous = structures.get(key.toString());
+        if (previous != null) {
+            if (value >= previous.getValue()) return false;
+            remove(previous);
+        }
+
+        Solution solution = new Solution(value, closed, node, selected, key.toString());
+        heap.add(solution);
+        structures.put(solution.key, solution);
+        node.setPooled(true);
+
+        if (heap.size() > capacity) remove(heap.peek());
+        return true;
+    }
+
+    private void remove(Solution solution) {
+        heap.remove(solution);
+        structures.remove(solution.key);
+        solution.node.setPooled(false);
+    }
+
+    /**
+     * Get the value that a node must improve to be useful: the worst value of the pool when it's full.
+     *
+     * @return The cutoff, or infinity if the pool is not full.
+     */
+    public double getCutoff() {
+        return isFull() ? heap.peek().getValue() : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean isFull() {
+        return heap.size() >= capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Get the solutions ranked from the best to the worst.
+     *
+     * @return The list of solutions.
+     */
+    public List<Solution> getSolutions() {
+        ArrayList<Solution> solutions = new ArrayList<>(heap);
+        solutions.sort(Comparator.comparingDouble(Solution::getValue));
+        return solutions;
+    }
+
+    /**
+     * A solution of the pool.
+     */
+    public static class Solution {
+        private final double value;
+        private final double[] values;
+        private final Node node;
+        private final List<OperatingUnit> selectedUnits;
+        private final String key;
+
+        Solution(double value, double[] values, Node node, List<OperatingUnit> selectedUnits, String key) {
+            this.value = value;
+            this.values = values;
+            this.node = node;
+            this.selectedUnits = Collections.unmodifiableList(selectedUnits);
+            this.key = key;
+        }
+
+        /**
+         * Get the value of the solution, without the fixed cost of the open units without flow.
+         *
+         * @return The value.
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Get the values of the variables of the solution, X1, Y1, X2, Y2, ... The units without flow are closed.
+         *
+         * @return The values.
+         */
+        public double[] getValues() {
+            return values.clone();
+        }
+
+        /**
+         * Get the node of the solution. It isn't part of the tree when the solution comes from a heuristic,
+         * and its value includes the fixed cost of the open units without flow.
+         *
+         * @return The node.
+         */
+        public Node getNode() {
+            return node;
+        }
+
+        /**
+         * Get the units that carry flow in the solution.
+         *
+         * @return The list of units.
+         */
+        public List<OperatingUnit> getSelectedUnits() {
+            return selectedUnits;
+        }
+
+        @Override
+        public String toString() {
+            return value + " " + selectedUnits.stream().map(OperatingUnit::getName).toList();
+        }
+    }
+}
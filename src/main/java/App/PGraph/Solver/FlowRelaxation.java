@@ -0,0 +1,442 @@
+package App.PGraph.Solver;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Relaxation solver specialized for P-graphs where every unit has one input and one output material.
+ * <p>
+ * With the Y variables relaxed, the best y of a unit is x/capacity, so the relaxation is a min-cost flow over
+ * the material graph where each unit is an arc with cost proportional_cost + fixed_cost/capacity. A unit fixed to 1
+ * costs only proportional_cost plus its fixed cost, and a unit fixed to 0 is removed. A source feeds the materials
+ * without producers and every produced material with a flow_rate_lower_bound sends it to a sink.
+ * <p>
+ * The first solve uses successive shortest paths. A child node starts from the flow of its parent: the flow of the
+ * removed units is rerouted and the negative cycles of the residual graph are canceled, which is usually a few
+ * augmentations instead of a complete solve. If the cycles aren't all canceled within a limit of iterations,
+ * the node is solved from scratch.
+ * <p>
+ * The variables of the result follow the layout of the model built by PGraph: X1, Y1, X2, Y2, ...
+ * The cutting planes of the model are not part of the flow problem, so the bound is the one of the plain relaxation.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public class FlowRelaxation {
+    private static final double EPSILON = 1e-9;
+    private static final byte FREE = 0;
+    private static final byte OPEN = 1;
+    private static final byte CLOSED = 2;
+    private final int units;
+    private final int nodes;
+    private final int source;
+    private final int sink;
+    private final double[] fixedCosts;
+    private final double[] proportionalCosts;
+    private final double[] capacities;
+    private final boolean supported;
+    private final double demand;
+    // Arcs: 2*i is the arc of the unit i and 2*i+1 its reverse. Source and sink arcs come after the units.
+    private final int[] from;
+    private final int[] to;
+    private final double[] arcCapacities;
+    private final double[] costs;
+    // Adjacency lists
+    private final int[] first;
+    private final int[] next;
+    // Work arrays
+    private final double[] distance;
+    private final double[] potential;
+    private final int[] predecessor;
+    private final boolean[] done;
+
+    /**
+     * Constructor. Builds the network once for all the nodes.
+     *
+     * @param units      The list of operating units.
+     * @param capacities The capacity of each unit, used as the capacity of its arc.
+     */
+    public FlowRelaxation(List<OperatingUnit> units, double[] capacities) {
+        this.units = units.size();
+        this.capacities = capacities;
+        this.fixedCosts = new double[this.units];
+        this.proportionalCosts = new double[this.units];
+
+        HashMap<Material, Integer> materials = new HashMap<>();
+        boolean[] produced = new boolean[this.units * 2];
+        boolean nonNegative = true;
+        for (int i = 0; i < this.units; i++) {
+            OperatingUnit unit = units.get(i);
+            materials.putIfAbsent(unit.getInputMaterial(), materials.size());
+            materials.putIfAbsent(unit.getOutputMaterial(), materials.size());
+            produced[materials.get(unit.getOutputMaterial())] = true;
+            fixedCosts[i] = unit.getFixed_cost();
+            proportionalCosts[i] = unit.getProportional_cost();
+            nonNegative &= fixedCosts[i] >= 0 && proportionalCosts[i] >= 0;
+        }
+        this.supported = nonNegative;
+
+        int m = materials.size();
+        this.source = m;
+        this.sink = m + 1;
+        this.nodes = m + 2;
+
+        // Count the source and sink arcs
+        int extra = 0;
+        double total = 0;
+        for (var entry : materials.entrySet()) {
+            if (!produced[entry.getValue()]) extra++;
+            else if (entry.getKey().getLower_bound() > 0) {
+                extra++;
+                total += entry.getKey().getLower_bound();
+            }
+        }
+        this.demand = total;
+
+        int arcs = 2 * (this.units + extra);
+        from = new int[arcs];
+        to = new int[arcs];
+        arcCapacities = new double[arcs];
+        costs = new double[arcs];
+        first = new int[nodes];
+        next = new int[arcs];
+        Arrays.fill(first, -1);
+
+        for (int i = 0; i < this.units; i++) {
+            OperatingUnit unit = units.get(i);
+            setArc(2 * i, materials.get(unit.getInputMaterial()), materials.get(unit.getOutputMaterial()), 0, 0);
+        }
+
+        int arc = 2 * this.units;
+        for (var entry : materials.entrySet()) {
+            int material = entry.getValue();
+            if (!produced[material]) {
+                setArc(arc, source, material, Double.POSITIVE_INFINITY, 0);
+                arc += 2;
+            } else if (entry.getKey().getLower_bound() > 0) {
+                setArc(arc, material, sink, entry.getKey().getLower_bound(), 0);
+                arc += 2;
+            }
+        }
+
+        distance = new double[nodes];
+        potential = new double[nodes];
+        predecessor = new int[nodes];
+        done = new boolean[nodes];
+    }
+
+    /**
+     * Check if the relaxation can be solved as a flow. It needs non-negative costs.
+     *
+     * @return True if the relaxation is supported.
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Solve the relaxation for the given bounds of the model variables.
+     *
+     * @param lower     The lower bounds of the model variables.
+     * @param upper     The upper bounds of the model variables.
+     * @param warmStart The solution of the parent node, or null to solve from scratch.
+     * @return The solution, or null if some X variable has bounds that the flow can't represent.
+     */
+    public Solution solve(double[] lower, double[] upper, Solution warmStart) {
+        long buildStart = System.nanoTime();
+
+        byte[] states = new byte[units];
+        for (int i = 0; i < units; i++) {
+            // X variables must keep their default bounds
+            if (lower[2 * i] > 0 || upper[2 * i] < Double.POSITIVE_INFINITY) return null;
+
+            if (lower[2 * i + 1] >= 1) states[i] = OPEN;
+            else if (upper[2 * i + 1] <= 0) states[i] = CLOSED;
+            else states[i] = FREE;
+        }
+
+        double[] flow;
+        boolean feasible;
+        long solveStart;
+        if (warmStart != null && warmStart.isOptimal()) {
+            flow = warmStart.flow.clone();
+            setUnitArcs(states);
+            solveStart = System.nanoTime();
+            feasible = reroute(flow, states);
+            if (feasible && !cancelNegativeCycles(flow)) {
+                // The flow may still have negative cycles, so it wouldn't be a bound: solve from scratch
+                Arrays.fill(flow, 0);
+                feasible = successiveShortestPaths(flow);
+            }
+        } else {
+            flow = new double[from.length];
+            setUnitArcs(states);
+            solveStart = System.nanoTime();
+            feasible = successiveShortestPaths(flow);
+        }
+        long solveEnd = System.nanoTime();
+
+        if (!feasible) {
+            return new Solution(SolverResult.Status.INFEASIBLE, Double.NaN, null, null, states, solveStart - buildStart, solveEnd - solveStart);
+        }
+
+        double objective = 0;
+        double[] values = new double[2 * units];
+        for (int i = 0; i < units; i++) {
+            double x = flow[2 * i];
+            values[2 * i] = x;
+            values[2 * i + 1] = switch (states[i]) {
+                case OPEN -> 1;
+                case CLOSED -> 0;
+                default -> capacities[i] > 0 ? x / capacities[i] : 0;
+            };
+            objective += proportionalCosts[i] * x + fixedCosts[i] * values[2 * i + 1];
+        }
+
+        return new Solution(SolverResult.Status.OPTIMAL, objective, values, flow, states, solveStart - buildStart, solveEnd - solveStart);
+    }
+
+    /**
+     * Set the capacity and cost of the arcs of the units for the given states.
+     *
+     * @param states The state of each unit.
+     */
+    private void setUnitArcs(byte[] states) {
+        for (int i = 0; i < units; i++) {
+            int arc = 2 * i;
+            switch (states[i]) {
+                case OPEN -> {
+                    arcCapacities[arc] = capacities[i];
+                    costs[arc] = proportionalCosts[i];
+                }
+                case CLOSED -> {
+                    arcCapacities[arc] = 0;
+                    costs[arc] = proportionalCosts[i];
+                }
+                default -> {
+                    arcCapacities[arc] = capacities[i];
+                    costs[arc] = proportionalCosts[i] + (capacities[i] > 0 ? fixedCosts[i] / capacities[i] : 0);
+                }
+            }
+            costs[arc + 1] = -costs[arc];
+        }
+    }
+
+    /**
+     * Send the total demand from the source to the sink through shortest paths, using Dijkstra with potentials.
+     *
+     * @param flow The flow of the arcs, initially zero.
+     * @return False if the demand can't be met.
+     */
+    private boolean successiveShortestPaths(double[] flow) {
+        Arrays.fill(potential, 0);
+        double remaining = demand;
+
+        while (remaining > EPSILON) {
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecessor, -1);
+            Arrays.fill(done, false);
+            distance[source] = 0;
+
+            for (int k = 0; k < nodes; k++) {
+                int u = -1;
+                for (int v = 0; v < nodes; v++) {
+                    if (!done[v] && distance[v] < Double.POSITIVE_INFINITY && (u < 0 || distance[v] < distance[u])) u = v;
+                }
+                if (u < 0) break;
+                done[u] = true;
+
+                for (int arc = first[u]; arc >= 0; arc = next[arc]) {
+                    if (residual(flow, arc) <= EPSILON) continue;
+                    double candidate = distance[u] + costs[arc] + potential[u] - potential[to[arc]];
+                    if (candidate < distance[to[arc]] - EPSILON) {
+                        distance[to[arc]] = candidate;
+                        predecessor[to[arc]] = arc;
+                    }
+                }
+            }
+
+            if (predecessor[sink] < 0) return false;
+
+            for (int v = 0; v < nodes; v++) {
+                if (distance[v] < Double.POSITIVE_INFINITY) potential[v] += distance[v];
+            }
+
+            double amount = remaining;
+            for (int v = sink; v != source; v = from[predecessor[v]]) {
+                amount = Math.min(amount, residual(flow, predecessor[v]));
+            }
+            for (int v = sink; v != source; v = from[predecessor[v]]) {
+                push(flow, predecessor[v], amount);
+            }
+            remaining -= amount;
+        }
+
+        return true;
+    }
+
+    /**
+     * Move the flow of the closed units to other paths of the residual graph.
+     *
+     * @param flow   The flow of the parent.
+     * @param states The state of each unit.
+     * @return False if the flow can't be rerouted.
+     */
+    private boolean reroute(double[] flow, byte[] states) {
+        for (int i = 0; i < units; i++) {
+            int arc = 2 * i;
+            double amount = flow[arc];
+            if (states[i] != CLOSED || amount <= EPSILON) continue;
+
+            // Remove the flow: the input has an excess and the output a deficit.
+            flow[arc] = 0;
+            flow[arc + 1] = 0;
+
+            while (amount > EPSILON) {
+                if (!findPath(flow, from[arc], to[arc])) return false;
+
+                double bottleneck = amount;
+                for (int v = to[arc]; v != from[arc]; v = from[predecessor[v]]) {
+                    bottleneck = Math.min(bottleneck, residual(flow, predecessor[v]));
+                }
+                for (int v = to[arc]; v != from[arc]; v = from[predecessor[v]]) {
+                    push(flow, predecessor[v], bottleneck);
+                }
+                amount -= bottleneck;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Breadth-first search of a path in the residual graph.
+     *
+     * @param flow   The flow of the arcs.
+     * @param start  The first node.
+     * @param target The last node.
+     * @return True if there is a path. The arcs are in the predecessor array.
+     */
+    private boolean findPath(double[] flow, int start, int target) {
+        Arrays.fill(predecessor, -1);
+        Arrays.fill(done, false);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        done[start] = true;
+
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (u == target) return true;
+
+            for (int arc = first[u]; arc >= 0; arc = next[arc]) {
+                if (residual(flow, arc) <= EPSILON || done[to[arc]]) continue;
+                done[to[arc]] = true;
+                predecessor[to[arc]] = arc;
+                queue.add(to[arc]);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Cancel the negative cycles of the residual graph with Bellman-Ford. A flow without negative cycles is optimal.
+     * The number of canceled cycles is limited, and the flow stays feasible even if the limit is reached.
+     *
+     * @param flow The feasible flow.
+     * @return True if the flow has no negative cycles, false if the limit was reached before.
+     */
+    private boolean cancelNegativeCycles(double[] flow) {
+        for (int iteration = 0; iteration < 10 * from.length + 10; iteration++) {
+            Arrays.fill(distance, 0);
+            Arrays.fill(predecessor, -1);
+
+            int last = -1;
+            for (int k = 0; k < nodes; k++) {
+                last = -1;
+                for (int arc = 0; arc < from.length; arc++) {
+                    if (residual(flow, arc) <= EPSILON) continue;
+                    if (distance[from[arc]] + costs[arc] < distance[to[arc]] - EPSILON) {
+                        distance[to[arc]] = distance[from[arc]] + costs[arc];
+                        predecessor[to[arc]] = arc;
+                        last = to[arc];
+                    }
+                }
+                if (last < 0) return true;
+            }
+
+            // Walk back until the node is inside the cycle
+            for (int k = 0; k < nodes; k++) last = from[predecessor[last]];
+
+            double bottleneck = Double.POSITIVE_INFINITY;
+            int v = last;
+            do {
+                bottleneck = Math.min(bottleneck, residual(flow, predecessor[v]));
+                v = from[predecessor[v]];
+            } while (v != last);
+
+            v = last;
+            do {
+                push(flow, predecessor[v], bottleneck);
+                v = from[predecessor[v]];
+            } while (v != last);
+        }
+
+        return false;
+    }
+
+    private void setArc(int arc, int u, int v, double capacity, double cost) {
+        from[arc] = u;
+        to[arc] = v;
+        arcCapacities[arc] = capacity;
+        costs[arc] = cost;
+        next[arc] = first[u];
+        first[u] = arc;
+
+        from[arc + 1] = v;
+        to[arc + 1] = u;
+        arcCapacities[arc + 1] = 0;
+        costs[arc + 1] = -cost;
+        next[arc + 1] = first[v];
+        first[v] = arc + 1;
+    }
+
+    private double residual(double[] flow, int arc) {
+        return arcCapacities[arc] - flow[arc];
+    }
+
+    private void push(double[] flow, int arc, double amount) {
+        flow[arc] += amount;
+        flow[arc ^ 1] -= amount;
+    }
+
+    /**
+     * Solution of the flow relaxation. It keeps the flow of the arcs to warm start the children of the node.
+     */
+    public static class Solution extends SolverResult {
+        private final double[] flow;
+        private final byte[] states;
+
+        Solution(Status status, double objective, double[] values, double[] flow, byte[] states, long buildTime, long solveTime) {
+            super(status, objective, values, null, null, buildTime, solveTime);
+            this.flow = flow;
+            this.states = states;
+        }
+
+        /**
+         * Get the number of units with a fixed Y variable.
+         *
+         * @return The number of open or closed units.
+         */
+        public int getFixedUnits() {
+            int count = 0;
+            for (byte state : states) if (state != FREE) count++;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package App.PGraph.Solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Linear model independent of the solver used to solve it.
+ * The model is built once and solved many times with different bounds for its variables,
+ * so the bounds of each solve are passed to the backend instead of being changed in the model.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SolverBackend
+ */
+public class Model {
+    private final ArrayList<String> names;
+    private final HashMap<String, Integer> indexes;
+    private final ArrayList<Constraint> constraints;
+    private double[] lower;
+    private double[] upper;
+    private double[] costs;
+    private boolean[] integer;
+
+    /**
+     * Default constructor.
+     */
+    public Model() {
+        names = new ArrayList<>();
+        indexes = new HashMap<>();
+        constraints = new ArrayList<>();
+        lower = new double[8];
+        upper = new double[8];
+        costs = new double[8];
+        integer = new boolean[8];
+    }
+
+    /**
+     * Copy constructor. The constraints are shared, since they are never modified.
+     *
+     * @param model The model to copy.
+     */
+    public Model(Model model) {
+        names = new ArrayList<>(model.names);
+        indexes = new HashMap<>(model.indexes);
+        constraints = new ArrayList<>(model.constraints);
+        lower = model.lower.clone();
+        upper = model.upper.clone();
+        costs = model.costs.clone();
+        integer = model.integer.clone();
+    }
+
+    /**
+     * Add a variable to the model.
+     *
+     * @param name    The name of the variable.
+     * @param lower   The lower bound.
+     * @param upper   The upper bound.
+     * @param cost    The coefficient in the objective function, which is minimized.
+     * @param integer If the variable must be integer.
+     * @return The index of the variable.
+     */
+    public int addVariable(String name, double lower, double upper, double cost, boolean integer) {
+        int index = names.size();
+        if (index == this.lower.length) {
+            this.lower = Arrays.copyOf(this.lower, index * 2);
+            this.upper = Arrays.copyOf(this.upper, index * 2);
+            this.costs = Arrays.copyOf(this.costs, index * 2);
+            this.integer = Arrays.copyOf(this.integer, index * 2);
+        }
+
+        names.add(name);
+        indexes.put(name, index);
+        this.lower[index] = lower;
+        this.upper[index] = upper;
+        this.costs[index] = cost;
+        this.integer[index] = integer;
+        return index;
+    }
+
+    /**
+     * Add a constraint to the model.
+     *
+     * @param constraint The constraint.
+     * @return The index of the constraint.
+     */
+    public int addConstraint(Constraint constraint) {
+        constraints.add(constraint);
+        return constraints.size() - 1;
+    }
+
+    /**
+     * Add a constraint to the model.
+     *
+     * @param name         The name of the constraint.
+     * @param indexes      The indexes of the variables.
+     * @param coefficients The coefficients of the variables.
+     * @param lower        The lower bound of the constraint.
+     * @param upper        The upper bound of the constraint.
+     * @return The index of the constraint.
+     */
+    public int addConstraint(String name, int[] indexes, double[] coefficients, double lower, double upper) {
+        return addConstraint(new Constraint(name, indexes, coefficients, lower, upper));
+    }
+
+    public int getVariableCount() {
+        return names.size();
+    }
+
+    public int getConstraintCount() {
+        return constraints.size();
+    }
+
+    public String getVariableName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Get the index of a variable from its name.
+     *
+     * @param name The name of the variable.
+     * @return The index, or -1 if there is no variable with that name.
+     */
+    public int getVariableIndex(String name) {
+        return indexes.getOrDefault(name, -1);
+    }
+
+    public double getLower(int index) {
+        return lower[index];
+    }
+
+    public double getUpper(int index) {
+        return upper[index];
+    }
+
+    public double getCost(int index) {
+        return costs[index];
+    }
+
+    public void setCost(int index, double cost) {
+        costs[index] = cost;
+    }
+
+    public boolean isInteger(int index) {
+        return integer[index];
+    }
+
+    public Constraint getConstraint(int index) {
+        return constraints.get(index);
+    }
+
+    /**
+     * Get a copy of the lower bounds of the variables.
+     *
+     * @return The lower bounds.
+     */
+    public double[] getLowerBounds() {
+        return Arrays.copyOf(lower, names.size());
+    }
+
+    /**
+     * Get a copy of the upper bounds of the variables.
+     *
+     * @return The upper bounds.
+     */
+    public double[] getUpperBounds() {
+        return Arrays.copyOf(upper, names.size());
+    }
+
+    /**
+     * Get the value of the objective function for the given values.
+     *
+     * @param values The values of the variables.
+     * @return The objective value.
+     */
+    public double getObjective(double[] values) {
+        double objective = 0;
+        for (int i = 0; i < names.size(); i++) objective += costs[i] * values[i];
+        return objective;
+    }
+
+    /**
+     * A linear constraint lower &lt;= sum(coefficients[i] * variables[indexes[i]]) &lt;= upper.
+     */
+    public static class Constraint {
+        private final String name;
+        private final int[] indexes;
+        private final double[] coefficients;
+        private final double lower;
+        private final double upper;
+
+        /**
+         * Constructor.
+         *
+         * @param name         The name of the constraint.
+         * @param indexes      The indexes of the variables in the model.
+         * @param coefficients The coefficients of the variables.
+         * @param lower        The lower bound of the constraint.
+         * @param upper        The upper bound of the constraint.
+         */
+        public Constraint(String name, int[] indexes, double[] coefficients, double lower, double upper) {
+            this.name = name;
+            this.indexes = indexes;
+            this.coefficients = coefficients;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        /**
+         * Get the value of the linear expression of the constraint.
+         *
+         * @param values The values of the variables of the model.
+         * @return The activity.
+         */
+        public double activity(double[] values) {
+            double activity = 0;
+            for (int i = 0; i < indexes.length; i++) {
+                activity += coefficients[i] * values[indexes[i]];
+            }
+            return activity;
+        }
+
+        /**
+         * Get how much the constraint is violated by a solution.
+         *
+         * @param values The values of the variables of the model.
+         * @return The violation, zero or negative if the solution satisfies the constraint.
+         */
+        public double violation(double[] values) {
+            double activity = activity(values);
+            return Math.max(lower - activity, activity - upper);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int[] getIndexes() {
+            return indexes;
+        }
+
+        public double[] getCoefficients() {
+            return coefficients;
+        }
+
+        public double getLower() {
+            return lower;
+        }
+
+        public double getUpper() {
+            return upper;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package App.PGraph.Solver;
+
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+
+/**
+ * Backend that solves the models with OR-Tools.
+ * GLOP solves the linear relaxations, and CBC or SCIP can also solve the complete integer model,
+ * which is useful to compare the result of the Branch and Bound algorithm.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public class ORToolsBackend implements SolverBackend {
+    private static boolean loaded = false;
+    private final String solverId;
+    private final boolean mip;
+
+    /**
+     * Constructor. It loads the native libraries the first time.
+     *
+     * @param solverId The OR-Tools solver id, for example GLOP, CBC or SCIP.
+     * @throws IllegalStateException If the native libraries can't be loaded or OR-Tools can't create the solver.
+     */
+    public ORToolsBackend(String solverId) {
+        this.solverId = solverId;
+        loadNativeLibraries();
+
+        MPSolver solver = MPSolver.createSolver(solverId);
+        if (solver == null) {
+            throw new IllegalStateException("The solver " + solverId + " is not available");
+        }
+        mip = solver.isMip();
+        solver.delete();
+    }
+
+    /**
+     * Load the OR-Tools native libraries only once.
+     *
+     * @throws IllegalStateException If the libraries can't be loaded, for example when the native jar of this
+     *                               platform is missing.
+     */
+    private static synchronized void loadNativeLibraries() {
+        if (!loaded) {
+            try {
+                Loader.loadNativeLibraries();
+            } catch (RuntimeException e) {
+                // The loader fails with a NullPointerException when the resources of the platform aren't found
+                throw new IllegalStateException("The OR-Tools native libraries can't be loaded: " + e.getMessage(), e);
+            }
+            loaded = true;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return solverId;
+    }
+
+    /**
+     * Check if the solver respects the integrality of the variables, like CBC or SCIP.
+     *
+     * @return True if {@link #solveInteger} solves the integer model, false if it only solves the relaxation.
+     */
+    public boolean isMip() {
+        return mip;
+    }
+
+    @Override
+    public SolverResult solve(Model model, double[] lower, double[] upper) {
+        return solve(model, lower, upper, false);
+    }
+
+    /**
+     * Solve the model respecting the integrality of the variables. Only useful with a MIP solver like CBC or SCIP.
+     *
+     * @param model The model.
+     * @param lower The lower bounds of the variables for this solve.
+     * @param upper The upper bounds of the variables for this solve.
+     * @return The result.
+     */
+    public SolverResult solveInteger(Model model, double[] lower, double[] upper) {
+        return solve(model, lower, upper, true);
+    }
+
+    @Override
+    public SolverBackend copy() {
+        return new ORToolsBackend(solverId);
+    }
+
+    /**
+     * Build the OR-Tools model and solve it.
+     *
+     * @param model   The model.
+     * @param lower   The lower bounds of the variables.
+     * @param upper   The upper bounds of the variables.
+     * @param integer If the integrality of the variables is respected.
+     * @return The result.
+     */
+    private SolverResult solve(Model model, double[] lower, double[] upper, boolean integer) {
+        long buildStart = System.nanoTime();
+        MPSolver solver = MPSolver.createSolver(solverId);
+        if (solver == null) {
+            throw new IllegalStateException("The solver " + solverId + " is not available");
+        }
+
+        try {
+            int n = model.getVariableCount();
+            MPVariable[] variables = new MPVariable[n];
+            MPObjective objective = solver.objective();
+            objective.setMinimization();
+
+            for (int i = 0; i < n; i++) {
+                variables[i] = solver.makeVar(lower[i], upper[i], integer && model.isInteger(i), model.getVariableName(i));
+                objective.setCoefficient(variables[i], model.getCost(i));
+            }
+
+            MPConstraint[] constraints = new MPConstraint[model.getConstraintCount()];
+            for (int i = 0; i < constraints.length; i++) {
+                var constraint = model.getConstraint(i);
+                constraints[i] = solver.makeConstraint(constraint.getLower(), constraint.getUpper(), constraint.getName());
+                for (int k = 0; k < constraint.getIndexes().length; k++) {
+                    constraints[i].setCoefficient(variables[constraint.getIndexes()[k]], constraint.getCoefficients()[k]);
+                }
+            }
+
+            long solveStart = System.nanoTime();
+            var status = solver.solve();
+            long solveEnd = System.nanoTime();
+
+            SolverResult.Status result = switch (status) {
+                case OPTIMAL -> SolverResult.Status.OPTIMAL;
+                case FEASIBLE -> SolverResult.Status.FEASIBLE;
+                case INFEASIBLE -> SolverResult.Status.INFEASIBLE;
+                case UNBOUNDED -> SolverResult.Status.UNBOUNDED;
+                default -> SolverResult.Status.ABNORMAL;
+            };
+
+            if (result != SolverResult.Status.OPTIMAL && result != SolverResult.Status.FEASIBLE) {
+                return new SolverResult(result, solveStart - buildStart, solveEnd - solveStart);
+            }
+
+            // A MIP solver has no duals even when every variable is continuous
+            boolean duals = !integer && !mip;
+            double[] values = new double[n];
+            double[] reducedCosts = duals ? new double[n] : null;
+            for (int i = 0; i < n; i++) {
+                values[i] = variables[i].solutionValue();
+                if (reducedCosts != null) reducedCosts[i] = variables[i].reducedCost();
+            }
+
+            double[] dualValues = null;
+            if (duals) {
+                dualValues = new double[constraints.length];
+                for (int i = 0; i < constraints.length; i++) dualValues[i] = constraints[i].dualValue();
+            }
+
+            return new SolverResult(result, objective.value(), values, dualValues, reducedCosts, solveStart - buildStart, solveEnd - solveStart);
+        } finally {
+            solver.delete();
+        }
+    }
+}
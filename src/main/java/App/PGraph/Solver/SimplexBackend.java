@@ -0,0 +1,246 @@
+package App.PGraph.Solver;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java bounded dual simplex, used when the OR-Tools native libraries can't be loaded
+ * and to avoid the JNI calls on the small models of each node.
+ * <p>
+ * Every constraint lower &lt;= a*x &lt;= upper gets a row variable s = a*x with those bounds, so the model is
+ * [A | -I] (x, s) = 0 with bounded variables. The row variables are the initial basis, and the structural
+ * variables start at the bound given by the sign of their cost, which is dual feasible. The dual simplex then
+ * moves the basic variables into their bounds keeping the reduced costs feasible.
+ * <p>
+ * The models of the Branch and Bound algorithm are small and every node has the same dimensions,
+ * so the method keeps a dense tableau and reuses its arrays between solves.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public class SimplexBackend implements SolverBackend {
+    public static final String NAME = "SIMPLEX";
+    // Bound used for the variables that start at an infinite bound
+    private static final double INFINITE_BOUND = 1e9;
+    private static final double PRIMAL_TOLERANCE = 1e-9;
+    private static final double PIVOT_TOLERANCE = 1e-9;
+    // Work arrays, reused while the dimensions don't change
+    private double[][] tableau;
+    private double[] reducedCosts;
+    private double[] lower;
+    private double[] upper;
+    private double[] values;
+    private int[] basis;
+    private int[] position;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public SolverBackend copy() {
+        return new SimplexBackend();
+    }
+
+    @Override
+    public SolverResult solve(Model model, double[] lower, double[] upper) {
+        long buildStart = System.nanoTime();
+        int n = model.getVariableCount();
+        int m = model.getConstraintCount();
+        int columns = n + m;
+
+        allocate(m, columns);
+
+        // Structural variables: start at the bound that makes the reduced cost feasible.
+        for (int j = 0; j < n; j++) {
+            this.lower[j] = lower[j];
+            this.upper[j] = upper[j];
+            reducedCosts[j] = model.getCost(j);
+            position[j] = -1;
+
+            if (lower[j] > upper[j] + PRIMAL_TOLERANCE) {
+                return new SolverResult(SolverResult.Status.INFEASIBLE, System.nanoTime() - buildStart, 0);
+            }
+
+            if (reducedCosts[j] >= 0) {
+                values[j] = Double.isInfinite(lower[j]) ? (Double.isInfinite(upper[j]) ? -INFINITE_BOUND : upper[j]) : lower[j];
+            } else {
+                values[j] = Double.isInfinite(upper[j]) ? INFINITE_BOUND : upper[j];
+            }
+        }
+
+        // Row variables: the initial basis, the tableau is [-A | I].
+        for (int i = 0; i < m; i++) {
+            var constraint = model.getConstraint(i);
+            double[] row = tableau[i];
+            Arrays.fill(row, 0, columns, 0);
+            for (int k = 0; k < constraint.getIndexes().length; k++) {
+                row[constraint.getIndexes()[k]] -= constraint.getCoefficients()[k];
+            }
+            row[n + i] = 1;
+
+            this.lower[n + i] = constraint.getLower();
+            this.upper[n + i] = constraint.getUpper();
+            reducedCosts[n + i] = 0;
+            basis[i] = n + i;
+            position[n + i] = i;
+        }
+
+        long solveStart = System.nanoTime();
+        SolverResult.Status status = iterate(m, columns, 1000 + 50 * columns);
+        long solveEnd = System.nanoTime();
+
+        if (status != SolverResult.Status.OPTIMAL) {
+            return new SolverResult(status, solveStart - buildStart, solveEnd - solveStart);
+        }
+
+        // A structural variable left at an artificial bound means the model is unbounded.
+        double[] solution = Arrays.copyOf(values, n);
+        for (int j = 0; j < n; j++) {
+            if (Math.abs(solution[j]) >= INFINITE_BOUND) {
+                return new SolverResult(SolverResult.Status.UNBOUNDED, solveStart - buildStart, solveEnd - solveStart);
+            }
+        }
+
+        // The reduced cost of the row variable of a constraint is its dual value.
+        double[] duals = Arrays.copyOfRange(reducedCosts, n, columns);
+        double[] costs = Arrays.copyOf(reducedCosts, n);
+
+        return new SolverResult(SolverResult.Status.OPTIMAL, model.getObjective(solution), solution, duals, costs,
+                solveStart - buildStart, solveEnd - solveStart);
+    }
+
+    /**
+     * Dual simplex iterations.
+     *
+     * @param m             Number of rows.
+     * @param columns       Number of columns.
+     * @param maxIterations Maximum number of pivots.
+     * @return OPTIMAL, INFEASIBLE or ABNORMAL if the iteration limit is reached.
+     */
+    private SolverResult.Status iterate(int m, int columns, int maxIterations) {
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            updateBasicValues(m, columns);
+
+            // Leaving variable: the basic variable with the largest bound violation.
+            int row = -1;
+            double violation = PRIMAL_TOLERANCE;
+            for (int i = 0; i < m; i++) {
+                int variable = basis[i];
+                double scale = 1 + Math.abs(values[variable]);
+                double below = (lower[variable] - values[variable]) / scale;
+                double above = (values[variable] - upper[variable]) / scale;
+                if (below > violation || above > violation) {
+                    violation = Math.max(below, above);
+                    row = i;
+                }
+            }
+
+            if (row < 0) return SolverResult.Status.OPTIMAL;
+
+            int leaving = basis[row];
+            boolean below = values[leaving] < lower[leaving];
+            double[] pivotRow = tableau[row];
+
+            // Entering variable: dual ratio test over the nonbasic variables that move the leaving one to its bound.
+            int entering = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            double bestPivot = 0;
+            for (int j = 0; j < columns; j++) {
+                if (position[j] >= 0 || lower[j] == upper[j]) continue;
+
+                double a = pivotRow[j];
+                if (Math.abs(a) < PIVOT_TOLERANCE) continue;
+
+                boolean atUpper = values[j] >= upper[j] && !Double.isInfinite(upper[j]) || values[j] >= INFINITE_BOUND;
+                // Increasing a variable at its lower bound changes the leaving variable by -a.
+                boolean eligible = below == (atUpper ? a > 0 : a < 0);
+                if (!eligible) continue;
+
+                double ratio = Math.abs(reducedCosts[j]) / Math.abs(a);
+                if (ratio < bestRatio - PIVOT_TOLERANCE || (ratio <= bestRatio + PIVOT_TOLERANCE && Math.abs(a) > bestPivot)) {
+                    bestRatio = ratio;
+                    bestPivot = Math.abs(a);
+                    entering = j;
+                }
+            }
+
+            if (entering < 0) return SolverResult.Status.INFEASIBLE;
+
+            pivot(m, columns, row, entering);
+            values[leaving] = below ? lower[leaving] : upper[leaving];
+        }
+
+        return SolverResult.Status.ABNORMAL;
+    }
+
+    /**
+     * Pivot the tableau and the reduced costs on the given row and column.
+     *
+     * @param m        Number of rows.
+     * @param columns  Number of columns.
+     * @param row      The pivot row.
+     * @param entering The pivot column.
+     */
+    private void pivot(int m, int columns, int row, int entering) {
+        double[] pivotRow = tableau[row];
+        double pivot = pivotRow[entering];
+        for (int j = 0; j < columns; j++) pivotRow[j] /= pivot;
+
+        for (int i = 0; i < m; i++) {
+            if (i == row) continue;
+            double factor = tableau[i][entering];
+            if (factor == 0) continue;
+
+            double[] current = tableau[i];
+            for (int j = 0; j < columns; j++) {
+                if (pivotRow[j] != 0) current[j] -= factor * pivotRow[j];
+            }
+        }
+
+        double factor = reducedCosts[entering];
+        if (factor != 0) {
+            for (int j = 0; j < columns; j++) reducedCosts[j] -= factor * pivotRow[j];
+        }
+
+        int leaving = basis[row];
+        position[leaving] = -1;
+        basis[row] = entering;
+        position[entering] = row;
+    }
+
+    /**
+     * Compute the values of the basic variables from the nonbasic ones: x_B = -sum(T_j * x_j).
+     *
+     * @param m       Number of rows.
+     * @param columns Number of columns.
+     */
+    private void updateBasicValues(int m, int columns) {
+        for (int i = 0; i < m; i++) {
+            double[] row = tableau[i];
+            double value = 0;
+            for (int j = 0; j < columns; j++) {
+                if (position[j] < 0 && row[j] != 0) value -= row[j] * values[j];
+            }
+            values[basis[i]] = value;
+        }
+    }
+
+    /**
+     * Allocate the work arrays if the dimensions are larger than the previous ones.
+     *
+     * @param m       Number of rows.
+     * @param columns Number of columns.
+     */
+    private void allocate(int m, int columns) {
+        if (tableau == null || tableau.length < m || (m > 0 && tableau[0].length < columns) || reducedCosts.length < columns) {
+            tableau = new double[m][columns];
+            reducedCosts = new double[columns];
+            lower = new double[columns];
+            upper = new double[columns];
+            values = new double[columns];
+            basis = new int[m];
+            position = new int[columns];
+        }
+    }
+}
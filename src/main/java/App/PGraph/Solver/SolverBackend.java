@@ -0,0 +1,65 @@
+package App.PGraph.Solver;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Solver used by the Branch and Bound algorithm to solve the relaxation of each node.
+ * A backend may keep work arrays between solves, so an instance must not be shared between threads.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see ORToolsBackend
+ * @see SimplexBackend
+ */
+public interface SolverBackend {
+    /**
+     * Get the backend with the given name.
+     *
+     * @param name GLOP, CBC or SCIP for OR-Tools, or SIMPLEX for the pure Java simplex, in any case.
+     * @return The backend.
+     * @throws IllegalStateException If OR-Tools can't be loaded or doesn't have the solver.
+     */
+    static SolverBackend of(String name) {
+        if (name.equalsIgnoreCase(SimplexBackend.NAME)) return new SimplexBackend();
+        return new ORToolsBackend(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Get the default backend: GLOP if the OR-Tools native libraries can be loaded, otherwise the pure Java simplex.
+     *
+     * @return The backend.
+     */
+    static SolverBackend getDefault() {
+        try {
+            return new ORToolsBackend("GLOP");
+        } catch (LinkageError | IllegalStateException e) {
+            Logger.getLogger("SolverBackend").warning("OR-Tools is not available, using the pure Java simplex [" + e.getMessage() + "]");
+            return new SimplexBackend();
+        }
+    }
+
+    /**
+     * Get the name of the backend.
+     *
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Solve the linear relaxation of the model, ignoring the integrality of the variables.
+     *
+     * @param model The model.
+     * @param lower The lower bounds of the variables for this solve.
+     * @param upper The upper bounds of the variables for this solve.
+     * @return The result.
+     */
+    SolverResult solve(Model model, double[] lower, double[] upper);
+
+    /**
+     * Create a new backend of the same type, to be used by another thread.
+     *
+     * @return The new backend.
+     */
+    SolverBackend copy();
+}
@@ -0,0 +1,95 @@
+package App.PGraph.Solver;
+
+/**
+ * Result of solving a model with a backend.
+ * It contains the status, the objective value, the values of the variables, the dual values of the constraints,
+ * the reduced costs of the variables and the time spent building and solving the model in the backend.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SolverBackend
+ */
+public class SolverResult {
+    private final Status status;
+    private final double objective;
+    private final double[] values;
+    private final double[] duals;
+    private final double[] reducedCosts;
+    private final long buildTime;
+    private final long solveTime;
+
+    /**
+     * Constructor.
+     *
+     * @param status       The status of the solve.
+     * @param objective    The objective value.
+     * @param values       The values of the variables, null if there is no solution.
+     * @param duals        The dual values of the constraints, null if they are not available.
+     * @param reducedCosts The reduced costs of the variables, null if they are not available.
+     * @param buildTime    Nanoseconds spent building the model in the backend.
+     * @param solveTime    Nanoseconds spent solving the model.
+     */
+    public SolverResult(Status status, double objective, double[] values, double[] duals, double[] reducedCosts, long buildTime, long solveTime) {
+        this.status = status;
+        this.objective = objective;
+        this.values = values;
+        this.duals = duals;
+        this.reducedCosts = reducedCosts;
+        this.buildTime = buildTime;
+        this.solveTime = solveTime;
+    }
+
+    /**
+     * Constructor for a result without solution.
+     *
+     * @param status    The status of the solve.
+     * @param buildTime Nanoseconds spent building the model in the backend.
+     * @param solveTime Nanoseconds spent solving the model.
+     */
+    public SolverResult(Status status, long buildTime, long solveTime) {
+        this(status, Double.NaN, null, null, null, buildTime, solveTime);
+    }
+
+    public boolean isOptimal() {
+        return status == Status.OPTIMAL;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public double getObjective() {
+        return objective;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public double[] getDuals() {
+        return duals;
+    }
+
+    public double[] getReducedCosts() {
+        return reducedCosts;
+    }
+
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    public long getSolveTime() {
+        return solveTime;
+    }
+
+    /**
+     * Status of a solve.
+     */
+    public enum Status {
+        OPTIMAL, FEASIBLE, INFEASIBLE, UNBOUNDED, ABNORMAL
+    }
+}
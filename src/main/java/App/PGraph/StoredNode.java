@@ -0,0 +1,158 @@
+package App.PGraph;
+
+import App.PGraph.Solver.Model;
+import App.PGraph.Utils.NodeStore;
+import App.PGraph.Utils.SolutionStatus;
+import App.PGraph.Utils.VariableState;
+
+import java.util.HashSet;
+
+/**
+ * Node whose data lives in a NodeStore.
+ * <p>
+ * The children are only linked by their ids, and they are read from the store the first time they are requested,
+ * so only the nodes that are visited, for example the ones drawn by FXPGraph, are created in the heap.
+ * The flags and the value are written through to the store, and the variables are read when the solution status
+ * is requested.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see NodeStore
+ */
+public class StoredNode extends Node {
+    private final NodeStore store;
+    private final Model model;
+    private final int id;
+    private boolean leftLoaded;
+    private boolean rightLoaded;
+
+    /**
+     * Constructor for a new node. It adds the record to the store.
+     *
+     * @param store  The store.
+     * @param model  The model, used for the names of the variables.
+     * @param parent The id of the parent, or NodeStore.NONE for the root.
+     * @param level  The level of the node.
+     */
+    StoredNode(NodeStore store, Model model, int parent, int level) {
+        this(store, model, store.add(parent, level));
+        leftLoaded = true;
+        rightLoaded = true;
+    }
+
+    /**
+     * Constructor for a node that is already in the store.
+     *
+     * @param store The store.
+     * @param model The model, used for the names of the variables.
+     * @param id    The id of the node.
+     */
+    public StoredNode(NodeStore store, Model model, int id) {
+        super();
+        this.store = store;
+        this.model = model;
+        this.id = id;
+
+        level = store.getLevel(id);
+        solutionStatus.setValue(store.getValue(id));
+        solutionStatus.setFeasible(store.hasFlag(id, NodeStore.FEASIBLE));
+        solutionStatus.setBest(store.hasFlag(id, NodeStore.BEST));
+        solutionStatus.setPruned(store.hasFlag(id, NodeStore.PRUNED));
+        solutionStatus.setPooled(store.hasFlag(id, NodeStore.POOLED));
+
+        int changed = store.getChangedIndex(id);
+        if (changed != NodeStore.NONE) {
+            solutionStatus.setChanged(new VariableState(model.getVariableName(changed), store.getChangedValue(id), store.getChangedPrevious(id)));
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public Node getLeft() {
+        if (!leftLoaded) {
+            int child = store.getLeft(id);
+            left = child == NodeStore.NONE ? null : new StoredNode(store, model, child);
+            leftLoaded = true;
+        }
+        return left;
+    }
+
+    /**
+     * Link the left child. Only its id is kept, the child is read again from the store when it's requested.
+     *
+     * @param left The left child, a node of the same store.
+     */
+    @Override
+    public void setLeft(Node left) {
+        store.setLeft(id, left == null ? NodeStore.NONE : ((StoredNode) left).getId());
+        this.left = null;
+        leftLoaded = left == null;
+    }
+
+    @Override
+    public Node getRight() {
+        if (!rightLoaded) {
+            int child = store.getRight(id);
+            right = child == NodeStore.NONE ? null : new StoredNode(store, model, child);
+            rightLoaded = true;
+        }
+        return right;
+    }
+
+    /**
+     * Link the right child. Only its id is kept, the child is read again from the store when it's requested.
+     *
+     * @param right The right child, a node of the same store.
+     */
+    @Override
+    public void setRight(Node right) {
+        store.setRight(id, right == null ? NodeStore.NONE : ((StoredNode) right).getId());
+        this.right = null;
+        rightLoaded = right == null;
+    }
+
+    /**
+     * Get the solution status. The variables are read from the store the first time.
+     *
+     * @return The solution status.
+     */
+    @Override
+    public SolutionStatus getSolutionStatus() {
+        if (solutionStatus.getVariables() == null) {
+            double[] values = store.getValues(id);
+            if (values != null) {
+                HashSet<VariableState> variables = new HashSet<>();
+                for (int i = 0; i < values.length; i++) variables.add(new VariableState(model.getVariableName(i), values[i]));
+                solutionStatus.setVariables(variables);
+            }
+        }
+        return solutionStatus;
+    }
+
+    @Override
+    public void setFeasible(boolean feasible) {
+        super.setFeasible(feasible);
+        store.setFlag(id, NodeStore.FEASIBLE, feasible);
+    }
+
+    @Override
+    public void setBest(boolean best) {
+        super.setBest(best);
+        store.setFlag(id, NodeStore.BEST, best);
+    }
+
+    @Override
+    public void setPruned(boolean pruned) {
+        super.setPruned(pruned);
+        store.setFlag(id, NodeStore.PRUNED, pruned);
+    }
+
+    @Override
+    public void setPooled(boolean pooled) {
+        super.setPooled(pooled);
+        store.setFlag(id, NodeStore.POOLED, pooled);
+    }
+}
@@ -0,0 +1,110 @@
+package App.PGraph;
+
+import App.PGraph.Utils.VariableState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Subtree of the Branch and Bound search, given by the values fixed to reach its root.
+ * It's used to split a search between processes: a search can start from a list of subtrees, and a stopped search
+ * gives the subtrees it left open.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SearchOptions#setStartNodes(java.util.List)
+ * @see PGraph#getOpenSubtrees()
+ */
+public class Subtree {
+    private final int[] fixedValues;
+    private final double bound;
+    private final VariableState changed;
+
+    /**
+     * Constructor.
+     *
+     * @param fixedValues The fixed value of each variable, Integer.MIN_VALUE if it's free. Null for the whole tree.
+     * @param bound       The lower bound of the subtree.
+     * @param changed     The variable changed to reach the root of the subtree, null for the whole tree.
+     */
+    public Subtree(int[] fixedValues, double bound, VariableState changed) {
+        this.fixedValues = fixedValues;
+        this.bound = bound;
+        this.changed = changed;
+    }
+
+    /**
+     * Get the whole tree of a search.
+     *
+     * @return The subtree with no fixed values.
+     */
+    public static Subtree root() {
+        return new Subtree(null, Double.NEGATIVE_INFINITY, null);
+    }
+
+    /**
+     * Write the subtree. The fixed values are written as index-value pairs, like in the checkpoints.
+     *
+     * @param out The output.
+     * @throws IOException If it can't be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeDouble(bound);
+
+        out.writeBoolean(changed != null);
+        if (changed != null) {
+            out.writeUTF(changed.getName());
+            out.writeDouble(changed.getValue());
+            out.writeDouble(changed.getPreviousValue());
+        }
+
+        out.writeInt(fixedValues == null ? -1 : fixedValues.length);
+        if (fixedValues == null) return;
+
+        int count = 0;
+        for (int value : fixedValues) if (value != Integer.MIN_VALUE) count++;
+        out.writeInt(count);
+        for (int i = 0; i < fixedValues.length; i++) {
+            if (fixedValues[i] == Integer.MIN_VALUE) continue;
+            out.writeInt(i);
+            out.writeInt(fixedValues[i]);
+        }
+    }
+
+    /**
+     * Read a subtree written with write.
+     *
+     * @param in The input.
+     * @return The subtree.
+     * @throws IOException If it can't be read.
+     */
+    public static Subtree read(DataInput in) throws IOException {
+        double bound = in.readDouble();
+
+        VariableState changed = null;
+        if (in.readBoolean()) changed = new VariableState(in.readUTF(), in.readDouble(), in.readDouble());
+
+        int length = in.readInt();
+        int[] fixedValues = null;
+        if (length >= 0) {
+            fixedValues = PrimalHeuristics.emptyFixedValues(length);
+            int count = in.readInt();
+            for (int k = 0; k < count; k++) fixedValues[in.readInt()] = in.readInt();
+        }
+
+        return new Subtree(fixedValues, bound, changed);
+    }
+
+    public int[] getFixedValues() {
+        return fixedValues;
+    }
+
+    public double getBound() {
+        return bound;
+    }
+
+    public VariableState getChanged() {
+        return changed;
+    }
+}
@@ -0,0 +1,430 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Utils.ProblemFile;
+import App.PGraph.Utils.TextTable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parametric sweep: the same problem solved under several variants of its parameters.
+ * <p>
+ * A scenario is a list of changes to the base problem, written as "name: O1.fixed_cost=10, D.flow_rate_lower_bound*=2".
+ * The units accept fixed_cost, proportional_cost and capacity_upper_bound, the materials accept flow_rate_lower_bound,
+ * and a change can set the value (=), add to it (+=) or multiply it (*=). The results are rounded to integers.
+ * <p>
+ * The base problem is solved first. The scenarios are split in consecutive blocks, one for each thread, and each
+ * scenario starts with the optimal structure of the previous one as incumbent, so a sweep over similar variants
+ * only explores the nodes that improve the structure that was optimal before. The scenarios that only change costs
+ * reuse the model of the last such scenario of their thread, with the new costs, instead of building it again.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SearchOptions#setStartStructure(Collection)
+ */
+public class Sweep {
+    private final ProblemFile base;
+    private final ArrayList<Scenario> scenarios;
+
+    /**
+     * Constructor.
+     *
+     * @param base The base problem. It isn't changed, every scenario works on a copy.
+     */
+    public Sweep(ProblemFile base) {
+        this.base = base;
+        this.scenarios = new ArrayList<>();
+    }
+
+    /**
+     * Read the scenarios of a file, one per line. Blank lines and lines starting with # are skipped.
+     *
+     * @param file The file.
+     * @return The list of scenarios.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If a line is not a valid scenario.
+     */
+    public static List<Scenario> readScenarios(Path file) throws IOException {
+        ArrayList<Scenario> scenarios = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            scenarios.add(Scenario.parse(line));
+        }
+        return scenarios;
+    }
+
+    public void add(Scenario scenario) {
+        scenarios.add(scenario);
+    }
+
+    public void addAll(Collection<Scenario> scenarios) {
+        this.scenarios.addAll(scenarios);
+    }
+
+    public List<Scenario> getScenarios() {
+        return scenarios;
+    }
+
+    /**
+     * Solve the base problem and every scenario.
+     *
+     * @param options The options of the search, copied for each thread.
+     * @param threads The maximum number of scenarios solved at the same time.
+     * @return The result of the base problem followed by the result of each scenario, in order.
+     * @throws InterruptedException If the thread is interrupted while waiting for the scenarios.
+     */
+    public List<Result> solve(SearchOptions options, int threads) throws InterruptedException {
+        ArrayList<Result> results = new ArrayList<>();
+        Scenario baseScenario = new Scenario("base", List.of());
+        Result first = result(baseScenario, search(baseScenario, options.copy(), null, null));
+        results.add(first);
+        if (scenarios.isEmpty()) return results;
+
+        // Consecutive scenarios go to the same thread, so each one can start from the optimum of the previous one
+        int blocks = Math.max(1, Math.min(threads, scenarios.size()));
+        int blockSize = (scenarios.size() + blocks - 1) / blocks;
+
+        ExecutorService executor = Executors.newFixedThreadPool(blocks);
+        try {
+            ArrayList<Future<List<Result>>> futures = new ArrayList<>();
+            for (int start = 0; start < scenarios.size(); start += blockSize) {
+                List<Scenario> block = scenarios.subList(start, Math.min(start + blockSize, scenarios.size()));
+                SearchOptions copy = options.copy();
+                futures.add(executor.submit(() -> {
+                    ArrayList<Result> blockResults = new ArrayList<>();
+                    Result previous = first;
+                    // Graph of this thread whose model is reused by the scenarios that only change costs
+                    PGraph template = null;
+                    for (Scenario scenario : block) {
+                        boolean costs = scenario.changesOnlyCosts();
+                        PGraph graph = search(scenario, copy, previous, costs ? template : null);
+                        if (costs) template = graph;
+
+                        Result result = result(scenario, graph);
+                        blockResults.add(result);
+                        if (result.isFeasible()) previous = result;
+                    }
+                    return blockResults;
+                }));
+            }
+
+            for (Future<List<Result>> future : futures) results.addAll(future.get());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A scenario couldn't be solved", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Solve a scenario.
+     *
+     * @param scenario The scenario.
+     * @param options  The options of the search, owned by the current thread.
+     * @param previous The result used as starting incumbent, null to start without one.
+     * @param template The graph of the current thread whose model is reused, null to build the model.
+     * @return The graph of the scenario.
+     */
+    private PGraph search(Scenario scenario, SearchOptions options, Result previous, PGraph template) {
+        ProblemFile problem = base.copy();
+        scenario.apply(problem);
+
+        options.setStartStructure(previous == null || !previous.isFeasible() ? null : previous.getSelectedUnits());
+        return new PGraph(problem.getUnits(), options, template);
+    }
+
+    /**
+     * Get the result of a solved scenario.
+     *
+     * @param scenario The scenario.
+     * @param graph    The graph of the scenario.
+     * @return The result.
+     */
+    private static Result result(Scenario scenario, PGraph graph) {
+        Node best = graph.getBestNode();
+        List<String> selected = best == null ? List.of()
+                : graph.getSolutionPool().getSolutions().get(0).getSelectedUnits().stream().map(OperatingUnit::getName).toList();
+        return new Result(scenario, best == null ? Double.NaN : best.getSolutionStatus().getValue(), selected,
+                graph.getStatistics().getNodes(), graph.getStatistics().getLpSolves(), graph.getStatistics().getElapsedTime());
+    }
+
+    /**
+     * Format the results as a table, with one row for each scenario.
+     *
+     * @param results The results.
+     * @return The table, with a header line.
+     */
+    public static String toTable(List<Result> results) {
+        String[] header = {"Scenario", "Value", "Nodes", "LPs", "Time (ms)", "Units"};
+        ArrayList<String[]> rows = new ArrayList<>();
+        rows.add(header);
+        for (Result result : results) {
+            rows.add(new String[]{
+                    result.getScenario().getName(),
+                    result.isFeasible() ? String.format(Locale.ROOT, "%.4f", result.getValue()) : "infeasible",
+                    String.valueOf(result.getNodes()),
+                    String.valueOf(result.getLpSolves()),
+                    String.format(Locale.ROOT, "%.1f", result.getTime() / 1e6),
+                    String.join(" ", result.getSelectedUnits())
+            });
+        }
+
+        // The scenario and the units are text, the other columns are numbers
+        return TextTable.format(rows, 0, header.length - 1);
+    }
+
+    /**
+     * A named list of changes to the base problem.
+     */
+    public static class Scenario {
+        private final String name;
+        private final List<Change> changes;
+
+        public Scenario(String name, List<Change> changes) {
+            this.name = name;
+            this.changes = List.copyOf(changes);
+        }
+
+        /**
+         * Parse a scenario: "name: target.attribute=value, target.attribute+=value, ...".
+         *
+         * @param line The line.
+         * @return The scenario.
+         * @throws IllegalArgumentException If the line is not valid.
+         */
+        public static Scenario parse(String line) {
+            var parts = line.split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Invalid scenario line [" + line + "]");
+            }
+
+            ArrayList<Change> changes = new ArrayList<>();
+            for (String change : parts[1].split(",")) {
+                if (!change.isBlank()) changes.add(Change.parse(change.strip()));
+            }
+            return new Scenario(parts[0].strip(), changes);
+        }
+
+        /**
+         * Apply the changes to a problem.
+         *
+         * @param problem The problem, changed in place.
+         * @throws IllegalArgumentException If a change refers to a unit, material or attribute that doesn't exist.
+         */
+        public void apply(ProblemFile problem) {
+            for (Change change : changes) change.apply(problem);
+        }
+
+        /**
+         * Check if the scenario only changes costs, so the constraints of the model are the ones of the base problem.
+         *
+         * @return True if every change is a fixed or proportional cost.
+         */
+        public boolean changesOnlyCosts() {
+            return changes.stream().allMatch(Change::isCost);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + String.join(", ", changes.stream().map(Change::toString).toList());
+        }
+    }
+
+    /**
+     * A change of an attribute of a unit or a material.
+     */
+    public static class Change {
+        private final String target;
+        private final String attribute;
+        private final char operator;
+        private final double value;
+
+        /**
+         * Constructor.
+         *
+         * @param target    The name of the unit or the material.
+         * @param attribute fixed_cost, proportional_cost, capacity_upper_bound or flow_rate_lower_bound.
+         * @param operator  '=' to set the value, '+' to add it or '*' to multiply by it.
+         * @param value     The value.
+         */
+        public Change(String target, String attribute, char operator, double value) {
+            if (operator != '=' && operator != '+' && operator != '*') {
+                throw new IllegalArgumentException("Invalid operator [" + operator + "]");
+            }
+
+            this.target = target;
+            this.attribute = attribute;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        /**
+         * Parse a change: "target.attribute=value", with =, += or *=.
+         *
+         * @param text The text.
+         * @return The change.
+         * @throws IllegalArgumentException If the text is not valid.
+         */
+        public static Change parse(String text) {
+            int equals = text.indexOf('=');
+            int dot = text.lastIndexOf('.', equals);
+            if (equals < 0 || dot <= 0) {
+                throw new IllegalArgumentException("Invalid change [" + text + "]");
+            }
+
+            char operator = '=';
+            int end = equals;
+            if (text.charAt(equals - 1) == '+' || text.charAt(equals - 1) == '*') {
+                operator = text.charAt(equals - 1);
+                end--;
+            }
+
+            try {
+                return new Change(text.substring(0, dot).strip(), text.substring(dot + 1, end).strip(), operator,
+                        Double.parseDouble(text.substring(equals + 1).strip()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid change value [" + text + "]");
+            }
+        }
+
+        /**
+         * Apply the change to a problem.
+         *
+         * @param problem The problem, changed in place.
+         * @throws IllegalArgumentException If the unit, the material or the attribute doesn't exist.
+         */
+        public void apply(ProblemFile problem) {
+            OperatingUnit unit = problem.getUnit(target);
+            if (unit != null) {
+                switch (attribute) {
+                    case "fixed_cost", "fix_cost" -> unit.setFixed_cost(apply(unit.getFixed_cost()));
+                    case "proportional_cost" -> unit.setProportional_cost(apply(unit.getProportional_cost()));
+                    case "capacity_upper_bound" -> unit.setCapacity_upper_bound(apply(unit.getCapacity_upper_bound()));
+                    default -> throw new IllegalArgumentException("Invalid operating unit attribute [" + attribute + "]");
+                }
+                return;
+            }
+
+            Material material = problem.getMaterial(target);
+            if (material != null) {
+                if (!attribute.equals("flow_rate_lower_bound")) {
+                    throw new IllegalArgumentException("Invalid material attribute [" + attribute + "]");
+                }
+                material.setLower_bound(apply(material.getLower_bound()));
+                return;
+            }
+
+            throw new IllegalArgumentException("The operating unit or material was not found. [" + target + "]");
+        }
+
+        /**
+         * Check if the change is a cost of a unit. Costs don't change the constraints of the model.
+         *
+         * @return True for fixed_cost and proportional_cost.
+         */
+        public boolean isCost() {
+            return switch (attribute) {
+                case "fixed_cost", "fix_cost", "proportional_cost" -> true;
+                default -> false;
+            };
+        }
+
+        private int apply(int current) {
+            double result = switch (operator) {
+                case '+' -> current + value;
+                case '*' -> current * value;
+                default -> value;
+            };
+            return (int) Math.round(result);
+        }
+
+        @Override
+        public String toString() {
+            return target + "." + attribute + (operator == '=' ? "" : String.valueOf(operator)) + "=" + value;
+        }
+    }
+
+    /**
+     * The result of a scenario.
+     */
+    public static class Result {
+        private final Scenario scenario;
+        private final double value;
+        private final List<String> selectedUnits;
+        private final long nodes;
+        private final long lpSolves;
+        private final long time;
+
+        Result(Scenario scenario, double value, List<String> selectedUnits, long nodes, long lpSolves, long time) {
+            this.scenario = scenario;
+            this.value = value;
+            this.selectedUnits = selectedUnits;
+            this.nodes = nodes;
+            this.lpSolves = lpSolves;
+            this.time = time;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        public boolean isFeasible() {
+            return !Double.isNaN(value);
+        }
+
+        /**
+         * Get the optimal value.
+         *
+         * @return The value, NaN if the scenario is infeasible.
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Get the names of the units opened by the optimal structure.
+         *
+         * @return The list of names, empty if the scenario is infeasible.
+         */
+        public List<String> getSelectedUnits() {
+            return selectedUnits;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getLpSolves() {
+            return lpSolves;
+        }
+
+        /**
+         * Get the time of the search.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.Model;
+
+import java.util.*;
+
+/**
+ * Symmetry breaking for interchangeable operating units.
+ * <p>
+ * Units with the same input, output, costs and capacity form an orbit: swapping them gives a solution with the
+ * same value, so the search would explore the same configuration once for each permutation. Inside an orbit the
+ * units are ordered, and only the solutions where the open units come first are kept: Y1 &gt;= Y2 &gt;= ... &gt;= Yk.
+ * <p>
+ * The ordering is used in two ways:
+ * - Constraints Yi - Yj &gt;= 0 in the model, which also strengthen the linear relaxation.
+ * - Orbital fixing when branching: closing a unit closes the units after it, and opening a unit opens the units
+ * before it. This also applies to the flow relaxation, which doesn't see the constraints of the model.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see PGraph
+ */
+class Symmetry {
+    // Units of each orbit with more than one unit, in order
+    private final ArrayList<int[]> orbits;
+    // Orbit and position of each unit, -1 if the unit is alone
+    private final int[] orbitOf;
+    private final int[] positionOf;
+
+    /**
+     * Constructor. Detects the orbits of the units.
+     *
+     * @param units      The list of operating units.
+     * @param capacities The capacity of each unit after the bound propagation.
+     */
+    Symmetry(List<OperatingUnit> units, double[] capacities) {
+        LinkedHashMap<List<Object>, ArrayList<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < units.size(); i++) {
+            OperatingUnit unit = units.get(i);
+            List<Object> key = List.of(unit.getInputMaterial(), unit.getOutputMaterial(),
+                    unit.getFixed_cost(), unit.getProportional_cost(), capacities[i]);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        orbits = new ArrayList<>();
+        orbitOf = new int[units.size()];
+        positionOf = new int[units.size()];
+        Arrays.fill(orbitOf, -1);
+
+        for (ArrayList<Integer> group : groups.values()) {
+            if (group.size() < 2) continue;
+
+            int[] orbit = group.stream().mapToInt(Integer::intValue).toArray();
+            for (int k = 0; k < orbit.length; k++) {
+                orbitOf[orbit[k]] = orbits.size();
+                positionOf[orbit[k]] = k;
+            }
+            orbits.add(orbit);
+        }
+    }
+
+    /**
+     * Check if there is some orbit.
+     *
+     * @return True if some units are interchangeable.
+     */
+    boolean isEmpty() {
+        return orbits.isEmpty();
+    }
+
+    /**
+     * Get the number of orbits with more than one unit.
+     *
+     * @return The number of orbits.
+     */
+    int getOrbitCount() {
+        return orbits.size();
+    }
+
+    /**
+     * Check if the orbits are the same as the orbits of another problem with the same units.
+     *
+     * @param other The symmetry of the other problem.
+     * @return True if both have the same orbits, with the units in the same order.
+     */
+    boolean hasSameOrbits(Symmetry other) {
+        if (orbits.size() != other.orbits.size()) return false;
+        for (int k = 0; k < orbits.size(); k++) {
+            if (!Arrays.equals(orbits.get(k), other.orbits.get(k))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add the ordering constraints Yi - Yj &gt;= 0 for the consecutive units of each orbit.
+     *
+     * @param model The model of the problem.
+     */
+    void addConstraints(Model model) {
+        for (int[] orbit : orbits) {
+            for (int k = 0; k + 1 < orbit.length; k++) {
+                int first = PGraph.yIndex(orbit[k]);
+                int second = PGraph.yIndex(orbit[k + 1]);
+                model.addConstraint(String.format("Symmetry for %s and %s", model.getVariableName(first), model.getVariableName(second)),
+                        new int[]{first, second}, new double[]{1, -1}, 0, Double.POSITIVE_INFINITY);
+            }
+        }
+    }
+
+    /**
+     * Orbital fixing after fixing the Y variable of a unit in a branch.
+     *
+     * @param fixedValues The fixed values of the child, modified in place.
+     * @param index       The index of the fixed variable in the model.
+     */
+    void fix(int[] fixedValues, int index) {
+        int unit = index / 2;
+        if (index != PGraph.yIndex(unit) || orbitOf[unit] < 0) return;
+
+        int[] orbit = orbits.get(orbitOf[unit]);
+        int position = positionOf[unit];
+        if (fixedValues[index] == 0) {
+            for (int k = position + 1; k < orbit.length; k++) fixedValues[PGraph.yIndex(orbit[k])] = 0;
+        } else {
+            for (int k = 0; k < position; k++) fixedValues[PGraph.yIndex(orbit[k])] = 1;
+        }
+    }
+
+    /**
+     * Reorder the fixed Y values inside each orbit so the open units come first.
+     * Used by the heuristics, whose assignments would otherwise break the ordering constraints.
+     *
+     * @param fixedValues The fixed values, with all the Y variables fixed. Modified in place.
+     */
+    void canonicalize(int[] fixedValues) {
+        for (int[] orbit : orbits) {
+            int open = 0;
+            for (int unit : orbit) if (fixedValues[PGraph.yIndex(unit)] == 1) open++;
+            for (int k = 0; k < orbit.length; k++) fixedValues[PGraph.yIndex(orbit[k])] = k < open ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package App.PGraph.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Off-heap store for the nodes of very large search trees.
+ * <p>
+ * Every node is a fixed-width record addressed by an integer id, and the values of its variables are a vector of
+ * doubles in a separate region. The memory is allocated in chunks outside the heap, either as direct buffers or
+ * mapped from a file, so the tree doesn't put pressure on the garbage collector and can be larger than the heap.
+ * <p>
+ * Record layout, in bytes:
+ * - 0: parent id.
+ * - 4: left child id.
+ * - 8: right child id.
+ * - 12: level.
+ * - 16: value of the relaxation.
+ * - 24: index of the changed variable.
+ * - 28: value of the changed variable.
+ * - 32: previous value of the changed variable.
+ * - 40: flags: feasible, best, pruned, pooled and if the node has values.
+ * <p>
+ * A store is not thread safe.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see App.PGraph.StoredNode
+ */
+public class NodeStore implements AutoCloseable {
+    public static final int NONE = -1;
+    public static final byte FEASIBLE = 1;
+    public static final byte BEST = 2;
+    public static final byte PRUNED = 4;
+    public static final byte HAS_VALUES = 8;
+    public static final byte POOLED = 16;
+    private static final int RECORD_SIZE = 48;
+    private static final int PARENT = 0;
+    private static final int LEFT = 4;
+    private static final int RIGHT = 8;
+    private static final int LEVEL = 12;
+    private static final int VALUE = 16;
+    private static final int CHANGED_INDEX = 24;
+    private static final int CHANGED_VALUE = 28;
+    private static final int CHANGED_PREVIOUS = 32;
+    private static final int FLAGS = 40;
+    // Maximum size of a chunk, below the 2 GB limit of a buffer
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+    private final int variables;
+    private final int recordsPerChunk;
+    private final int chunkSize;
+    private final FileChannel channel;
+    // File deleted when the store is closed, only for a temporary store
+    private final Path temporaryFile;
+    private final ArrayList<ByteBuffer> chunks;
+    private int size;
+
+    private NodeStore(int variables, FileChannel channel, Path temporaryFile) {
+        this.variables = variables;
+        this.channel = channel;
+        this.temporaryFile = temporaryFile;
+        this.recordsPerChunk = (int) Math.max(1, Math.min(1 << 16, MAX_CHUNK_SIZE / (RECORD_SIZE + 8L * variables)));
+        this.chunkSize = recordsPerChunk * (RECORD_SIZE + 8 * variables);
+        this.chunks = new ArrayList<>();
+        this.size = 0;
+    }
+
+    /**
+     * Create a store in direct memory.
+     *
+     * @param variables The number of variables of each node.
+     * @return The store.
+     */
+    public static NodeStore inMemory(int variables) {
+        return new NodeStore(variables, null, null);
+    }
+
+    /**
+     * Create a store mapped from a file, which lets the operating system spill the tree to disk.
+     * The file is overwritten.
+     *
+     * @param file      The file.
+     * @param variables The number of variables of each node.
+     * @return The store.
+     * @throws IOException If the file can't be opened.
+     */
+    public static NodeStore mapped(Path file, int variables) throws IOException {
+        return new NodeStore(variables, open(file), null);
+    }
+
+    /**
+     * Create a temporary file mapped store, deleted when the store is closed.
+     *
+     * @param variables The number of variables of each node.
+     * @return The store.
+     * @throws IOException If the file can't be created.
+     */
+    public static NodeStore temporary(int variables) throws IOException {
+        Path file = Files.createTempFile("pgraph-nodes", ".bin");
+        try {
+            return new NodeStore(variables, open(file), file);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Add a node without children.
+     *
+     * @param parent The id of the parent, or NONE for the root.
+     * @param level  The level of the node.
+     * @return The id of the node.
+     */
+    public int add(int parent, int level) {
+        if (size % recordsPerChunk == 0) allocateChunk();
+
+        int id = size++;
+        ByteBuffer chunk = chunk(id);
+        int offset = offset(id);
+        chunk.putInt(offset + PARENT, parent);
+        chunk.putInt(offset + LEFT, NONE);
+        chunk.putInt(offset + RIGHT, NONE);
+        chunk.putInt(offset + LEVEL, level);
+        chunk.putDouble(offset + VALUE, Double.POSITIVE_INFINITY);
+        chunk.putInt(offset + CHANGED_INDEX, NONE);
+        chunk.putInt(offset + CHANGED_VALUE, 0);
+        chunk.putDouble(offset + CHANGED_PREVIOUS, 0);
+        chunk.put(offset + FLAGS, FEASIBLE);
+        return id;
+    }
+
+    private void allocateChunk() {
+        if (channel == null) {
+            chunks.add(ByteBuffer.allocateDirect(chunkSize));
+            return;
+        }
+
+        try {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * chunkSize, chunkSize));
+        } catch (IOException e) {
+            throw new IllegalStateException("The node store file couldn't be extended", e);
+        }
+    }
+
+    private ByteBuffer chunk(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Node " + id + " is not in the store");
+        return chunks.get(id / recordsPerChunk);
+    }
+
+    private int offset(int id) {
+        return (id % recordsPerChunk) * RECORD_SIZE;
+    }
+
+    private int valuesOffset(int id) {
+        return recordsPerChunk * RECORD_SIZE + (id % recordsPerChunk) * 8 * variables;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getVariableCount() {
+        return variables;
+    }
+
+    public int getParent(int id) {
+        return chunk(id).getInt(offset(id) + PARENT);
+    }
+
+    public int getLeft(int id) {
+        return chunk(id).getInt(offset(id) + LEFT);
+    }
+
+    public void setLeft(int id, int left) {
+        chunk(id).putInt(offset(id) + LEFT, left);
+    }
+
+    public int getRight(int id) {
+        return chunk(id).getInt(offset(id) + RIGHT);
+    }
+
+    public void setRight(int id, int right) {
+        chunk(id).putInt(offset(id) + RIGHT, right);
+    }
+
+    public int getLevel(int id) {
+        return chunk(id).getInt(offset(id) + LEVEL);
+    }
+
+    public double getValue(int id) {
+        return chunk(id).getDouble(offset(id) + VALUE);
+    }
+
+    public void setValue(int id, double value) {
+        chunk(id).putDouble(offset(id) + VALUE, value);
+    }
+
+    public int getChangedIndex(int id) {
+        return chunk(id).getInt(offset(id) + CHANGED_INDEX);
+    }
+
+    public int getChangedValue(int id) {
+        return chunk(id).getInt(offset(id) + CHANGED_VALUE);
+    }
+
+    public double getChangedPrevious(int id) {
+        return chunk(id).getDouble(offset(id) + CHANGED_PREVIOUS);
+    }
+
+    /**
+     * Set the variable that was changed to reach the node.
+     *
+     * @param id       The id of the node.
+     * @param index    The index of the variable.
+     * @param value    The fixed value.
+     * @param previous The value in the parent relaxation.
+     */
+    public void setChanged(int id, int index, int value, double previous) {
+        ByteBuffer chunk = chunk(id);
+        int offset = offset(id);
+        chunk.putInt(offset + CHANGED_INDEX, index);
+        chunk.putInt(offset + CHANGED_VALUE, value);
+        chunk.putDouble(offset + CHANGED_PREVIOUS, previous);
+    }
+
+    /**
+     * Check a flag of the node.
+     *
+     * @param id   The id of the node.
+     * @param flag FEASIBLE, BEST, PRUNED, POOLED or HAS_VALUES.
+     * @return True if the flag is set.
+     */
+    public boolean hasFlag(int id, byte flag) {
+        return (chunk(id).get(offset(id) + FLAGS) & flag) != 0;
+    }
+
+    /**
+     * Set or clear a flag of the node.
+     *
+     * @param id    The id of the node.
+     * @param flag  FEASIBLE, BEST, PRUNED, POOLED or HAS_VALUES.
+     * @param value True to set the flag.
+     */
+    public void setFlag(int id, byte flag, boolean value) {
+        ByteBuffer chunk = chunk(id);
+        int offset = offset(id) + FLAGS;
+        byte flags = chunk.get(offset);
+        chunk.put(offset, (byte) (value ? flags | flag : flags & ~flag));
+    }
+
+    /**
+     * Get the values of the variables of the node.
+     *
+     * @param id The id of the node.
+     * @return The values, or null if they were not stored.
+     */
+    public double[] getValues(int id) {
+        if (!hasFlag(id, HAS_VALUES)) return null;
+
+        ByteBuffer chunk = chunk(id);
+        int offset = valuesOffset(id);
+        double[] values = new double[variables];
+        for (int i = 0; i < variables; i++) values[i] = chunk.getDouble(offset + 8 * i);
+        return values;
+    }
+
+    /**
+     * Store the values of the variables of the node.
+     *
+     * @param id     The id of the node.
+     * @param values The values, one for each variable.
+     */
+    public void setValues(int id, double[] values) {
+        ByteBuffer chunk = chunk(id);
+        int offset = valuesOffset(id);
+        for (int i = 0; i < variables; i++) chunk.putDouble(offset + 8 * i, values[i]);
+        setFlag(id, HAS_VALUES, true);
+    }
+
+    /**
+     * Close the file of a mapped store, and delete it if it's temporary. The mapped memory is released when the
+     * buffers are collected. Some systems don't delete a file while it's mapped, then it's deleted when the JVM exits.
+     *
+     * @throws IOException If the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        if (channel != null) channel.close();
+        if (temporaryFile != null) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException e) {
+                temporaryFile.toFile().deleteOnExit();
+            }
+        }
+    }
+}
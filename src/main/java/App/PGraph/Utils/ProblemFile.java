@@ -0,0 +1,539 @@
+package App.PGraph.Utils;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Problem file with the materials and the operating units of a process network.
+ * <p>
+ * The file has three sections:
+ * - materials: one material per line, "name: type" with an optional ", flow_rate_lower_bound=value".
+ * - operating_units: one unit per line, "name: capacity_upper_bound=value, fix_cost=value, proportional_cost=value".
+ * - material_to_operating_unit_flow_rates: one unit per line, "name: input => output".
+ * <p>
+ * Large files can be parsed in parallel: the sections are split in chunks of lines as they are read, the materials and
+ * the units of every chunk are parsed at the same time, and then the flow rates are resolved against them.
+ * <p>
+ * The files can be compressed with gzip. A compressed file is detected by its first bytes when it's read, and it's
+ * decompressed while it's parsed. A file is written compressed when its name ends with ".gz".
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public class ProblemFile {
+    private static final String[] HEADERS = {"materials:", "operating_units:", "material_to_operating_unit_flow_rates:"};
+    /**
+     * Minimum size of a file, in bytes, to parse it in parallel. Smaller files are parsed faster in one thread.
+     */
+    static final long PARALLEL_MIN_BYTES = 1 << 20;
+    // Lines of a chunk, so each task does enough work to pay for its scheduling
+    private static final int CHUNK_LINES = 4096;
+    // First bytes of a gzip stream
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private final ArrayList<Material> materials;
+    private final ArrayList<OperatingUnit> units;
+
+    /**
+     * Constructor.
+     *
+     * @param materials The list of materials.
+     * @param units     The list of operating units, linked to the materials.
+     */
+    public ProblemFile(ArrayList<Material> materials, ArrayList<OperatingUnit> units) {
+        this.materials = materials;
+        this.units = units;
+    }
+
+    /**
+     * Read a problem file, plain or compressed with gzip.
+     *
+     * @param file The file.
+     * @return The problem.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    public static ProblemFile read(Path file) throws IOException {
+        try (BufferedReader reader = newReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Open a problem file for reading. If it starts with the gzip header, it's decompressed as it's read.
+     *
+     * @param file The file.
+     * @return The reader of the text of the file.
+     * @throws IOException If the file can't be opened.
+     */
+    public static BufferedReader newReader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Open a problem file, decompressing it if it starts with the gzip header.
+     *
+     * @param file The file.
+     * @return The stream, a GZIPInputStream if the file is compressed.
+     * @throws IOException If the file can't be opened.
+     */
+    private static InputStream open(Path file) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(file));
+        try {
+            input.mark(2);
+            int magic = input.read() | (input.read() << 8);
+            input.reset();
+            if (magic == GZIP_MAGIC) input = new GZIPInputStream(input, 1 << 16);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        return input;
+    }
+
+    /**
+     * Open a problem file for writing. If its name ends with ".gz", it's compressed with gzip as it's written.
+     *
+     * @param file The file, overwritten if it exists.
+     * @return The writer of the text of the file.
+     * @throws IOException If the file can't be created.
+     */
+    public static BufferedWriter newWriter(Path file) throws IOException {
+        OutputStream output = Files.newOutputStream(file);
+        try {
+            if (file.getFileName().toString().endsWith(".gz")) output = new GZIPOutputStream(output, 1 << 16);
+        } catch (IOException e) {
+            output.close();
+            throw e;
+        }
+        return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a problem from the lines of a reader.
+     *
+     * @param reader The reader.
+     * @return The problem.
+     * @throws IOException              If the reader fails.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    public static ProblemFile read(BufferedReader reader) throws IOException {
+        LinkedHashMap<String, Material> materials = new LinkedHashMap<>();
+        LinkedHashMap<String, OperatingUnit> units = new LinkedHashMap<>();
+
+        int current_header = -1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+
+            if (Arrays.asList(HEADERS).contains(line)) {
+                current_header++;
+                continue;
+            }
+
+            if (current_header < 0) continue;
+            if (line.isBlank()) continue;
+
+            if (current_header == 0) { // Materials
+                Material material = lineToMaterial(line);
+                materials.put(material.getName(), material);
+            } else if (current_header == 1) { // Operating Units
+                OperatingUnit unit = lineToOperatingUnit(line);
+                units.put(unit.getName(), unit);
+            } else if (current_header == 2) { // Flow rates
+                linkMaterials(line, units, materials);
+            }
+        }
+
+        return new ProblemFile(new ArrayList<>(materials.values()), new ArrayList<>(units.values()));
+    }
+
+    /**
+     * Read a problem file, parsing its sections in parallel. The result is the same as the one of read(Path),
+     * including the first invalid line of the file when there is one. The file is read as a stream, like in
+     * read(Path): only the chunks waiting to be parsed are kept in memory, at most two per thread.
+     *
+     * @param file    The file, plain or compressed with gzip.
+     * @param threads The number of threads of the parser. Plain files smaller than PARALLEL_MIN_BYTES or a single
+     *                thread use the sequential parser. The size of a compressed file doesn't tell the size of its
+     *                text, so it's always parsed in chunks.
+     * @return The problem.
+     * @throws IOException              If the file can't be read, or the thread is interrupted while parsing.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    public static ProblemFile read(Path file, int threads) throws IOException {
+        if (threads <= 1) return read(file);
+
+        InputStream input = open(file);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (!(input instanceof GZIPInputStream) && Files.size(file) < PARALLEL_MIN_BYTES) return read(reader);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                return parse(reader, threads, executor);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("The problem file was not parsed");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parse the lines of a reader with the tasks of an executor. The lines are split in chunks as they are read.
+     *
+     * @param reader   The reader.
+     * @param threads  The number of threads of the executor.
+     * @param executor The executor.
+     * @return The problem.
+     * @throws IOException              If the reader fails.
+     * @throws InterruptedException     If the thread is interrupted while waiting for the chunks.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    private static ProblemFile parse(BufferedReader reader, int threads, ExecutorService executor) throws IOException, InterruptedException {
+        // The reader waits while two chunks per thread are pending, so the text is never read far ahead of the parser
+        Semaphore pending = new Semaphore(2 * threads);
+        ArrayList<Future<ArrayList<Material>>> materialChunks = new ArrayList<>();
+        ArrayList<Future<ArrayList<OperatingUnit>>> unitChunks = new ArrayList<>();
+        ArrayList<Future<ArrayList<Link>>> linkChunks = new ArrayList<>();
+        LinkedHashMap<String, Material> materials = new LinkedHashMap<>();
+        LinkedHashMap<String, OperatingUnit> units = new LinkedHashMap<>();
+        boolean joined = false;
+
+        // Each header starts the next section, like in read(BufferedReader)
+        int current_header = -1;
+        ArrayList<String> chunk = new ArrayList<>();
+        String line = reader.readLine();
+        while (true) {
+            boolean header = line != null && Arrays.asList(HEADERS).contains(line.strip());
+            if ((line == null || header || chunk.size() == CHUNK_LINES) && !chunk.isEmpty()) {
+                if (current_header == 0) {
+                    materialChunks.add(submit(chunk, ProblemFile::lineToMaterial, executor, pending));
+                } else if (current_header == 1) {
+                    unitChunks.add(submit(chunk, ProblemFile::lineToOperatingUnit, executor, pending));
+                } else {
+                    // The flow rates need every material and unit. The maps are only read by the chunks.
+                    if (!joined) {
+                        for (Material material : join(materialChunks)) materials.put(material.getName(), material);
+                        for (OperatingUnit unit : join(unitChunks)) units.put(unit.getName(), unit);
+                        joined = true;
+                    }
+                    linkChunks.add(submit(chunk, text -> resolveLink(text, units, materials), executor, pending));
+                }
+                chunk = new ArrayList<>();
+            }
+
+            if (line == null) break;
+            if (header) current_header++;
+            else if (current_header >= 0 && current_header < HEADERS.length && !line.isBlank()) chunk.add(line);
+            line = reader.readLine();
+        }
+
+        if (!joined) {
+            for (Material material : join(materialChunks)) materials.put(material.getName(), material);
+            for (OperatingUnit unit : join(unitChunks)) units.put(unit.getName(), unit);
+        }
+
+        // The flow rates are applied in order, so a unit with several flow rate lines keeps the last one
+        for (Link link : join(linkChunks)) link.apply();
+
+        return new ProblemFile(new ArrayList<>(materials.values()), new ArrayList<>(units.values()));
+    }
+
+    /**
+     * Submit the parsing of a chunk of lines. The permit of the chunk is released when it's parsed.
+     *
+     * @param chunk    The lines, without blank lines.
+     * @param parser   The parser of a line.
+     * @param executor The executor.
+     * @param pending  The permits of the chunks waiting to be parsed. One is taken for this chunk.
+     * @return The future of the parsed lines.
+     * @throws InterruptedException If the thread is interrupted while waiting for a permit.
+     */
+    private static <T> Future<ArrayList<T>> submit(List<String> chunk, Function<String, T> parser, ExecutorService executor, Semaphore pending) throws InterruptedException {
+        pending.acquire();
+        return executor.submit(() -> {
+            try {
+                ArrayList<T> parsed = new ArrayList<>(chunk.size());
+                for (String line : chunk) parsed.add(parser.apply(line.strip()));
+                return parsed;
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    /**
+     * Wait for the chunks of a section and concatenate them. The error of the first invalid chunk is thrown.
+     *
+     * @param futures The futures of the chunks, in order.
+     * @return The parsed lines, in order.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private static <T> ArrayList<T> join(List<Future<ArrayList<T>>> futures) throws InterruptedException {
+        ArrayList<T> parsed = new ArrayList<>();
+        for (Future<ArrayList<T>> future : futures) {
+            try {
+                parsed.addAll(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw new IllegalStateException("A chunk of the problem file couldn't be parsed", e.getCause());
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Convert a string line to a Material object.
+     *
+     * @param line Line with the material data.
+     * @return Material object.
+     */
+    static Material lineToMaterial(String line) {
+        var parts = line.split(":");
+
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid material line");
+        }
+
+        var data = parts[1].strip().split(",");
+
+        if (data.length < 1 || data.length > 2) {
+            throw new IllegalArgumentException("Invalid material data");
+        }
+
+        var name = parts[0].strip();
+        var type = Material.Type.fromString(data[0].strip());
+
+        Material material = new Material(name, type);
+        if (data.length == 2) {
+            try {
+                String[] lower_bound = data[1].split("=");
+                if (lower_bound.length != 2) {
+                    throw new IllegalArgumentException("Invalid lower bound value [material: " + name + ", type: " + type + ", lower_bound: " + data[1].strip() + "]");
+                }
+
+                material.setLower_bound(Integer.parseInt(lower_bound[1].strip()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid lower bound value [material: " + name + ", type: " + type + ", lower_bound: " + data[1].strip() + "]");
+            }
+        }
+        return material;
+    }
+
+    /**
+     * Convert a string line to an OperatingUnit object.
+     *
+     * @param line Line with the operating unit data.
+     * @return OperatingUnit object.
+     */
+    static OperatingUnit lineToOperatingUnit(String line) {
+        var parts = line.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid operating unit line");
+        }
+
+        var data = parts[1].strip().split(",");
+        if (data.length != 3) {
+            throw new IllegalArgumentException("Invalid operating unit data line [operating unit: " + Arrays.toString(data) + "]\n line: " + line);
+        }
+
+        var name = parts[0].strip();
+        try {
+            int capacity_upper_bound = Integer.parseInt(data[0].split("=")[1].strip());
+            int fixed_cost = Integer.parseInt(data[1].split("=")[1].strip());
+            int proportional_cost = Integer.parseInt(data[2].split("=")[1].strip());
+
+            return new OperatingUnit(name, capacity_upper_bound, fixed_cost, proportional_cost);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid operating unit data");
+        }
+    }
+
+    /**
+     * Link an operating unit to its input and output materials from a flow rate line.
+     *
+     * @param line      Line with the flow rate data.
+     * @param units     The operating units by name.
+     * @param materials The materials by name.
+     */
+    static void linkMaterials(String line, LinkedHashMap<String, OperatingUnit> units, LinkedHashMap<String, Material> materials) {
+        resolveLink(line, units, materials).apply();
+    }
+
+    /**
+     * Find the operating unit and the materials of a flow rate line, without changing the unit.
+     *
+     * @param line      Line with the flow rate data.
+     * @param units     The operating units by name.
+     * @param materials The materials by name.
+     * @return The link between the unit and its materials.
+     */
+    static Link resolveLink(String line, LinkedHashMap<String, OperatingUnit> units, LinkedHashMap<String, Material> materials) {
+        var parts = line.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid flow rate line. [" + line + "]");
+        }
+
+        var data = parts[1].strip().split("=>");
+        if (data.length != 2) {
+            throw new IllegalArgumentException("Invalid flow rate data.[" + parts[1] + "]");
+        }
+
+        var ou_name = parts[0].strip();
+        OperatingUnit ou = units.get(ou_name);
+        if (ou == null) {
+            throw new IllegalArgumentException("The required operating unit was not found. [" + ou_name + "]");
+        }
+
+        Material inputMaterial = materials.get(data[0].strip());
+        Material outputMaterial = materials.get(data[1].strip());
+        if (inputMaterial == null || outputMaterial == null) {
+            throw new IllegalArgumentException("Invalid material name");
+        }
+
+        return new Link(ou, inputMaterial, outputMaterial);
+    }
+
+    /**
+     * Write the problem to a file, in the same format that is read. It's compressed with gzip if the name of the file
+     * ends with ".gz".
+     *
+     * @param file The file, overwritten if it exists.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = newWriter(file)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Write the problem to a writer, in the same format that is read.
+     *
+     * @param writer The writer.
+     * @throws IOException If the writer fails.
+     */
+    public void write(BufferedWriter writer) throws IOException {
+        writer.write("materials:\n");
+        for (Material material : materials) {
+            writer.write(material.toString() + "\n");
+        }
+
+        ArrayList<String> flowRates = new ArrayList<>();
+
+        writer.write("\n\noperating_units:\n");
+        for (OperatingUnit unit : units) {
+            var info = unit.toString().split(";");
+            writer.write(info[0] + "\n");
+
+            flowRates.add(info[1]);
+        }
+
+        writer.write("\n\nmaterial_to_operating_unit_flow_rates:\n");
+        for (var flow : flowRates) {
+            writer.write(flow + "\n");
+        }
+    }
+
+    /**
+     * Copy the materials and the operating units, so the copy can be changed without changing this problem.
+     *
+     * @return The new problem.
+     */
+    public ProblemFile copy() {
+        LinkedHashMap<Material, Material> copies = new LinkedHashMap<>();
+        for (Material material : materials) {
+            Material copy = new Material(material.getName(), material.getType());
+            copy.setLower_bound(material.getLower_bound());
+            copies.put(material, copy);
+        }
+
+        ArrayList<OperatingUnit> unitCopies = new ArrayList<>();
+        for (OperatingUnit unit : units) {
+            OperatingUnit copy = new OperatingUnit(unit.getName(), unit.getCapacity_upper_bound(), unit.getFixed_cost(), unit.getProportional_cost());
+            if (unit.getInputMaterial() != null) copy.setInputMaterial(copies.get(unit.getInputMaterial()));
+            if (unit.getOutputMaterial() != null) copy.setOutputMaterial(copies.get(unit.getOutputMaterial()));
+            unitCopies.add(copy);
+        }
+
+        return new ProblemFile(new ArrayList<>(copies.values()), unitCopies);
+    }
+
+    public ArrayList<Material> getMaterials() {
+        return materials;
+    }
+
+    public ArrayList<OperatingUnit> getUnits() {
+        return units;
+    }
+
+    /**
+     * Find a material by its name.
+     *
+     * @param name The name of the material.
+     * @return The material, or null if there is none with that name.
+     */
+    public Material getMaterial(String name) {
+        return find(materials, name, Material::getName);
+    }
+
+    /**
+     * Find an operating unit by its name.
+     *
+     * @param name The name of the unit.
+     * @return The unit, or null if there is none with that name.
+     */
+    public OperatingUnit getUnit(String name) {
+        return find(units, name, OperatingUnit::getName);
+    }
+
+    private static <T> T find(List<T> list, String name, Function<T, String> getName) {
+        for (T item : list) {
+            if (getName.apply(item).equals(name)) return item;
+        }
+        return null;
+    }
+
+    /**
+     * Flow rate line resolved to its operating unit and its materials.
+     *
+     * @param unit   The operating unit.
+     * @param input  The input material.
+     * @param output The output material.
+     */
+    record Link(OperatingUnit unit, Material input, Material output) {
+        /**
+         * Link the unit to its materials.
+         */
+        void apply() {
+            unit.setInputMaterial(input);
+            unit.setOutputMaterial(output);
+        }
+    }
+}
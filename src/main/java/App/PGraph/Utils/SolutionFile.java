@@ -0,0 +1,190 @@
+package App.PGraph.Utils;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Node;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Solution file with the result of a search, used to start the search of a similar problem from it.
+ * <p>
+ * The file has three sections:
+ * - value: the value of the solution.
+ * - units: the names of the open units, one per line.
+ * - variables: one variable per line, "name: value". Optional.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see App.PGraph.SearchOptions#setStartStructure(Collection)
+ */
+public class SolutionFile {
+    private static final String[] HEADERS = {"value:", "units:", "variables:"};
+    private static final double EPSILON = 1e-6;
+    private final double value;
+    private final List<String> units;
+    private final Map<String, Double> variables;
+
+    /**
+     * Constructor.
+     *
+     * @param value     The value of the solution.
+     * @param units     The names of the open units.
+     * @param variables The values of the variables by name, may be empty.
+     */
+    public SolutionFile(double value, List<String> units, Map<String, Double> variables) {
+        this.value = value;
+        this.units = List.copyOf(units);
+        this.variables = Collections.unmodifiableMap(new LinkedHashMap<>(variables));
+    }
+
+    /**
+     * Get the solution of a node. A fractional node opens every unit with flow, like the LP rounding, so its
+     * structure is feasible whenever the node was.
+     *
+     * @param units The list of operating units of the graph of the node.
+     * @param node  The node.
+     * @return The solution, or null if the node is infeasible.
+     */
+    public static SolutionFile of(List<OperatingUnit> units, Node node) {
+        HashSet<VariableState> states = node.getSolutionStatus().getVariables();
+        if (states == null) return null;
+        return of(units, node.getSolutionStatus().getValue(), states);
+    }
+
+    /**
+     * Get the solution with the given variables, for example the merged solution of a decomposition.
+     *
+     * @param units  The list of operating units the variables are named after: X1, Y1, X2, Y2, ...
+     * @param value  The value of the solution.
+     * @param states The variables with their values.
+     * @return The solution.
+     * @see App.PGraph.Decomposition#getVariables()
+     */
+    public static SolutionFile of(List<OperatingUnit> units, double value, Collection<VariableState> states) {
+        // Variables sorted by unit, X before Y
+        TreeMap<String, Double> variables = new TreeMap<>(Comparator.comparingInt((String name) -> Integer.parseInt(name.substring(1)))
+                .thenComparing(name -> name.charAt(0)));
+        for (VariableState state : states) variables.put(state.getName(), state.getValue());
+
+        ArrayList<String> open = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            Double y = variables.get("Y" + (i + 1));
+            if (y != null && y > EPSILON) open.add(units.get(i).getName());
+        }
+
+        return new SolutionFile(value, open, variables);
+    }
+
+    /**
+     * Read a solution file, plain or compressed with gzip.
+     *
+     * @param file The file.
+     * @return The solution.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    public static SolutionFile read(Path file) throws IOException {
+        try (BufferedReader reader = ProblemFile.newReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Read a solution from the lines of a reader.
+     *
+     * @param reader The reader.
+     * @return The solution.
+     * @throws IOException              If the reader fails.
+     * @throws IllegalArgumentException If a line is not valid.
+     */
+    public static SolutionFile read(BufferedReader reader) throws IOException {
+        double value = Double.NaN;
+        ArrayList<String> units = new ArrayList<>();
+        LinkedHashMap<String, Double> variables = new LinkedHashMap<>();
+
+        int current_header = -1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+
+            int header = Arrays.asList(HEADERS).indexOf(line);
+            if (header >= 0) {
+                current_header = header;
+                continue;
+            }
+
+            if (current_header < 0) continue;
+            if (line.isBlank()) continue;
+
+            try {
+                if (current_header == 0) { // Value
+                    value = Double.parseDouble(line);
+                } else if (current_header == 1) { // Units
+                    units.add(line);
+                } else { // Variables
+                    var parts = line.split(":");
+                    variables.put(parts[0].strip(), Double.parseDouble(parts[1].strip()));
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid line in the solution file: " + line, e);
+            }
+        }
+
+        return new SolutionFile(value, units, variables);
+    }
+
+    /**
+     * Write the solution to a file, in the same format that is read. It's compressed with gzip if the name of the
+     * file ends with ".gz".
+     *
+     * @param file The file, overwritten if it exists.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = ProblemFile.newWriter(file)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Write the solution to a writer, in the same format that is read.
+     *
+     * @param writer The writer.
+     * @throws IOException If the writer fails.
+     */
+    public void write(BufferedWriter writer) throws IOException {
+        writer.write("value:\n");
+        writer.write(value + "\n");
+
+        writer.write("\n\nunits:\n");
+        for (String unit : units) {
+            writer.write(unit + "\n");
+        }
+
+        writer.write("\n\nvariables:\n");
+        for (Map.Entry<String, Double> variable : variables.entrySet()) {
+            writer.write(variable.getKey() + ": " + variable.getValue() + "\n");
+        }
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Get the names of the open units, the structure used to start a search.
+     *
+     * @return The names.
+     */
+    public List<String> getUnits() {
+        return units;
+    }
+
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+}
@@ -6,7 +6,7 @@ import java.util.HashSet;
 
 /**
  * This class is used to store the status of a solution from the Branch and Bound algorithm.
- * It stores the value of the solution, the feasibility of the solution, the best solution found so far, the variables that are part of the solution and the variable that was changed to reach this solution.
+ * It stores the value of the solution, the feasibility of the solution, the best solution found so far, if the node was pruned by its bound, if the solution is in the solution pool, the variables that are part of the solution and the variable that was changed to reach this solution.
  *
  * @author Pablo Hernández
  * @author Juan Camilo Narváez
@@ -15,6 +15,8 @@ public class SolutionStatus {
     double value;
     SimpleBooleanProperty feasible;
     SimpleBooleanProperty best;
+    boolean pruned;
+    boolean pooled;
     VariableState changed;
     HashSet<VariableState> variables;
 
@@ -49,6 +51,22 @@ public class SolutionStatus {
         this.best.set(best);
     }
 
+    public boolean isPruned() {
+        return pruned;
+    }
+
+    public void setPruned(boolean pruned) {
+        this.pruned = pruned;
+    }
+
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
     public HashSet<VariableState> getVariables() {
         return variables;
     }
@@ -0,0 +1,387 @@
+package App.PGraph.Utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * This class stores the metrics collected while the Branch and Bound algorithm builds the graph.
+ * It counts the LP solves, infeasible, pruned and reused nodes, the cutting planes and the checkpoints, accumulates the model-build, solve and checkpoint times,
+ * and keeps a timeline of the incumbent and the global lower bound.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public class SolverStatistics {
+    private final ArrayList<Sample> timeline;
+    // Multiset with the bounds of the open nodes, used to know the global lower bound.
+    private final TreeMap<Double, Integer> openBounds;
+    private long startTime;
+    private long endTime;
+    private long firstIncumbentTime;
+    private long nodes;
+    private long lpSolves;
+    private long infeasibleNodes;
+    private long prunedNodes;
+    private long reusedNodes;
+    private long nogoods;
+    private long nogoodMatches;
+    private long fathomedNodes;
+    private long cuts;
+    private long buildTime;
+    private long solveTime;
+    private int openNodes;
+    private int maxOpenNodes;
+    private double incumbent;
+    private long checkpoints;
+    private long checkpointTime;
+
+    /**
+     * Default constructor.
+     */
+    public SolverStatistics() {
+        timeline = new ArrayList<>();
+        openBounds = new TreeMap<>();
+        firstIncumbentTime = -1;
+        incumbent = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Mark the start of the search.
+     */
+    public void start() {
+        startTime = System.nanoTime();
+        endTime = 0;
+    }
+
+    /**
+     * Mark the end of the search. The final bound of the timeline is the incumbent when there are no open nodes,
+     * or the smallest bound of the open nodes left by a search that stopped early.
+     */
+    public void stop() {
+        endTime = System.nanoTime();
+        timeline.add(new Sample(getElapsedTime(), incumbent, getBound()));
+    }
+
+    /**
+     * Register a node that has been added to the open nodes.
+     *
+     * @param bound The lower bound of the node, usually the value of its parent.
+     */
+    public void nodeOpened(double bound) {
+        openBounds.merge(bound, 1, Integer::sum);
+        openNodes++;
+        maxOpenNodes = Math.max(maxOpenNodes, openNodes);
+    }
+
+    /**
+     * Register a node that has been taken from the open nodes to be evaluated.
+     *
+     * @param bound The lower bound the node was opened with.
+     */
+    public void nodeClosed(double bound) {
+        openBounds.computeIfPresent(bound, (key, count) -> count == 1 ? null : count - 1);
+        openNodes--;
+        nodes++;
+    }
+
+    /**
+     * Register the evaluation of the relaxation of a node.
+     *
+     * @param buildTime Nanoseconds spent building the model.
+     * @param solveTime Nanoseconds spent solving the model.
+     */
+    public void lpSolved(long buildTime, long solveTime) {
+        this.lpSolves++;
+        this.buildTime += buildTime;
+        this.solveTime += solveTime;
+    }
+
+    /**
+     * Register an infeasible node.
+     */
+    public void nodeInfeasible() {
+        infeasibleNodes++;
+    }
+
+    /**
+     * Register a node that was discarded because its bound can't improve the incumbent.
+     */
+    public void nodePruned() {
+        prunedNodes++;
+    }
+
+    /**
+     * Register a node taken from the tree of a previous search, without solving its relaxation.
+     */
+    public void nodeReused() {
+        reusedNodes++;
+    }
+
+    /**
+     * Register a nogood learned from an infeasible node.
+     */
+    public void nogoodLearned() {
+        nogoods++;
+    }
+
+    /**
+     * Register a node found infeasible by a nogood, without solving its relaxation.
+     */
+    public void nogoodMatched() {
+        nogoodMatches++;
+    }
+
+    /**
+     * Register a node fathomed by a bound computed without solving its relaxation.
+     */
+    public void nodeFathomed() {
+        fathomedNodes++;
+    }
+
+    /**
+     * Register a cutting plane added to the model.
+     */
+    public void cutAdded() {
+        cuts++;
+    }
+
+    /**
+     * Register a new incumbent and add it to the timeline.
+     *
+     * @param value The value of the new incumbent.
+     */
+    public void incumbentFound(double value) {
+        if (firstIncumbentTime < 0) firstIncumbentTime = getElapsedTime();
+        incumbent = value;
+        timeline.add(new Sample(getElapsedTime(), incumbent, getBound()));
+    }
+
+    /**
+     * Register a checkpoint of the search.
+     *
+     * @param time Nanoseconds spent writing the checkpoint.
+     */
+    public void checkpointWritten(long time) {
+        checkpoints++;
+        checkpointTime += time;
+    }
+
+    /**
+     * Write the counters, the times and the timeline to a checkpoint. The open nodes are not written,
+     * they are registered again when the search is resumed.
+     *
+     * @param out The output.
+     * @throws IOException If the output can't be written.
+     */
+    public void save(DataOutput out) throws IOException {
+        out.writeLong(getElapsedTime());
+        out.writeLong(firstIncumbentTime);
+        out.writeLong(nodes);
+        out.writeLong(lpSolves);
+        out.writeLong(infeasibleNodes);
+        out.writeLong(prunedNodes);
+        out.writeLong(reusedNodes);
+        out.writeLong(nogoods);
+        out.writeLong(nogoodMatches);
+        out.writeLong(fathomedNodes);
+        out.writeLong(cuts);
+        out.writeLong(buildTime);
+        out.writeLong(solveTime);
+        out.writeInt(maxOpenNodes);
+        out.writeDouble(incumbent);
+        out.writeLong(checkpoints);
+        out.writeLong(checkpointTime);
+
+        out.writeInt(timeline.size());
+        for (Sample sample : timeline) {
+            out.writeLong(sample.time);
+            out.writeDouble(sample.incumbent);
+            out.writeDouble(sample.bound);
+        }
+    }
+
+    /**
+     * Restore the statistics of a checkpoint. The elapsed time continues from the time of the checkpoint.
+     * It must be called after start.
+     *
+     * @param in The input.
+     * @throws IOException If the input can't be read.
+     */
+    public void restore(DataInput in) throws IOException {
+        startTime -= in.readLong();
+        firstIncumbentTime = in.readLong();
+        nodes = in.readLong();
+        lpSolves = in.readLong();
+        infeasibleNodes = in.readLong();
+        prunedNodes = in.readLong();
+        reusedNodes = in.readLong();
+        nogoods = in.readLong();
+        nogoodMatches = in.readLong();
+        fathomedNodes = in.readLong();
+        cuts = in.readLong();
+        buildTime = in.readLong();
+        solveTime = in.readLong();
+        maxOpenNodes = in.readInt();
+        incumbent = in.readDouble();
+        checkpoints = in.readLong();
+        checkpointTime = in.readLong();
+
+        timeline.clear();
+        int samples = in.readInt();
+        for (int i = 0; i < samples; i++) {
+            timeline.add(new Sample(in.readLong(), in.readDouble(), in.readDouble()));
+        }
+    }
+
+    /**
+     * Get the global lower bound: the smallest bound of the open nodes, or the incumbent if there are none left.
+     *
+     * @return The global lower bound.
+     */
+    public double getBound() {
+        if (openBounds.isEmpty()) return incumbent;
+        return Math.min(openBounds.firstKey(), incumbent);
+    }
+
+    /**
+     * Get the nanoseconds since the start of the search. If the search has finished, the total time.
+     *
+     * @return Elapsed nanoseconds.
+     */
+    public long getElapsedTime() {
+        return (endTime == 0 ? System.nanoTime() : endTime) - startTime;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getLpSolves() {
+        return lpSolves;
+    }
+
+    public long getInfeasibleNodes() {
+        return infeasibleNodes;
+    }
+
+    public long getPrunedNodes() {
+        return prunedNodes;
+    }
+
+    public long getReusedNodes() {
+        return reusedNodes;
+    }
+
+    public long getNogoods() {
+        return nogoods;
+    }
+
+    /**
+     * Get the number of nodes found infeasible by a nogood. Each one is a relaxation that wasn't solved.
+     *
+     * @return The number of nodes.
+     */
+    public long getNogoodMatches() {
+        return nogoodMatches;
+    }
+
+    public long getFathomedNodes() {
+        return fathomedNodes;
+    }
+
+    /**
+     * Get the number of relaxations that weren't solved because a nogood or a cheaper bound closed the node.
+     *
+     * @return The number of relaxations.
+     */
+    public long getAvoidedLpSolves() {
+        return nogoodMatches + fathomedNodes;
+    }
+
+    public long getCuts() {
+        return cuts;
+    }
+
+    public long getBuildTime() {
+        return buildTime;
+    }
+
+    public long getSolveTime() {
+        return solveTime;
+    }
+
+    public long getFirstIncumbentTime() {
+        return firstIncumbentTime;
+    }
+
+    public int getMaxOpenNodes() {
+        return maxOpenNodes;
+    }
+
+    public double getIncumbent() {
+        return incumbent;
+    }
+
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+
+    public long getCheckpointTime() {
+        return checkpointTime;
+    }
+
+    public List<Sample> getTimeline() {
+        return Collections.unmodifiableList(timeline);
+    }
+
+    /**
+     * Returns a one line summary of the statistics.
+     *
+     * @return A String.
+     */
+    @Override
+    public String toString() {
+        return String.format("nodes=%d, lp_solves=%d, infeasible=%d, pruned=%d, reused=%d, nogoods=%d, nogood_matches=%d, fathomed=%d, cuts=%d, max_open=%d, build=%.3fms, solve=%.3fms, first_incumbent=%.3fms, total=%.3fms",
+                nodes, lpSolves, infeasibleNodes, prunedNodes, reusedNodes, nogoods, nogoodMatches, fathomedNodes, cuts, maxOpenNodes,
+                buildTime / 1e6, solveTime / 1e6, firstIncumbentTime / 1e6, getElapsedTime() / 1e6);
+    }
+
+    /**
+     * A point of the incumbent/bound timeline.
+     */
+    public static class Sample {
+        private final long time;
+        private final double incumbent;
+        private final double bound;
+
+        /**
+         * Constructor.
+         *
+         * @param time      Nanoseconds since the start of the search.
+         * @param incumbent The value of the incumbent at that time.
+         * @param bound     The global lower bound at that time.
+         */
+        public Sample(long time, double incumbent, double bound) {
+            this.time = time;
+            this.incumbent = incumbent;
+            this.bound = bound;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public double getIncumbent() {
+            return incumbent;
+        }
+
+        public double getBound() {
+            return bound;
+        }
+    }
+}
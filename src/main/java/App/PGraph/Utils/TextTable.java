@@ -0,0 +1,45 @@
+package App.PGraph.Utils;
+
+import java.util.List;
+
+/**
+ * Plain text tables for the reports of the command line.
+ * Each column is padded to its widest cell, the cells are separated by two spaces and every row ends with a new line.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public final class TextTable {
+    private TextTable() {
+    }
+
+    /**
+     * Format rows as a table. Text columns are usually aligned to the left and numbers to the right.
+     *
+     * @param rows        The rows, usually with a header row first. Every row has the same number of cells.
+     * @param leftColumns The indexes of the columns aligned to the left, the others are aligned to the right.
+     * @return The table, empty if there are no rows.
+     */
+    public static String format(List<String[]> rows, int... leftColumns) {
+        if (rows.isEmpty()) return "";
+
+        int columns = rows.get(0).length;
+        int[] widths = new int[columns];
+        for (String[] row : rows) {
+            for (int c = 0; c < columns; c++) widths[c] = Math.max(widths[c], row[c].length());
+        }
+
+        boolean[] left = new boolean[columns];
+        for (int c : leftColumns) left[c] = true;
+
+        StringBuilder table = new StringBuilder();
+        for (String[] row : rows) {
+            for (int c = 0; c < columns; c++) {
+                String padding = " ".repeat(widths[c] - row[c].length());
+                table.append(left[c] ? row[c] + padding : padding + row[c]);
+                table.append(c < columns - 1 ? "  " : "\n");
+            }
+        }
+        return table.toString();
+    }
+}
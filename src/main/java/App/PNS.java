@@ -3,10 +3,16 @@ package App;
 import App.Controllers.MaterialsTableController;
 import App.Controllers.OUTableController;
 import App.FXPGraph.FXPGraph;
+import App.PGraph.Decomposition;
 import App.PGraph.Entities.Material;
 import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Node;
+import App.PGraph.SearchOptions;
+import App.PGraph.Sensitivity;
+import App.PGraph.Utils.ProblemFile;
+import App.PGraph.Utils.SolutionFile;
 import App.PGraph.Utils.VariableState;
-import App.Util.LaTeXNode;
+import App.Util.LaTeXRenderer;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -16,6 +22,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.input.*;
 import javafx.scene.layout.*;
@@ -27,8 +34,9 @@ import javafx.util.Duration;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -44,6 +52,8 @@ import java.util.logging.Level;
 public class PNS {
     // Debounce variables for resizing
     private final int debounceTime = 350;
+    // Units of the objective in each rendered part of the formula
+    private static final int FORMULA_PART_UNITS = 20;
     @FXML
     public HBox hBox;
     @FXML
@@ -66,11 +76,24 @@ public class PNS {
     public VBox best_formula;
     @FXML
     public VBox formula_section;
+    @FXML
+    public VBox sensitivity_section;
+    @FXML
+    public GridPane sensitivity_table;
     // Controllers
     private OUTableController ouTableController;
     private MaterialsTableController materialsTableController;
     private Timeline debounceTimer;
     private boolean isFullScreen;
+    // Problem shown in the window and its independent components, each one with its graph
+    private ArrayList<OperatingUnit> units;
+    private ArrayList<Material> materials;
+    private Decomposition decomposition;
+    // Open units of the solution file loaded to start the next search, used once
+    private Collection<String> loadedStart;
+    // If a search is running after an edit, and if there were more edits while it was running
+    private boolean solving;
+    private boolean solvePending;
 
     /**
      * Load the FXML file.
@@ -82,46 +105,6 @@ public class PNS {
         return new FXMLLoader(PNS.class.getResource(route));
     }
 
-    /**
-     * Get an OperatingUnit object from the parts and data.
-     *
-     * @param parts parts of the line.
-     * @param data  data of the line.
-     * @return OperatingUnit object.
-     * @see #lineToOperatingUnit(String)
-     */
-    private static OperatingUnit getOperatingUnit(String[] parts, String[] data) {
-        var name = parts[0].strip();
-        OperatingUnit unit;
-        try {
-            int capacity_upper_bound = Integer.parseInt(data[0].split("=")[1].strip());
-            int fixed_cost = Integer.parseInt(data[1].split("=")[1].strip());
-            int proportional_cost = Integer.parseInt(data[2].split("=")[1].strip());
-
-            unit = new OperatingUnit(name, capacity_upper_bound, fixed_cost, proportional_cost);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid operating unit data");
-        }
-        return unit;
-    }
-
-    private static Material getMaterial(String name, Material.Type type, String[] data) {
-        Material material = new Material(name, type);
-        if (data.length == 2) {
-            try {
-                String[] lower_bound = data[1].split("=");
-                if (lower_bound.length != 2) {
-                    throw new IllegalArgumentException("Invalid lower bound value [material: " + name + ", type: " + type + ", lower_bound: " + data[1].strip() + "]");
-                }
-
-                material.setLower_bound(Integer.parseInt(lower_bound[1].strip()));
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid lower bound value [material: " + name + ", type: " + type + ", lower_bound: " + data[1].strip() + "]");
-            }
-        }
-        return material;
-    }
-
     /**
      * Initialize the application and load the FXML files.
      *
@@ -142,6 +125,10 @@ public class PNS {
         ouContainer.getChildren().add(ouTable);
         ouTableController = ouTableLoader.getController();
 
+        // Editing the tables solves the problem again
+        materialsTableController.setOnEdit(this::resolve);
+        ouTableController.setOnEdit(this::resolve);
+
         // Add the debounce timer to the scene when it's loaded
         parentPane.sceneProperty().addListener((observable, oldScene, newScene) -> {
             if (newScene != null) {
@@ -165,6 +152,10 @@ public class PNS {
         formula_section.setVisible(false);
         formula_section.setManaged(false);
 
+        // The sensitivity section is only shown when there is a solution
+        sensitivity_section.setVisible(false);
+        sensitivity_section.setManaged(false);
+
         Consumer<ScrollPane> scrollEvents = (scroll) -> {
             //Zoom on ctrl + scroll
             scroll.addEventFilter(ScrollEvent.SCROLL, event -> {
@@ -278,6 +269,15 @@ public class PNS {
         // Zoom events
         scrollEvents.accept(canvas_scroll);
 
+        // Hide the popup of the nodes on click
+        parentPane.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            for (FXPGraph graph : graphs()) {
+                if (graph.getPopup().isShowing()) {
+                    graph.getPopup().hide();
+                }
+            }
+        });
+
     }
 
     /**
@@ -295,8 +295,14 @@ public class PNS {
 
         logger.info("Starting loadGraph with " + units.size() + " units and " + materials.size() + " materials");
 
-        FXPGraph graph = new FXPGraph(units);
-        logger.info("FXPGraph created");
+        Decomposition decomposition;
+        try {
+            decomposition = solve(units, null, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        logger.info("FXPGraph created for " + decomposition.getComponentCount() + " components");
 
         // Add the materials and operating units to their tables
         materialsTableController.clear();
@@ -311,14 +317,158 @@ public class PNS {
         }
         logger.info("Operating units added");
 
+        this.units = units;
+        this.materials = materials;
+        loadedStart = null;
+        showGraph(decomposition);
+
+        // When the graph is loaded, the user can save the file.
+        saveBtn.setOnAction(event -> saveFile(units, materials));
+    }
+
+    /**
+     * Solve a problem with a graph for each independent component, in parallel.
+     *
+     * @param units    Operating units.
+     * @param previous The components of the previous search of the problem, or null.
+     * @param start    The names of the open units of the first incumbent, or null.
+     * @return The components, solved.
+     * @throws InterruptedException If the thread is interrupted while waiting for the components.
+     * @see Decomposition
+     */
+    private static Decomposition solve(ArrayList<OperatingUnit> units, Decomposition previous, Collection<String> start)
+            throws InterruptedException {
+        SearchOptions options = new SearchOptions();
+        if (start != null) options.setStartStructure(start);
+
+        Decomposition decomposition = new Decomposition(units);
+        decomposition.solve(options, Runtime.getRuntime().availableProcessors(), (component, componentOptions) -> {
+            // Each component starts from the search of the same component, which is ignored if it changed
+            int index = 0;
+            while (decomposition.getComponents().get(index) != component) index++;
+            if (previous != null && index < previous.getGraphs().size()) componentOptions.setPrevious(previous.getGraphs().get(index));
+            return new FXPGraph(component, componentOptions);
+        });
+        return decomposition;
+    }
+
+    /**
+     * Get the graphs of the components of the problem shown in the window.
+     *
+     * @return The graphs, empty if no problem is loaded.
+     */
+    private List<FXPGraph> graphs() {
+        if (decomposition == null) return List.of();
+        return decomposition.getGraphs().stream().map(FXPGraph.class::cast).toList();
+    }
+
+    /**
+     * Get the structure offered as the first incumbent of the next search: the loaded start solution, or else the
+     * start node chosen in its component and the best solution in the other components.
+     *
+     * @return The names of the open units, or null if there is no start solution and no start node.
+     */
+    private Collection<String> getStartStructure() {
+        if (loadedStart != null) return loadedStart;
+
+        List<FXPGraph> graphs = graphs();
+        if (graphs.stream().allMatch(graph -> graph.getStartNode() == null)) return null;
+
+        ArrayList<String> start = new ArrayList<>();
+        for (int c = 0; c < graphs.size(); c++) {
+            FXPGraph graph = graphs.get(c);
+            Node node = graph.getStartNode() != null ? graph.getStartNode() : graph.getBestNode();
+            SolutionFile solution = node == null ? null : SolutionFile.of(decomposition.getComponents().get(c), node);
+            if (solution != null) start.addAll(solution.getUnits());
+        }
+        return start;
+    }
+
+    /**
+     * Solve the problem again after an edit in the tables, in the background.
+     * The search of each component starts from its current search, so only the part of the tree affected by the edit
+     * is explored again. The start solution or the start node, if the user chose one, is also offered as the first
+     * incumbent. The edits made while it's solving are solved when it ends.
+     *
+     * @see App.PGraph.SearchOptions#setPrevious(App.PGraph.PGraph)
+     * @see App.PGraph.SearchOptions#setStartStructure(java.util.Collection)
+     */
+    private void resolve() {
+        if (decomposition == null) return;
+        if (solving) {
+            solvePending = true;
+            return;
+        }
+
+        solving = true;
+        Decomposition previous = decomposition;
+        ArrayList<OperatingUnit> current = units;
+        // The search uses a copy, so the tables can be edited while it runs
+        ArrayList<OperatingUnit> copy = new ProblemFile(materials, units).copy().getUnits();
+        Collection<String> start = getStartStructure();
+        loadedStart = null;
+
+        new Thread(() -> {
+            Logger logger = Logger.getLogger("PNS.resolve");
+            Decomposition next = null;
+            try {
+                next = solve(copy, previous, start);
+                logger.info("FXPGraph solved again for " + next.getComponentCount() + " components");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "The problem couldn't be solved again", e);
+            } finally {
+                // The window keeps the previous graph if the search failed, and can solve the next edits
+                Decomposition solved = next;
+                Platform.runLater(() -> {
+                    solving = false;
+                    // Another file may have been loaded meanwhile
+                    if (solved != null && current == units) showGraph(solved);
+                    if (solvePending) {
+                        solvePending = false;
+                        resolve();
+                    }
+                });
+            }
+        }).start();
+    }
+
+    /**
+     * Draw the tree of each component and show the best solution of the problem and the sensitivity reports.
+     *
+     * @param decomposition The components, solved.
+     */
+    private void showGraph(Decomposition decomposition) {
+        Logger logger = Logger.getLogger("PNS.showGraph");
+        logger.setLevel(Level.INFO);
+        // The popups of the replaced trees could still choose their nodes to start
+        for (FXPGraph graph : graphs()) graph.getPopup().hide();
+        this.decomposition = decomposition;
+        List<FXPGraph> graphs = graphs();
+
         logger.info("Drawing...");
         // Clear the canvas to avoid overlapping and add the new graph
         canvas_container.getChildren().clear();
-        var draw = graph.draw();
+        if (graphs.size() == 1) {
+            canvas_container.getChildren().add(new StackPane(graphs.get(0).draw()));
+        } else {
+            // The tree of each component goes below the previous one
+            VBox trees = new VBox(24);
+            trees.setAlignment(Pos.TOP_CENTER);
+            for (int c = 0; c < graphs.size(); c++) {
+                var draw = graphs.get(c).draw();
+                if (draw == null) continue;
+
+                Label title = new Label("Component " + (c + 1));
+                title.getStyleClass().add("h3");
+                trees.getChildren().addAll(title, new StackPane(draw));
+            }
+            canvas_container.getChildren().add(trees);
+        }
 
         logger.info("Graph drawed");
 
-        canvas_container.getChildren().add(new StackPane(draw));
         canvas_container.setAlignment(Pos.CENTER);
         canvas_container.setPadding(new Insets(24));
 
@@ -327,15 +477,14 @@ public class PNS {
         logger.info("Initializing calculations");
 
         //Show best solution
-        var best = graph.getBestNode();
+        showSensitivity(graphs.stream().map(FXPGraph::getSensitivity).toList());
+        best_formula.getChildren().clear();
 
-
-        if (best != null) {
+        if (decomposition.isFeasible()) {
             logger.info("Best node obtained");
 
             // Show the formula
-            best_formula.getChildren().clear();
-            ArrayList<VariableState> variables = new ArrayList<>(best.getSolutionStatus().getVariables());
+            ArrayList<VariableState> variables = new ArrayList<>(decomposition.getVariables());
             variables.sort(Comparator.comparing(VariableState::getName));
 
             logger.info("Obtaining variables");
@@ -359,6 +508,7 @@ public class PNS {
 
             Function<VariableState, String> variableValueText = (variable) -> variable.getValue() % 1 == 0 ? String.valueOf((int) variable.getValue()) : String.valueOf(variable.getValue());
             StringBuilder latex = new StringBuilder("Minimize: ");
+            ArrayList<String> parts = new ArrayList<>();
             for (int i = 0; i < units.size(); i++) {
                 var unit = units.get(i);
                 boolean add = false;
@@ -380,59 +530,82 @@ public class PNS {
                 if (i < units.size() - 1) {
                     latex.append(" + ");
                 }
+
+                // Long objectives are rendered in parts, shown as soon as each one is ready
+                if ((i + 1) % FORMULA_PART_UNITS == 0 && i < units.size() - 1) {
+                    parts.add(latex.toString());
+                    latex.setLength(0);
+                }
             }
-            latex.append("=").append(best.getSolutionStatus().getValue()).append("$");
+            latex.append("=").append(decomposition.getValue()).append("$");
+            parts.add(latex.toString());
 
             String latexHeader = "Minimize: $\\sum_{i=1}^{n} \\left(\\left(Cf_i\\times Y_i:\\{0, 1\\}\\right) + \\left(Cp_i \\times X_i\\right)\\right)= $";
 
 
             logger.info("Creating... LaTeX label layout");
 
-            new Thread(() -> {
-                var formulaNode = LaTeXNode.createLaTeXImage(latexHeader, 16, java.awt.Color.WHITE);
-                var solutionNode = LaTeXNode.createLaTeXImage(latex.toString(), 16, java.awt.Color.WHITE);
-
-
-                logger.info("Latex images created, drawing...");
-
-                Platform.runLater(() -> {
-                    HBox formula = new HBox(formulaNode);
-                    HBox solution = new HBox(solutionNode);
-                    best_formula.getChildren().addAll(formula, solution);
-                    logger.info("LaTeX label created");
-
-                    logger.info("Drawing best node...");
-                    var bestDraw = graph.getBestNode().getDraw();
-                    graph.setPopup(best, bestDraw);
-                    logger.info("Note popup: done");
-
-                    formula.getChildren().add(bestDraw);
-                    formula.setAlignment(Pos.CENTER_LEFT);
+            // The formulas are rendered in the background, and the ones in the cache are shown right away
+            LaTeXRenderer renderer = LaTeXRenderer.getDefault();
+            HBox formula = new HBox(renderer.createImageView(latexHeader, 16, java.awt.Color.WHITE));
+            FlowPane solution = new FlowPane();
+            renderer.renderParts(parts, 16, java.awt.Color.WHITE, solution);
+
+            logger.info("Drawing best node...");
+            // The best node of each component
+            for (FXPGraph graph : graphs) {
+                var bestDraw = graph.getBestNode().getDraw();
+                graph.setPopup(graph.getBestNode(), bestDraw);
+                formula.getChildren().add(bestDraw);
+            }
+            logger.info("Note popup: done");
 
+            formula.setAlignment(Pos.CENTER_LEFT);
 
-                    logger.info("Adding formula and solution");
-                    best_formula.getChildren().add(formula);
-                    best_formula.getChildren().add(solution);
-                    logger.info("Done");
-                });
-            }).start();
+            logger.info("Adding formula and solution");
+            best_formula.getChildren().addAll(formula, solution);
+            logger.info("Done");
         }
+    }
 
-        // Show popup on click
-        parentPane.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
-            var popup = graph.getPopup();
+    /**
+     * Show the sensitivity report of the best solution of each component, with the prices of the materials and the
+     * ranges of the units.
+     *
+     * @param reports The report of each component, null if the component has no solution.
+     * @see Sensitivity
+     */
+    private void showSensitivity(List<Sensitivity> reports) {
+        boolean feasible = !reports.isEmpty() && reports.stream().noneMatch(Objects::isNull);
+        sensitivity_table.getChildren().clear();
+        sensitivity_section.setVisible(feasible);
+        sensitivity_section.setManaged(feasible);
+        if (!feasible) return;
+
+        // The materials and the units of each component are two blocks of rows, each one with its own header
+        ArrayList<List<String[]>> blocks = new ArrayList<>();
+        for (Sensitivity sensitivity : reports) {
+            blocks.add(sensitivity.getMaterialRows());
+            blocks.add(sensitivity.getUnitRows());
+        }
 
-            if (popup.isShowing()) {
-                popup.hide();
+        int row = 0;
+        for (List<String[]> block : blocks) {
+            for (int i = 0; i < block.size(); i++) {
+                String[] cells = block.get(i);
+                for (int column = 0; column < cells.length; column++) {
+                    Label label = new Label(cells[column]);
+                    if (i == 0) label.getStyleClass().add("sensitivity-header");
+                    sensitivity_table.add(label, column, row);
+                }
+                row++;
             }
-        });
-
-        // When the graph is loaded, the user can save the file.
-        saveBtn.setOnAction(event -> saveFile(units, materials));
+            row++;
+        }
     }
 
     /**
-     * Load a file with the materials and operating units.
+     * Load a file with the materials and operating units. The file can be compressed with gzip.
      */
     public void loadFile() {
         FileChooser fileChooser = new FileChooser();
@@ -447,137 +620,46 @@ public class PNS {
         }
 
         Thread loadThread = new Thread(() -> {
-          String[] headers = {"materials:", "operating_units:", "material_to_operating_unit_flow_rates:"};
-
-          ArrayList<Material> materials = new ArrayList<>();
-          ArrayList<OperatingUnit> operatingUnits = new ArrayList<>();
-
-          int current_header = -1;
-
-          try {
-              java.util.Scanner scanner = new java.util.Scanner(file);
-              while (scanner.hasNextLine()) {
-                  String line = scanner.nextLine().strip();
-
-                  if (Arrays.asList(headers).contains(line)) {
-                      current_header++;
-                      continue;
-                  }
-
-                  if (current_header < 0) continue;
-                  if (line.isBlank()) continue;
-
-                  if (current_header == 0) { //Materials
-                      Material material = lineToMaterial(line);
-                      materials.add(material);
-                  } else if (current_header == 1) { // Operating Units
-                      operatingUnits.add(lineToOperatingUnit(line));
-                  } else if (current_header == 2) { // Flow rates
-                      var parts = line.split(":");
-                      if (parts.length != 2) {
-                          throw new IllegalArgumentException("Invalid flow rate line. [" + line + "]");
-                      }
-
-                      var data = parts[1].strip().split("=>");
-                      if (data.length != 2) {
-                          throw new IllegalArgumentException("Invalid flow rate data.[" + parts[1] + "]");
-                      }
-
-                      var ou_name = parts[0].strip();
-                      var input = data[0].strip();
-                      var output = data[1].strip();
-
-                      OperatingUnit ou = null;
-                      Material inputMaterial = null;
-                      Material outputMaterial = null;
-
-                      for (OperatingUnit unit : operatingUnits) {
-                          if (unit.getName().equals(ou_name)) {
-                              ou = unit;
-                              break;
-                          }
-                      }
-
-                      if (ou == null) {
-                          throw new IllegalArgumentException("The required operating unit was not found. [" + ou_name + "]");
-                      }
-
-                      for (Material material : materials) {
-                          if (material.getName().equals(input)) {
-                              inputMaterial = material;
-                          }
-
-                          if (material.getName().equals(output)) {
-                              outputMaterial = material;
-                          }
-                      }
-
-                      if (inputMaterial == null || outputMaterial == null) {
-                          throw new IllegalArgumentException("Invalid material name");
-                      }
-
-                      ou.setInputMaterial(inputMaterial);
-                      ou.setOutputMaterial(outputMaterial);
-                  }
-              }
-
-              Platform.runLater(() -> loadGraph(operatingUnits, materials));
-          } catch (java.io.FileNotFoundException e) {
-              System.out.println("Error: " + e.getMessage());
-          }
+            try {
+                ProblemFile problem = ProblemFile.read(file.toPath(), Runtime.getRuntime().availableProcessors());
+                Platform.runLater(() -> loadGraph(problem.getUnits(), problem.getMaterials()));
+            } catch (IOException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
         });
 
         loadThread.start();
     }
 
     /**
-     * Convert a string line to a Material object.
+     * Load a solution file and solve the problem again starting from its structure, for example the solution of a
+     * similar problem. The file can be compressed with gzip.
      *
-     * @param line Line with the material data.
-     * @return Material object.
+     * @see SolutionFile
      */
-    private Material lineToMaterial(String line) {
-        var parts = line.split(":");
-
-        if (parts.length != 2) {
-            throw new IllegalArgumentException("Invalid material line");
-        }
-
-        var data = parts[1].strip().split(",");
-
-        if (data.length < 1 || data.length > 2) {
-            throw new IllegalArgumentException("Invalid material data");
-        }
+    public void loadStartSolution() {
+        if (decomposition == null) return;
 
-        var name = parts[0].strip();
-        var type = Material.Type.fromString(data[0].strip());
-
-        return getMaterial(name, type, data);
-    }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Start Solution");
+        fileChooser.setInitialDirectory(new File(System.getProperty("user.dir")));
 
-    /**
-     * Convert a string line to an OperatingUnit object.
-     *
-     * @param line Line with the operating unit data.
-     * @return OperatingUnit object.
-     * @see #getOperatingUnit(String[], String[])
-     */
-    private OperatingUnit lineToOperatingUnit(String line) {
-        var parts = line.split(":");
-        if (parts.length != 2) {
-            throw new IllegalArgumentException("Invalid operating unit line");
+        File file = fileChooser.showOpenDialog(parentPane.getScene().getWindow());
+        if (file == null) {
+            return;
         }
 
-        var data = parts[1].strip().split(",");
-        if (data.length != 3) {
-            throw new IllegalArgumentException("Invalid operating unit data line [operating unit: " + Arrays.toString(data) + "]\n line: " + line);
+        try {
+            loadedStart = SolutionFile.read(file.toPath()).getUnits();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
         }
-
-        return getOperatingUnit(parts, data);
+        resolve();
     }
 
     /**
-     * Save the file with the materials and operating units.
+     * Save the file with the materials and operating units. A name ending with ".gz" saves it compressed with gzip.
      *
      * @param units     Operating units.
      * @param materials Materials.
@@ -586,34 +668,18 @@ public class PNS {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Resource File");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        FileChooser.ExtensionFilter compressed = new FileChooser.ExtensionFilter("Compressed Text Files", "*.txt.gz");
+        fileChooser.getExtensionFilters().add(compressed);
         fileChooser.setInitialFileName("output.txt");
 
         File file = fileChooser.showSaveDialog(parentPane.getScene().getWindow());
         if (file != null) {
+            // The chooser doesn't add the extension of the filter, and the compression depends on the name
+            if (fileChooser.getSelectedExtensionFilter() == compressed && !file.getName().endsWith(".gz")) {
+                file = new File(file.getPath() + ".gz");
+            }
             try {
-                java.io.FileWriter myWriter = new java.io.FileWriter(file);
-
-                myWriter.write("materials:\n");
-                for (Material material : materials) {
-                    myWriter.write(material.toString() + "\n");
-                }
-
-                ArrayList<String> flowRates = new ArrayList<>();
-
-                myWriter.write("\n\noperating_units:\n");
-                for (OperatingUnit unit : units) {
-                    var info = unit.toString().split(";");
-                    myWriter.write(info[0] + "\n");
-
-                    flowRates.add(info[1]);
-                }
-
-                myWriter.write("\n\nmaterial_to_operating_unit_flow_rates:\n");
-                for (var flow : flowRates) {
-                    myWriter.write(flow + "\n");
-                }
-
-                myWriter.close();
+                new ProblemFile(materials, units).write(file.toPath());
             } catch (IOException e) {
                 System.out.println("An error occurred.");
             }
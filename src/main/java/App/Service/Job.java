@@ -0,0 +1,325 @@
+package App.Service;
+
+import App.PGraph.Decomposition;
+import App.PGraph.PGraph;
+import App.PGraph.SearchOptions;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Utils.ProblemFile;
+import App.PGraph.Utils.VariableState;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A problem submitted to the solver service, with its options, its status and its result.
+ * The status and the result are read by the request threads while the job runs in a solver thread.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SolverService
+ */
+public class Job implements Runnable {
+    private final String id;
+    private final ProblemFile problem;
+    private final Options options;
+    private final Semaphore cores;
+    private final long submitted;
+    private volatile Status status;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+    private volatile long started;
+    private volatile long finished;
+    private volatile Result result;
+    private volatile String error;
+
+    /**
+     * Constructor. The job is queued.
+     *
+     * @param id      The id of the job.
+     * @param problem The problem.
+     * @param options The options of the search.
+     * @param cores   The threads shared by all the jobs of the service. The job takes one to run, and the extra
+     *                threads of its decomposition only if they are free.
+     */
+    public Job(String id, ProblemFile problem, Options options, Semaphore cores) {
+        this.id = id;
+        this.problem = problem;
+        this.options = options;
+        this.cores = cores;
+        this.submitted = System.currentTimeMillis();
+        this.status = Status.QUEUED;
+    }
+
+    /**
+     * Solve the problem. A search stopped by a limit keeps the best solution found.
+     */
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (status != Status.QUEUED) return;
+            status = Status.RUNNING;
+            started = System.currentTimeMillis();
+        }
+
+        try {
+            result = solve();
+            status = cancelRequested ? Status.CANCELLED : result.stopped ? Status.STOPPED : Status.DONE;
+        } catch (InterruptedException e) {
+            status = Status.CANCELLED;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            status = Status.FAILED;
+        } finally {
+            finished = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Solve the problem with one graph, or with the decomposition in independent components when several threads
+     * are allowed. The threads are taken from the ones shared by the service, so the jobs never run more threads
+     * than the service has.
+     *
+     * @return The result.
+     * @throws InterruptedException If the thread is interrupted while waiting for a thread or for the components.
+     */
+    private Result solve() throws InterruptedException {
+        cores.acquire();
+        int extra = 0;
+        try {
+            // The decomposition gets the threads that are free now, and the job thread if no other one is
+            if (options.threads() > 1 && options.poolSize() == 1) {
+                while (extra < options.threads() - 1 && cores.tryAcquire()) extra++;
+            }
+            return solve(1 + extra);
+        } finally {
+            cores.release(1 + extra);
+        }
+    }
+
+    /**
+     * Solve the problem with the given threads.
+     *
+     * @param threads The number of threads taken by the job.
+     * @return The result.
+     * @throws InterruptedException If the thread is interrupted while waiting for the components.
+     */
+    private Result solve(int threads) throws InterruptedException {
+        ArrayList<OperatingUnit> units = problem.getUnits();
+
+        SearchOptions search = new SearchOptions(options.backend() == null ? null : SolverBackend.of(options.backend()));
+        search.setRelaxation(options.relaxation());
+        search.setPoolSize(options.poolSize());
+        search.setTimeLimit(options.timeLimit());
+        search.setNodeLimit(options.nodeLimit());
+        search.setStopCondition(() -> cancelRequested);
+
+        // The components have a pool each, so the decomposition is only used to keep a single solution
+        if (options.threads() > 1 && options.poolSize() == 1) {
+            Decomposition decomposition = new Decomposition(units);
+            decomposition.solve(search, threads);
+
+            long nodes = 0;
+            long lpSolves = 0;
+            double bound = 0;
+            for (PGraph graph : decomposition.getGraphs()) {
+                nodes += graph.getStatistics().getNodes();
+                lpSolves += graph.getStatistics().getLpSolves();
+                bound += graph.getStatistics().getBound();
+            }
+
+            return new Result(decomposition.getValue(), bound, decomposition.getVariables(), units, nodes, lpSolves,
+                    decomposition.isStopped());
+        }
+
+        PGraph graph = new PGraph(units, search);
+        var best = graph.getBestNode();
+        return new Result(best == null ? Double.NaN : best.getSolutionStatus().getValue(), graph.getStatistics().getBound(),
+                best == null ? new HashSet<>() : best.getSolutionStatus().getVariables(), units,
+                graph.getStatistics().getNodes(), graph.getStatistics().getLpSolves(), graph.isStopped());
+    }
+
+    /**
+     * Request the cancellation of the job. A queued job is cancelled right away, and a running job stops
+     * before its next node and keeps the best solution found.
+     *
+     * @return True if the job was queued or running.
+     */
+    public synchronized boolean cancel() {
+        if (status == Status.QUEUED) {
+            status = Status.CANCELLED;
+            finished = System.currentTimeMillis();
+            if (future != null) future.cancel(false);
+            return true;
+        }
+
+        if (status != Status.RUNNING) return false;
+        cancelRequested = true;
+        return true;
+    }
+
+    /**
+     * Check if the job has ended, with any status.
+     *
+     * @return True if the job isn't queued or running.
+     */
+    public boolean isFinished() {
+        Status current = status;
+        return current != Status.QUEUED && current != Status.RUNNING;
+    }
+
+    /**
+     * Get the status of the job as JSON.
+     *
+     * @return The JSON object.
+     */
+    public String statusJson() {
+        StringBuilder json = new StringBuilder("{");
+        Json.field(json, "id", id);
+        Json.field(json, "status", status.name());
+        Json.field(json, "submitted", submitted);
+        if (started > 0) Json.field(json, "started", started);
+        if (finished > 0) Json.field(json, "finished", finished);
+        if (error != null) Json.field(json, "error", error);
+        return Json.close(json);
+    }
+
+    /**
+     * Get the result of the job as JSON: the value, the lower bound, the selected units, the variables and the
+     * size of the search. The value is null if no solution was found.
+     *
+     * @return The JSON object, or null if the job has no result.
+     */
+    public String resultJson() {
+        Result current = result;
+        if (current == null) return null;
+
+        StringBuilder json = new StringBuilder("{");
+        Json.field(json, "id", id);
+        Json.field(json, "status", status.name());
+        Json.field(json, "value", current.value);
+        Json.field(json, "bound", current.bound);
+        Json.field(json, "units", current.units);
+        Json.field(json, "variables", current.variables);
+        Json.field(json, "nodes", current.nodes);
+        Json.field(json, "lpSolves", current.lpSolves);
+        Json.field(json, "time", finished - started);
+        return Json.close(json);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Status of a job.
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        /**
+         * The search explored the whole tree, the value is optimal.
+         */
+        DONE,
+        /**
+         * The search reached the time or node limit. The value is the best found, the bound is the lower bound.
+         */
+        STOPPED,
+        /**
+         * The job was cancelled. If it was running, the value is the best found before the cancellation.
+         */
+        CANCELLED,
+        FAILED
+    }
+
+    /**
+     * Options of a job.
+     *
+     * @param relaxation The relaxation solved at each node.
+     * @param poolSize   The number of solutions kept by the search.
+     * @param timeLimit  The maximum time of the search, or null for no limit.
+     * @param nodeLimit  The maximum number of evaluated nodes, or 0 for no limit.
+     * @param threads    The number of independent components solved at the same time.
+     * @param backend    The name of the solver backend of the relaxations, or null for the default one.
+     */
+    public record Options(SearchOptions.Relaxation relaxation, int poolSize, Duration timeLimit, long nodeLimit, int threads,
+                          String backend) {
+        /**
+         * Read the options from the parameters of a request. Missing parameters take the default values.
+         * Parameters: relaxation (lp, flow or lagrangian), pool, timeLimit (seconds), nodeLimit, threads and backend
+         * (glop, cbc, scip or simplex).
+         *
+         * @param parameters The parameters.
+         * @param maxThreads The maximum number of threads of a job.
+         * @return The options.
+         * @throws IllegalArgumentException If a parameter is not valid.
+         */
+        public static Options parse(Map<String, String> parameters, int maxThreads) {
+            SearchOptions.Relaxation relaxation = SearchOptions.Relaxation.valueOf(parameters.getOrDefault("relaxation", "lp").toUpperCase(Locale.ROOT));
+            int poolSize = Integer.parseInt(parameters.getOrDefault("pool", "1"));
+            String seconds = parameters.get("timeLimit");
+            Duration timeLimit = seconds == null ? null : Duration.ofMillis(Math.round(Double.parseDouble(seconds) * 1000));
+            long nodeLimit = Long.parseLong(parameters.getOrDefault("nodeLimit", "0"));
+            int threads = Integer.parseInt(parameters.getOrDefault("threads", "1"));
+
+            if (poolSize < 1 || nodeLimit < 0 || threads < 1 || (timeLimit != null && timeLimit.isNegative())) {
+                throw new IllegalArgumentException("The pool and the threads must be positive, and the limits can't be negative");
+            }
+
+            // The backend is created once to reject the request now if it isn't available
+            String backend = parameters.get("backend");
+            if (backend != null) {
+                try {
+                    backend = SolverBackend.of(backend).getName();
+                } catch (IllegalStateException | LinkageError e) {
+                    throw new IllegalArgumentException("The backend " + backend + " is not available");
+                }
+            }
+
+            return new Options(relaxation, poolSize, timeLimit, nodeLimit, Math.min(threads, maxThreads), backend);
+        }
+    }
+
+    /**
+     * Result of a job.
+     */
+    private static class Result {
+        private final double value;
+        private final double bound;
+        private final List<String> units;
+        private final Map<String, Double> variables;
+        private final long nodes;
+        private final long lpSolves;
+        private final boolean stopped;
+
+        Result(double value, double bound, Set<VariableState> variables, List<OperatingUnit> units, long nodes, long lpSolves, boolean stopped) {
+            this.value = value;
+            this.bound = bound;
+            this.nodes = nodes;
+            this.lpSolves = lpSolves;
+            this.stopped = stopped;
+
+            // Variables sorted by unit, X before Y, and the units with Y = 1
+            this.variables = new TreeMap<>(Comparator.comparingInt((String name) -> Integer.parseInt(name.substring(1)))
+                    .thenComparing(name -> name.charAt(0)));
+            for (VariableState variable : variables) this.variables.put(variable.getName(), variable.getValue());
+
+            this.units = new ArrayList<>();
+            for (int i = 0; i < units.size(); i++) {
+                Double y = this.variables.get("Y" + (i + 1));
+                if (y != null && y > 0.5) this.units.add(units.get(i).getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package App.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer of the JSON objects returned by the solver service.
+ * The fields are appended to an object that starts with "{" and is closed with close.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see SolverService
+ */
+class Json {
+    private Json() {
+    }
+
+    static void field(StringBuilder json, String name, String value) {
+        name(json, name).append(quote(value)).append(',');
+    }
+
+    static void field(StringBuilder json, String name, long value) {
+        name(json, name).append(value).append(',');
+    }
+
+    /**
+     * Append a number. NaN and the infinities are not valid JSON numbers, they are written as null.
+     *
+     * @param json  The object.
+     * @param name  The name of the field.
+     * @param value The value.
+     */
+    static void field(StringBuilder json, String name, double value) {
+        name(json, name).append(Double.isFinite(value) ? String.valueOf(value) : "null").append(',');
+    }
+
+    static void field(StringBuilder json, String name, List<String> values) {
+        name(json, name).append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(quote(values.get(i)));
+        }
+        json.append("],");
+    }
+
+    static void field(StringBuilder json, String name, Map<String, Double> values) {
+        name(json, name).append('{');
+        boolean first = true;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            if (!first) json.append(',');
+            json.append(quote(entry.getKey())).append(':').append(entry.getValue());
+            first = false;
+        }
+        json.append("},");
+    }
+
+    /**
+     * Close an object.
+     *
+     * @param json The object, with a comma after the last field.
+     * @return The JSON text.
+     */
+    static String close(StringBuilder json) {
+        if (json.charAt(json.length() - 1) == ',') json.setLength(json.length() - 1);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Get a JSON object with an error message.
+     *
+     * @param message The message.
+     * @return The JSON text.
+     */
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{");
+        field(json, "error", message);
+        return close(json);
+    }
+
+    private static StringBuilder name(StringBuilder json, String name) {
+        return json.append(quote(name)).append(':');
+    }
+
+    /**
+     * Quote a string, escaping the quotes, the backslashes and the control characters.
+     *
+     * @param value The string.
+     * @return The quoted string.
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+                    else quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,237 @@
+package App.Service;
+
+import App.PGraph.Utils.ProblemFile;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local HTTP service that solves problems without the graphical interface.
+ * <p>
+ * The requests are handled on virtual threads, and the jobs are solved by a fixed pool of platform threads
+ * with a bounded queue. A job that doesn't fit in the queue is rejected. A job with several threads only gets the
+ * ones that no other job is using, so the service never solves with more threads than the pool has.
+ * <p>
+ * Endpoints:
+ * - POST /jobs: submit a problem, in the same text format as the problem files. The options are query parameters:
+ * relaxation (lp, flow or lagrangian), pool, timeLimit (seconds), nodeLimit, threads and backend (glop, cbc, scip or
+ * simplex). Returns the id of the job.
+ * - GET /jobs/{id}: the status of a job.
+ * - POST /jobs/{id}/cancel: cancel a queued or running job.
+ * - GET /jobs/{id}/result: the result of a finished job.
+ * <p>
+ * The finished jobs are kept until there are more than MAX_FINISHED_JOBS, then the oldest ones are removed.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see Job
+ */
+public class SolverService {
+    /**
+     * Number of finished jobs kept for their results.
+     */
+    public static final int MAX_FINISHED_JOBS = 1000;
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ThreadPoolExecutor solvers;
+    private final int solverThreads;
+    // Threads used by the jobs, including the extra threads of their decompositions
+    private final Semaphore cores;
+    private final ConcurrentHashMap<String, Job> jobs;
+    private final ConcurrentLinkedQueue<Job> finished;
+    private final AtomicLong ids;
+
+    /**
+     * Constructor. The service doesn't accept requests until it's started.
+     *
+     * @param address       The address of the service, usually on localhost.
+     * @param solverThreads The number of jobs solved at the same time, also the maximum threads of a job.
+     * @param queueSize     The number of jobs that can wait to be solved.
+     * @throws IOException If the address can't be bound.
+     */
+    public SolverService(InetSocketAddress address, int solverThreads, int queueSize) throws IOException {
+        this.solverThreads = solverThreads;
+        this.cores = new Semaphore(solverThreads);
+        this.jobs = new ConcurrentHashMap<>();
+        this.finished = new ConcurrentLinkedQueue<>();
+        this.ids = new AtomicLong();
+
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "Solver");
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.solvers = new ThreadPoolExecutor(solverThreads, solverThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), factory);
+        this.requests = Executors.newVirtualThreadPerTaskExecutor();
+
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(requests);
+        this.server.createContext("/jobs", this::handle);
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop the service. The running jobs are cancelled.
+     *
+     * @param delay Seconds to wait for the requests that are being handled.
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        jobs.values().forEach(Job::cancel);
+        solvers.shutdownNow();
+        requests.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Route a request to its endpoint. Every response is JSON.
+     *
+     * @param exchange The request.
+     * @throws IOException If the response can't be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+
+            // The path is /jobs, /jobs/{id} or /jobs/{id}/{action}
+            if (path.length == 2 && method.equals("POST")) {
+                submit(exchange);
+                return;
+            }
+
+            Job job = path.length >= 3 ? jobs.get(path[2]) : null;
+            if (path.length < 3 || path.length > 4) {
+                send(exchange, 404, Json.error("Unknown endpoint"));
+            } else if (job == null) {
+                send(exchange, 404, Json.error("Unknown job " + path[2]));
+            } else if (path.length == 3) {
+                if (method.equals("GET")) send(exchange, 200, job.statusJson());
+                else send(exchange, 405, Json.error("Method not allowed"));
+            } else if (path[3].equals("cancel") && method.equals("POST")) {
+                boolean cancelled = job.cancel();
+                // A queued job is removed from the queue right away
+                if (cancelled && job.isFinished()) {
+                    solvers.purge();
+                    finish(job);
+                }
+                send(exchange, cancelled ? 202 : 409, job.statusJson());
+            } else if (path[3].equals("result") && method.equals("GET")) {
+                String result = job.resultJson();
+                if (result == null) send(exchange, job.isFinished() ? 404 : 409, job.statusJson());
+                else send(exchange, 200, result);
+            } else {
+                send(exchange, 405, Json.error("Method not allowed"));
+            }
+        } catch (RuntimeException e) {
+            Logger.getLogger("SolverService").log(Level.WARNING, "The request couldn't be handled", e);
+        }
+    }
+
+    /**
+     * Submit a job with the problem of the body of the request.
+     *
+     * @param exchange The request.
+     * @throws IOException If the request can't be read or the response can't be sent.
+     */
+    private void submit(HttpExchange exchange) throws IOException {
+        ProblemFile problem;
+        Job.Options options;
+        try {
+            options = Job.Options.parse(parameters(exchange.getRequestURI().getRawQuery()), solverThreads);
+            problem = ProblemFile.read(new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)));
+            if (problem.getUnits().isEmpty()) throw new IllegalArgumentException("The problem has no operating units");
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, Json.error(e.getMessage() == null ? "Invalid request" : e.getMessage()));
+            return;
+        }
+
+        Job job = new Job(String.valueOf(ids.incrementAndGet()), problem, options, cores);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(solvers.submit(() -> {
+                job.run();
+                finish(job);
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            send(exchange, 503, Json.error("The queue is full"));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId());
+        send(exchange, 202, job.statusJson());
+    }
+
+    /**
+     * Register a finished job, and remove the oldest finished jobs if there are too many.
+     *
+     * @param job The job.
+     */
+    private void finish(Job job) {
+        finished.add(job);
+        while (finished.size() > MAX_FINISHED_JOBS) {
+            Job oldest = finished.poll();
+            if (oldest != null) jobs.remove(oldest.getId(), oldest);
+        }
+    }
+
+    /**
+     * Parse the query parameters of a request.
+     *
+     * @param query The raw query, or null.
+     * @return The parameters by name.
+     */
+    private static Map<String, String> parameters(String query) {
+        HashMap<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) return parameters;
+
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) continue;
+            parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Send a JSON response.
+     *
+     * @param exchange The request.
+     * @param code     The status code.
+     * @param json     The body.
+     * @throws IOException If the response can't be sent.
+     */
+    private static void send(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
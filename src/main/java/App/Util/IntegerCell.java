@@ -0,0 +1,39 @@
+package App.Util;
+
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.cell.TextFieldTableCell;
+import javafx.util.Callback;
+import javafx.util.converter.IntegerStringConverter;
+
+/**
+ * Editable table cells for non-negative integers.
+ * A text that is not a non-negative integer is converted to null, so the edit can be discarded instead of failing.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+public class IntegerCell {
+    private IntegerCell() {
+    }
+
+    /**
+     * Get a cell factory with a text field to edit the values of a column.
+     *
+     * @param <S> The type of the rows of the table.
+     * @return The cell factory.
+     */
+    public static <S> Callback<TableColumn<S, Integer>, TableCell<S, Integer>> forTableColumn() {
+        return TextFieldTableCell.forTableColumn(new IntegerStringConverter() {
+            @Override
+            public Integer fromString(String value) {
+                try {
+                    Integer number = super.fromString(value);
+                    return number == null || number < 0 ? null : number;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        });
+    }
+}
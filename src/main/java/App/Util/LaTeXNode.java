@@ -1,6 +1,7 @@
 package App.Util;
 
 import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import org.scilab.forge.jlatexmath.TeXConstants;
 import org.scilab.forge.jlatexmath.TeXFormula;
@@ -16,7 +17,28 @@ import java.awt.image.BufferedImage;
  * @author Juan Camilo Narváez
  */
 public class LaTeXNode {
+    /**
+     * Create an image view with a LaTeX formula.
+     *
+     * @param latex The formula.
+     * @param size  The size of the font.
+     * @param color The color of the text, black if null.
+     * @return The image view.
+     * @see LaTeXRenderer
+     */
     public static ImageView createLaTeXImage(String latex, int size, Color color) {
+        return new ImageView(render(latex, size, color));
+    }
+
+    /**
+     * Render a LaTeX formula to an image. It can be called from any thread.
+     *
+     * @param latex The formula.
+     * @param size  The size of the font.
+     * @param color The color of the text, black if null.
+     * @return The image.
+     */
+    public static Image render(String latex, int size, Color color) {
         if (color == null) color = Color.BLACK;
 
         TeXFormula formula = new TeXFormula(latex);
@@ -24,9 +46,12 @@ public class LaTeXNode {
         icon.setForeground(color);
         icon.setInsets(new Insets(5, 5, 5, 5));
 
+        // The icon is painted without a component, the foreground color is already set
         BufferedImage image = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(), BufferedImage.TYPE_INT_ARGB);
-        icon.paintIcon(new javax.swing.JLabel(), image.getGraphics(), 0, 0);
+        Graphics2D graphics = image.createGraphics();
+        icon.paintIcon(null, graphics, 0, 0);
+        graphics.dispose();
 
-        return new ImageView(SwingFXUtils.toFXImage(image, null));
+        return SwingFXUtils.toFXImage(image, null);
     }
 }
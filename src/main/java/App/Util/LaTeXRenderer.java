@@ -0,0 +1,165 @@
+package App.Util;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+
+import java.awt.Color;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service that renders LaTeX formulas in the background.
+ * <p>
+ * The formulas are rendered by a fixed number of threads with a bounded queue, and the rendered images are kept
+ * in an LRU cache by formula, size and color, so showing a formula again is immediate. The images can be shared
+ * by several image views. A request for a formula that is still being rendered waits for the same render.
+ * <p>
+ * Long formulas can be split in parts that are rendered in parallel and shown as soon as each one is ready.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ * @see LaTeXNode
+ */
+public class LaTeXRenderer {
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_SIZE = 512;
+    private static final int CACHE_SIZE = 256;
+    private static final LaTeXRenderer DEFAULT = new LaTeXRenderer(THREADS, QUEUE_SIZE, CACHE_SIZE);
+    private final ThreadPoolExecutor executor;
+    // Rendered and pending images by key, in access order
+    private final LinkedHashMap<Key, CompletableFuture<Image>> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param threads   The number of rendering threads.
+     * @param queueSize The number of formulas that can wait to be rendered.
+     * @param cacheSize The number of images kept in the cache.
+     */
+    public LaTeXRenderer(int threads, int queueSize, int cacheSize) {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "LaTeX renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Image>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get the renderer shared by the application.
+     *
+     * @return The renderer.
+     */
+    public static LaTeXRenderer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Render a formula, or get it from the cache.
+     *
+     * @param latex The formula.
+     * @param size  The size of the font.
+     * @param color The color of the text, black if null.
+     * @return The image. It completes exceptionally if the formula can't be rendered or the queue is full.
+     */
+    public CompletableFuture<Image> render(String latex, int size, Color color) {
+        Key key = new Key(latex, size, color == null ? Color.BLACK : color);
+
+        CompletableFuture<Image> image;
+        synchronized (cache) {
+            image = cache.get(key);
+            if (image != null) return image;
+
+            image = new CompletableFuture<>();
+            cache.put(key, image);
+        }
+
+        CompletableFuture<Image> result = image;
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(LaTeXNode.render(key.latex(), key.size(), key.color()));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+
+        // A failed render is not kept, so it can be tried again
+        result.whenComplete((value, error) -> {
+            if (error == null) return;
+            synchronized (cache) {
+                cache.remove(key, result);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Create an image view with a formula. The image is set right away if it's in the cache, otherwise
+     * it's set on the JavaFX thread when it's rendered.
+     *
+     * @param latex The formula.
+     * @param size  The size of the font.
+     * @param color The color of the text, black if null.
+     * @return The image view.
+     */
+    public ImageView createImageView(String latex, int size, Color color) {
+        ImageView view = new ImageView();
+        CompletableFuture<Image> image = render(latex, size, color);
+
+        if (image.isDone() && !image.isCompletedExceptionally()) {
+            view.setImage(image.join());
+            return view;
+        }
+
+        image.whenComplete((value, error) -> {
+            if (error != null) {
+                Logger.getLogger("LaTeXRenderer").log(Level.WARNING, "The formula couldn't be rendered", error);
+                return;
+            }
+            Platform.runLater(() -> view.setImage(value));
+        });
+        return view;
+    }
+
+    /**
+     * Render the parts of a long formula in parallel and add them to a pane in order.
+     * The image view of every part is added right away, and each one shows its part as soon as it's rendered.
+     * It must be called from the JavaFX thread.
+     *
+     * @param parts  The parts of the formula, each one a valid formula.
+     * @param size   The size of the font.
+     * @param color  The color of the text, black if null.
+     * @param target The pane where the parts are added.
+     */
+    public void renderParts(List<String> parts, int size, Color color, Pane target) {
+        for (String part : parts) {
+            target.getChildren().add(createImageView(part, size, color));
+        }
+    }
+
+    /**
+     * Key of the cache.
+     *
+     * @param latex The formula.
+     * @param size  The size of the font.
+     * @param color The color of the text.
+     */
+    private record Key(String latex, int size, Color color) {
+    }
+}
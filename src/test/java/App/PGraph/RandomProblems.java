@@ -0,0 +1,184 @@
+package App.PGraph;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.Model;
+import App.PGraph.Solver.SimplexBackend;
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Solver.SolverResult;
+import App.PGraph.Utils.ProblemFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random problems and brute force solutions for the tests.
+ * <p>
+ * The materials are ordered and every unit goes from a material to a later one, so the graphs have no cycles.
+ * The first two materials are raw materials and the last two are products with a random demand.
+ * The costs are taken from wide ranges, so two structures rarely have the same value.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+final class RandomProblems {
+    static final String EXAMPLE = """
+            materials:
+            A: raw_material
+            B: intermediate
+            C: intermediate
+            D: product, flow_rate_lower_bound=10
+
+            operating_units:
+            O1: capacity_upper_bound=1000, fix_cost=4, proportional_cost=4
+            O2: capacity_upper_bound=1000, fix_cost=2, proportional_cost=1
+            O3: capacity_upper_bound=1000, fix_cost=3, proportional_cost=2
+            O4: capacity_upper_bound=1000, fix_cost=3, proportional_cost=2
+            O5: capacity_upper_bound=1000, fix_cost=2, proportional_cost=4
+            O6: capacity_upper_bound=1000, fix_cost=2, proportional_cost=1
+
+            material_to_operating_unit_flow_rates:
+            O1: A => B
+            O2: A => C
+            O3: A => C
+            O4: B => D
+            O5: C => D
+            O6: C => D
+            """;
+
+    private RandomProblems() {
+    }
+
+    /**
+     * Get the units of the example problem of the repository.
+     *
+     * @return The units.
+     */
+    static ArrayList<OperatingUnit> example() {
+        try {
+            return ProblemFile.read(new BufferedReader(new StringReader(EXAMPLE))).getUnits();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Generate a random problem.
+     *
+     * @param seed      The seed of the generator.
+     * @param materials The number of materials, at least 4.
+     * @param units     The number of operating units.
+     * @return The units of the problem.
+     */
+    static ArrayList<OperatingUnit> random(long seed, int materials, int units) {
+        Random random = new Random(seed);
+        Material[] material = new Material[materials];
+        for (int i = 0; i < materials; i++) {
+            Material.Type type = i < 2 ? Material.Type.RAW_MATERIAL
+                    : i >= materials - 2 ? Material.Type.PRODUCT : Material.Type.INTERMEDIATE;
+            material[i] = new Material("M" + i, type);
+            if (type == Material.Type.PRODUCT) material[i].setLower_bound(5 + random.nextInt(20));
+        }
+
+        ArrayList<OperatingUnit> list = new ArrayList<>();
+        for (int i = 0; i < units; i++) {
+            int input = random.nextInt(materials - 2);
+            int output = Math.min(materials - 1, input + 1 + random.nextInt(3));
+            int capacity = random.nextBoolean() ? 1000 : 10 + random.nextInt(300);
+            OperatingUnit unit = new OperatingUnit("O" + (i + 1), capacity, 1 + random.nextInt(500), 1 + random.nextInt(200));
+            unit.setInputMaterial(material[input]);
+            unit.setOutputMaterial(material[output]);
+            list.add(unit);
+        }
+        return list;
+    }
+
+    /**
+     * Solve the model with every combination of open units.
+     *
+     * @param model The model of a graph, X1, Y1, X2, Y2, ...
+     * @param units The number of units.
+     * @return The result of each combination, by the mask of its open units. Null if it's not optimal.
+     */
+    static SolverResult[] enumerate(Model model, int units) {
+        SolverBackend backend = new SimplexBackend();
+        SolverResult[] results = new SolverResult[1 << units];
+        for (int mask = 0; mask < results.length; mask++) {
+            double[] lower = model.getLowerBounds();
+            double[] upper = model.getUpperBounds();
+            for (int i = 0; i < units; i++) {
+                lower[PGraph.yIndex(i)] = upper[PGraph.yIndex(i)] = (mask >> i) & 1;
+            }
+            SolverResult result = backend.solve(model, lower, upper);
+            results[mask] = result.isOptimal() ? result : null;
+        }
+        return results;
+    }
+
+    /**
+     * Get the values of the structures where every open unit carries flow, from the best to the worst.
+     *
+     * @param results The results of each combination of open units.
+     * @param units   The number of units.
+     * @return The values.
+     */
+    static List<Double> structures(SolverResult[] results, int units) {
+        ArrayList<Double> values = new ArrayList<>();
+        for (int mask = 0; mask < results.length; mask++) {
+            if (results[mask] == null) continue;
+
+            boolean idle = false;
+            for (int i = 0; i < units; i++) {
+                if ((mask >> i & 1) == 1 && results[mask].getValues()[PGraph.xIndex(i)] <= 1e-6) idle = true;
+            }
+            if (!idle) values.add(results[mask].getObjective());
+        }
+        values.sort(Double::compare);
+        return values;
+    }
+
+    /**
+     * Get the best value of the combinations that agree with the fixed values of a node.
+     *
+     * @param results     The results of each combination of open units.
+     * @param fixedValues The fixed values of the variables, Integer.MIN_VALUE if a variable is free.
+     * @return The value, or infinity if no combination is feasible.
+     */
+    static double best(SolverResult[] results, int[] fixedValues) {
+        double best = Double.POSITIVE_INFINITY;
+        int units = fixedValues.length / 2;
+        for (int mask = 0; mask < results.length; mask++) {
+            if (results[mask] == null) continue;
+
+            boolean agrees = true;
+            for (int i = 0; i < units && agrees; i++) {
+                int fixed = fixedValues[PGraph.yIndex(i)];
+                agrees = fixed == Integer.MIN_VALUE || fixed == (mask >> i & 1);
+            }
+            if (agrees) best = Math.min(best, results[mask].getObjective());
+        }
+        return best;
+    }
+
+    /**
+     * Fix some Y variables at random, to get the fixed values of a node of the tree.
+     *
+     * @param random The generator.
+     * @param units  The number of units.
+     * @return The fixed values of the variables.
+     */
+    static int[] randomNode(Random random, int units) {
+        int[] fixedValues = new int[2 * units];
+        Arrays.fill(fixedValues, Integer.MIN_VALUE);
+        for (int i = 0; i < units; i++) {
+            int draw = random.nextInt(3);
+            if (draw < 2) fixedValues[PGraph.yIndex(i)] = draw;
+        }
+        return fixedValues;
+    }
+}
@@ -0,0 +1,149 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.FlowRelaxation;
+import App.PGraph.Solver.Model;
+import App.PGraph.Solver.ORToolsBackend;
+import App.PGraph.Solver.SimplexBackend;
+import App.PGraph.Solver.SolverBackend;
+import App.PGraph.Solver.SolverResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests of the relaxations and the bounds of the nodes against GLOP and the best structure found by brute force.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+class RelaxationTest {
+    private static final int SEEDS = 10;
+    private static final int NODES = 20;
+    private static final int UNITS = 9;
+    private static final double EPSILON = 1e-6;
+
+    private static PGraph search(ArrayList<OperatingUnit> units) {
+        return new PGraph(units, new SearchOptions(new SimplexBackend()));
+    }
+
+    private static double[][] bounds(Model model, int[] fixedValues) {
+        double[] lower = model.getLowerBounds();
+        double[] upper = model.getUpperBounds();
+        for (int i = 0; i < fixedValues.length; i++) {
+            if (fixedValues[i] != Integer.MIN_VALUE) lower[i] = upper[i] = fixedValues[i];
+        }
+        return new double[][]{lower, upper};
+    }
+
+    /**
+     * Fix one more Y variable of a node, to get one of its children.
+     */
+    private static int[] child(Random random, int[] fixedValues) {
+        int[] child = fixedValues.clone();
+        for (int i = 0; i < child.length / 2; i++) {
+            if (child[PGraph.yIndex(i)] == Integer.MIN_VALUE) {
+                child[PGraph.yIndex(i)] = random.nextInt(2);
+                break;
+            }
+        }
+        return child;
+    }
+
+    private static void assertBelow(double best, double bound, String message) {
+        assertTrue(bound <= best + EPSILON * Math.max(1, Math.abs(best)), message + ": bound " + bound + ", best " + best);
+    }
+
+    @Test
+    void simplexMatchesGlop() {
+        SolverBackend glop;
+        try {
+            glop = new ORToolsBackend("GLOP");
+        } catch (IllegalStateException | LinkageError e) {
+            glop = null;
+        }
+        assumeTrue(glop != null, "OR-Tools is not available");
+        SolverBackend simplex = new SimplexBackend();
+
+        for (long seed = 0; seed < SEEDS; seed++) {
+            Model model = search(RandomProblems.random(seed, 6, UNITS)).getModel();
+            Random random = new Random(seed);
+            for (int node = 0; node < NODES; node++) {
+                double[][] bounds = bounds(model, RandomProblems.randomNode(random, UNITS));
+                SolverResult expected = glop.solve(model, bounds[0], bounds[1]);
+                SolverResult actual = simplex.solve(model, bounds[0], bounds[1]);
+
+                String message = "seed " + seed + ", node " + node;
+                assertEquals(expected.isOptimal(), actual.isOptimal(), message);
+                if (expected.isOptimal()) {
+                    assertEquals(expected.getObjective(), actual.getObjective(), EPSILON * Math.max(1, Math.abs(expected.getObjective())), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void boundsAreBelowTheBestStructure() {
+        for (long seed = 0; seed < SEEDS; seed++) {
+            ArrayList<OperatingUnit> units = RandomProblems.random(seed, 6, UNITS);
+            Model model = search(units).getModel();
+            SolverResult[] results = RandomProblems.enumerate(model, UNITS);
+            double[] capacities = BoundPropagation.propagate(units);
+
+            FlowRelaxation flow = new FlowRelaxation(units, capacities);
+            LagrangianBound lagrangian = new LagrangianBound(units, capacities);
+            CombinatorialBound combinatorial = new CombinatorialBound(units, capacities);
+            assertTrue(flow.isSupported() && combinatorial.isSupported());
+
+            Random random = new Random(seed);
+            for (int node = 0; node < NODES; node++) {
+                int[] fixedValues = RandomProblems.randomNode(random, UNITS);
+                double best = RandomProblems.best(results, fixedValues);
+                String message = "seed " + seed + ", node " + node;
+
+                double[][] bounds = bounds(model, fixedValues);
+                SolverResult relaxation = flow.solve(bounds[0], bounds[1], null);
+                if (relaxation.isOptimal()) assertBelow(best, relaxation.getObjective(), message + ", flow");
+                else assertEquals(Double.POSITIVE_INFINITY, best, message + ", flow");
+
+                assertBelow(best, combinatorial.bound(fixedValues), message + ", combinatorial");
+                if (best < Double.POSITIVE_INFINITY) {
+                    assertBelow(best, lagrangian.bound(fixedValues, best), message + ", lagrangian");
+                    assertBelow(best, lagrangian.bound(fixedValues, 2 * best + 1), message + ", lagrangian");
+                }
+            }
+        }
+    }
+
+    @Test
+    void flowWarmStartMatchesColdSolve() {
+        for (long seed = 0; seed < SEEDS; seed++) {
+            ArrayList<OperatingUnit> units = RandomProblems.random(seed, 6, UNITS);
+            Model model = search(units).getModel();
+            FlowRelaxation flow = new FlowRelaxation(units, BoundPropagation.propagate(units));
+
+            Random random = new Random(seed);
+            for (int node = 0; node < NODES; node++) {
+                int[] parent = RandomProblems.randomNode(random, UNITS);
+                double[][] parentBounds = bounds(model, parent);
+                FlowRelaxation.Solution warmStart = flow.solve(parentBounds[0], parentBounds[1], null);
+                if (!warmStart.isOptimal()) continue;
+
+                double[][] bounds = bounds(model, child(random, parent));
+                SolverResult cold = flow.solve(bounds[0], bounds[1], null);
+                SolverResult warm = flow.solve(bounds[0], bounds[1], warmStart);
+
+                String message = "seed " + seed + ", node " + node;
+                assertEquals(cold.isOptimal(), warm.isOptimal(), message);
+                if (cold.isOptimal()) {
+                    assertEquals(cold.getObjective(), warm.getObjective(), EPSILON * Math.max(1, Math.abs(cold.getObjective())), message);
+                }
+            }
+        }
+    }
+}
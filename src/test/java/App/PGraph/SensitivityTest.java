@@ -0,0 +1,60 @@
+package App.PGraph;
+
+import App.PGraph.Solver.SimplexBackend;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the sensitivity report on the example problem.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+class SensitivityTest {
+    private static Sensitivity sensitivity(int poolSize) {
+        SearchOptions options = new SearchOptions(new SimplexBackend());
+        options.setPoolSize(poolSize);
+        return new PGraph(RandomProblems.example(), options).getSensitivity();
+    }
+
+    @Test
+    void fixedCostRangesAreUnknownWithoutSecondStructure() {
+        Sensitivity sensitivity = sensitivity(1);
+
+        for (Sensitivity.UnitSensitivity unit : sensitivity.getUnits()) {
+            if (unit.isOpen()) assertTrue(Double.isNaN(unit.getFixedCostIncrease()), unit.getUnit().getName());
+            else assertTrue(Double.isNaN(unit.getFixedCostDecrease()), unit.getUnit().getName());
+        }
+        // O2 is open: it getting cheaper is always safe, more expensive is unknown
+        assertTrue(sensitivity.isStillOptimal(1, -1, 0));
+        assertFalse(sensitivity.isStillOptimal(1, 1, 0));
+    }
+
+    @Test
+    void fixedCostRangesUseTheSecondDistinctStructure() {
+        Sensitivity sensitivity = sensitivity(2);
+
+        // The second structure is O3 and O6 with 35, not the optimum with an idle unit
+        assertEquals(24, sensitivity.getValue(), 1e-9);
+        assertEquals(11, sensitivity.getUnits().get(1).getFixedCostIncrease(), 1e-9);
+        assertTrue(sensitivity.isStillOptimal(1, 11, 0));
+        assertFalse(sensitivity.isStillOptimal(1, 12, 0));
+    }
+
+    @Test
+    void everyUnitHasFiniteReducedCost() {
+        Sensitivity sensitivity = sensitivity(1);
+
+        for (Sensitivity.MaterialPrice price : sensitivity.getPrices()) {
+            assertTrue(Double.isFinite(price.getPrice()), price.getMaterial().getName());
+        }
+        for (Sensitivity.UnitSensitivity unit : sensitivity.getUnits()) {
+            assertTrue(Double.isFinite(unit.getReducedCost()), unit.getUnit().getName());
+        }
+        // B is only produced by the closed O1: 4 plus its fixed cost of 4 over a capacity of 1000
+        assertEquals(4.004, sensitivity.getPrices().get(0).getPrice(), 1e-9);
+    }
+}
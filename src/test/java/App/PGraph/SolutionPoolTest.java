@@ -0,0 +1,52 @@
+package App.PGraph;
+
+import App.PGraph.Entities.OperatingUnit;
+import App.PGraph.Solver.SimplexBackend;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the solution pool against the structures found by brute force.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+class SolutionPoolTest {
+    private static List<Double> values(PGraph graph) {
+        return graph.getSolutionPool().getSolutions().stream().map(SolutionPool.Solution::getValue).toList();
+    }
+
+    private static PGraph search(List<OperatingUnit> units, int poolSize) {
+        SearchOptions options = new SearchOptions(new SimplexBackend());
+        options.setPoolSize(poolSize);
+        return new PGraph(new ArrayList<>(units), options);
+    }
+
+    @Test
+    void exampleHasDistinctStructures() {
+        PGraph graph = search(RandomProblems.example(), 5);
+
+        assertEquals(List.of(24.0, 35.0, 54.0, 65.0, 67.0), values(graph));
+        List<String> best = graph.getSolutionPool().getSolutions().get(0).getSelectedUnits().stream().map(OperatingUnit::getName).toList();
+        assertEquals(List.of("O2", "O6"), best);
+    }
+
+    @Test
+    void poolHasTheBestStructures() {
+        for (long seed = 0; seed < 20; seed++) {
+            ArrayList<OperatingUnit> units = RandomProblems.random(seed, 6, 8);
+            PGraph graph = search(units, 4);
+
+            List<Double> expected = RandomProblems.structures(RandomProblems.enumerate(graph.getModel(), units.size()), units.size());
+            List<Double> actual = values(graph);
+            assertEquals(Math.min(4, expected.size()), actual.size(), "seed " + seed);
+            for (int k = 0; k < actual.size(); k++) {
+                assertEquals(expected.get(k), actual.get(k), 1e-6, "seed " + seed);
+            }
+        }
+    }
+}
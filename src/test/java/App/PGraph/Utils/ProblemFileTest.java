@@ -0,0 +1,95 @@
+package App.PGraph.Utils;
+
+import App.PGraph.Entities.Material;
+import App.PGraph.Entities.OperatingUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the parallel parser of problem files against the sequential one.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+class ProblemFileTest {
+    @TempDir
+    Path directory;
+
+    private static ProblemFile problem(int size) {
+        ArrayList<Material> materials = new ArrayList<>();
+        for (int i = 0; i < size / 10; i++) {
+            Material material = new Material("M" + i, i == 0 ? Material.Type.RAW_MATERIAL : Material.Type.INTERMEDIATE);
+            if (i % 7 == 0 && i > 0) material.setLower_bound(i);
+            materials.add(material);
+        }
+
+        ArrayList<OperatingUnit> units = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            OperatingUnit unit = new OperatingUnit("O" + i, 100 + i, i % 13, i % 5);
+            unit.setInputMaterial(materials.get(i % materials.size()));
+            unit.setOutputMaterial(materials.get((i * 7 + 1) % materials.size()));
+            units.add(unit);
+        }
+        return new ProblemFile(materials, units);
+    }
+
+    private static String text(ProblemFile problem) throws IOException {
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            problem.write(writer);
+        }
+        return text.toString();
+    }
+
+    @Test
+    void compressedFileIsParsedInChunks() throws IOException {
+        // Several chunks per section, in a compressed file smaller than PARALLEL_MIN_BYTES
+        Path file = directory.resolve("problem.txt.gz");
+        problem(20000).write(file);
+
+        String sequential = text(ProblemFile.read(file));
+        assertEquals(sequential, text(ProblemFile.read(file, 4)));
+        assertEquals(text(problem(20000)), sequential);
+    }
+
+    @Test
+    void parallelParserReportsTheFirstInvalidLine() throws IOException {
+        Path file = directory.resolve("problem.txt.gz");
+        problem(20000).write(file);
+        List<String> lines;
+        try (BufferedReader reader = ProblemFile.newReader(file)) {
+            lines = new ArrayList<>(reader.lines().toList());
+        }
+        lines.set(lines.size() - 5, "O3: M1 => Nope");
+        lines.set(lines.size() - 2, "O4: M1");
+        try (BufferedWriter writer = ProblemFile.newWriter(file)) {
+            for (String line : lines) writer.write(line + "\n");
+        }
+
+        String sequential = assertThrows(IllegalArgumentException.class, () -> ProblemFile.read(file)).getMessage();
+        String parallel = assertThrows(IllegalArgumentException.class, () -> ProblemFile.read(file, 4)).getMessage();
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void plainFileIsTheSame() throws IOException {
+        Path file = directory.resolve("problem.txt");
+        problem(200000).write(file);
+
+        assertTrue(Files.size(file) >= ProblemFile.PARALLEL_MIN_BYTES);
+        assertEquals(text(ProblemFile.read(file)), text(ProblemFile.read(file, 4)));
+    }
+}
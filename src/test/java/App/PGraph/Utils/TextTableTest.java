@@ -0,0 +1,34 @@
+package App.PGraph.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the text tables of the reports.
+ *
+ * @author Pablo Hernández
+ * @author Juan Camilo Narváez
+ */
+class TextTableTest {
+    @Test
+    void columnsArePaddedToTheWidestCell() {
+        List<String[]> rows = List.of(
+                new String[]{"Name", "Value", "Units"},
+                new String[]{"base", "24", "O2 O6"},
+                new String[]{"big", "305", ""});
+
+        assertEquals("""
+                Name  Value  Units
+                base     24  O2 O6
+                big     305       \n""", TextTable.format(rows, 0, 2));
+    }
+
+    @Test
+    void emptyColumnsAndNoRows() {
+        assertEquals("  x\n", TextTable.format(List.<String[]>of(new String[]{"", "x"})));
+        assertEquals("", TextTable.format(List.of()));
+    }
+}